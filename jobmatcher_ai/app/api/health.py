@@ -1,8 +1,10 @@
 from fastapi import APIRouter
 
+from app.services.nlp_service import MODEL_NAME
+
 router = APIRouter()
 
 @router.get("")
 async def health_check():
-    # TODO: aggiungere info su modello caricato ecc.
-    return {"status": "ok", "modelLoaded": True}
+    # model: usato dall'API per riconoscere gli embedding calcolati con un modello precedente
+    return {"status": "ok", "modelLoaded": True, "model": MODEL_NAME}
@@ -1,12 +1,23 @@
+from typing import List
 from fastapi import APIRouter
-from pydantic import BaseModel
-from app.services.nlp_service import embed_text
+from pydantic import BaseModel, Field
+from app.services.nlp_service import embed_text, embed_texts
 
 router = APIRouter()
 
+MAX_BATCH = 256
+
 class TextRequest(BaseModel):
     text: str
 
+class BatchRequest(BaseModel):
+    texts: List[str] = Field(..., max_length=MAX_BATCH)
+
 @router.post("/embed-text")
 async def embed_text_endpoint(body: TextRequest):
     return await embed_text(body.text)
+
+# embeddings nello stesso ordine dei testi ricevuti
+@router.post("/embed-batch")
+async def embed_batch_endpoint(body: BatchRequest):
+    return await embed_texts(body.texts)
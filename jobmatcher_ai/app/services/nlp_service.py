@@ -10,6 +10,11 @@ async def embed_text(text: str) -> Dict[str, Any]:
     embedding = await anyio.to_thread.run_sync(lambda: _model.encode(text).tolist())
     return {"embedding": embedding, "model_used": MODEL_NAME}
 
+async def embed_texts(texts: List[str]) -> Dict[str, Any]:
+    # una sola invocazione del modello per tutto il batch
+    embeddings = await anyio.to_thread.run_sync(lambda: _model.encode(texts).tolist()) if texts else []
+    return {"embeddings": embeddings, "model_used": MODEL_NAME}
+
 async def parse_cv_and_embed(text: str) -> Dict[str, Any]:
     skills: List[str] = []
     experience: List[Dict[str, str]] = []
@@ -0,0 +1,35 @@
+// k6: GET /api/candidates/me/matches con un candidato che ha già un CV analizzato e dei like.
+// Uso: k6 run -e BASE_URL=http://localhost:8080 -e USERNAME=... -e PASSWORD=... loadtest/matches.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+
+export const options = {
+  scenarios: {
+    matches: {
+      executor: 'ramping-vus',
+      startVUs: 10,
+      stages: [
+        { duration: '30s', target: 200 },
+        { duration: '2m', target: 200 },
+        { duration: '15s', target: 0 },
+      ],
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+  const res = http.post(`${BASE_URL}/api/auth/login`,
+    JSON.stringify({ username: __ENV.USERNAME, password: __ENV.PASSWORD }),
+    { headers: { 'Content-Type': 'application/json' } });
+  check(res, { 'login 200': (r) => r.status === 200 });
+  return { token: res.json('token') };
+}
+
+export default function (data) {
+  const res = http.get(`${BASE_URL}/api/candidates/me/matches?lat=45.46&lon=9.19&radiusKm=50&limit=20`,
+    { headers: { Authorization: `Bearer ${data.token}` } });
+  check(res, { 'matches 200': (r) => r.status === 200 });
+}
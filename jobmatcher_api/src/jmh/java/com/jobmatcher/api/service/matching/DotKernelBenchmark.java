@@ -0,0 +1,46 @@
+package com.jobmatcher.api.service.matching;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prodotto scalare SIMD (Vector API) vs scalare, alle dimensioni tipiche degli embedding.
+ * Esecuzione: gradle jmh (il modulo jdk.incubator.vector è aggiunto da build.gradle).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DotKernelBenchmark {
+
+    @Param({"384", "768", "1536"})
+    int dimension;
+
+    private final DotKernel scalar = new ScalarDotKernel();
+    private final DotKernel simd = new SimdDotKernel();
+
+    private float[] a;
+    private float[] b;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(42);
+        a = new float[dimension];
+        b = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            a[i] = (float) rnd.nextGaussian();
+            b[i] = (float) rnd.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    public float scalar() {
+        return scalar.dot(a, b);
+    }
+
+    @Benchmark
+    public float simd() {
+        return simd.dot(a, b);
+    }
+}
@@ -7,7 +7,24 @@ import org.springframework.context.annotation.Configuration;
 @ConfigurationProperties(prefix = "jobmatcher.ai")
 public class AiClientProperties {
 
+    // remote = servizio jobmatcher_ai; local = provider deterministico in JVM (load test / offline)
+    private String provider = "remote";
     private String baseUrl = "http://localhost:8000";
+    private Local local = new Local();
+    private EmbedBatch embedBatch = new EmbedBatch();
+    private EmbedCache embedCache = new EmbedCache();
+    private long connectTimeoutMs = 2000;
+    private Pool pool = new Pool();
+    private Timeouts timeouts = new Timeouts();
+    private Bulkhead bulkhead = new Bulkhead();
+    private Retry retry = new Retry();
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public String getProvider() { return provider; }
+    public void setProvider(String provider) { this.provider = provider; }
+
+    public Local getLocal() { return local; }
+    public void setLocal(Local local) { this.local = local; }
 
     public String getBaseUrl() {
         return baseUrl;
@@ -16,5 +33,162 @@ public class AiClientProperties {
     public void setBaseUrl(String baseUrl) {
         this.baseUrl = baseUrl;
     }
-}
 
+    public EmbedBatch getEmbedBatch() {
+        return embedBatch;
+    }
+
+    public void setEmbedBatch(EmbedBatch embedBatch) {
+        this.embedBatch = embedBatch;
+    }
+
+    public EmbedCache getEmbedCache() { return embedCache; }
+    public void setEmbedCache(EmbedCache embedCache) { this.embedCache = embedCache; }
+
+    public long getConnectTimeoutMs() { return connectTimeoutMs; }
+    public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+    public Pool getPool() { return pool; }
+    public void setPool(Pool pool) { this.pool = pool; }
+
+    public Timeouts getTimeouts() { return timeouts; }
+    public void setTimeouts(Timeouts timeouts) { this.timeouts = timeouts; }
+
+    public Bulkhead getBulkhead() { return bulkhead; }
+    public void setBulkhead(Bulkhead bulkhead) { this.bulkhead = bulkhead; }
+
+    public Retry getRetry() { return retry; }
+    public void setRetry(Retry retry) { this.retry = retry; }
+
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+
+    public static class Local {
+        // come bge-m3, così gli indici e la memoria si comportano come in produzione
+        private int dimension = 1024;
+
+        public int getDimension() { return dimension; }
+        public void setDimension(int dimension) { this.dimension = dimension; }
+    }
+
+    public static class EmbedBatch {
+        private boolean enabled = true;
+        // attesa massima per raccogliere altre richieste prima di inviare il batch
+        private long windowMs = 20;
+        private int maxSize = 32;
+        private long timeoutMs = 30000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getWindowMs() { return windowMs; }
+        public void setWindowMs(long windowMs) { this.windowMs = windowMs; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+    }
+
+    public static class EmbedCache {
+        private boolean enabled = true;
+        // voci in memoria (~4 byte per dimensione ciascuna)
+        private int maxEntries = 5000;
+        // secondo livello su tabella embedding_cache
+        private boolean persistent = true;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxEntries() { return maxEntries; }
+        public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+
+        public boolean isPersistent() { return persistent; }
+        public void setPersistent(boolean persistent) { this.persistent = persistent; }
+    }
+
+    public static class Pool {
+        private int maxConnections = 50;
+        // richieste in attesa di una connessione libera, e per quanto
+        private int pendingAcquireMaxCount = 200;
+        private long pendingAcquireTimeoutMs = 5000;
+        private long maxIdleTimeMs = 30000;
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public long getPendingAcquireTimeoutMs() { return pendingAcquireTimeoutMs; }
+        public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) { this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs; }
+
+        public long getMaxIdleTimeMs() { return maxIdleTimeMs; }
+        public void setMaxIdleTimeMs(long maxIdleTimeMs) { this.maxIdleTimeMs = maxIdleTimeMs; }
+    }
+
+    // timeout complessivo per tentativo (risposta compresa)
+    public static class Timeouts {
+        private long parseMs = 120000;
+        private long embedMs = 30000;
+        private long healthMs = 3000;
+
+        public long getParseMs() { return parseMs; }
+        public void setParseMs(long parseMs) { this.parseMs = parseMs; }
+
+        public long getEmbedMs() { return embedMs; }
+        public void setEmbedMs(long embedMs) { this.embedMs = embedMs; }
+
+        public long getHealthMs() { return healthMs; }
+        public void setHealthMs(long healthMs) { this.healthMs = healthMs; }
+    }
+
+    // chiamate concorrenti per tipo: il parsing (lento) non deve esaurire gli slot degli embedding
+    public static class Bulkhead {
+        private int maxConcurrentParse = 4;
+        private int maxConcurrentEmbed = 16;
+        private long maxWaitMs = 2000;
+
+        public int getMaxConcurrentParse() { return maxConcurrentParse; }
+        public void setMaxConcurrentParse(int maxConcurrentParse) { this.maxConcurrentParse = maxConcurrentParse; }
+
+        public int getMaxConcurrentEmbed() { return maxConcurrentEmbed; }
+        public void setMaxConcurrentEmbed(int maxConcurrentEmbed) { this.maxConcurrentEmbed = maxConcurrentEmbed; }
+
+        public long getMaxWaitMs() { return maxWaitMs; }
+        public void setMaxWaitMs(long maxWaitMs) { this.maxWaitMs = maxWaitMs; }
+    }
+
+    // solo per le operazioni idempotenti (embedding, health)
+    public static class Retry {
+        private int maxAttempts = 3;
+        private long initialBackoffMs = 200;
+        private long maxBackoffMs = 2000;
+        private double jitter = 0.5;
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getInitialBackoffMs() { return initialBackoffMs; }
+        public void setInitialBackoffMs(long initialBackoffMs) { this.initialBackoffMs = initialBackoffMs; }
+
+        public long getMaxBackoffMs() { return maxBackoffMs; }
+        public void setMaxBackoffMs(long maxBackoffMs) { this.maxBackoffMs = maxBackoffMs; }
+
+        public double getJitter() { return jitter; }
+        public void setJitter(double jitter) { this.jitter = jitter; }
+    }
+
+    public static class CircuitBreaker {
+        // errori consecutivi (timeout, connessione, 5xx) prima di aprire il circuito
+        private int failureThreshold = 5;
+        private long openMs = 30000;
+
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+        public long getOpenMs() { return openMs; }
+        public void setOpenMs(long openMs) { this.openMs = openMs; }
+    }
+}
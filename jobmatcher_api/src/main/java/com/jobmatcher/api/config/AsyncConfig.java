@@ -0,0 +1,89 @@
+package com.jobmatcher.api.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    public static final String MATCH_SCORING_EXECUTOR = "matchScoringExecutor";
+    public static final String CV_ANALYSIS_EXECUTOR = "cvAnalysisExecutor";
+    public static final String MATCH_LOAD_EXECUTOR = "matchLoadExecutor";
+
+    // profilo virtual-threads: gli executor bloccanti (JPA, chiamate AI) usano virtual thread.
+    // Threading.VIRTUAL richiede anche Java 21+: su 17 Boot ignorerebbe la proprietà senza dirlo,
+    // quindi l'avvio fallisce invece di girare (e farsi misurare) sui pool di piattaforma
+    private final boolean virtualThreads;
+
+    public AsyncConfig(Environment env) {
+        this.virtualThreads = Threading.VIRTUAL.isActive(env);
+        if (!virtualThreads && env.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("spring.threads.virtual.enabled richiede Java 21+ (in uso Java "
+                    + Runtime.version().feature() + "): avviare con gradle -PjavaVersion=21");
+        }
+    }
+
+    // ricalcolo score dei like: pochi thread, coda limitata; se piena lavora il chiamante
+    @Bean(name = MATCH_SCORING_EXECUTOR)
+    public Executor matchScoringExecutor() {
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(1);
+        ex.setMaxPoolSize(2);
+        ex.setQueueCapacity(1000);
+        ex.setThreadNamePrefix("match-scoring-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    // analisi CV: tanti thread quanti worker, niente coda (gli slot li gestisce CvAnalysisWorker)
+    @Bean(name = CV_ANALYSIS_EXECUTOR)
+    public Executor cvAnalysisExecutor(CvProperties cvProps) {
+        int workers = Math.max(1, cvProps.getAnalysis().getWorkers());
+        if (virtualThreads) return virtualExecutor("cv-analysis-", workers);
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(workers);
+        ex.setMaxPoolSize(workers);
+        ex.setQueueCapacity(0);
+        ex.setThreadNamePrefix("cv-analysis-");
+        ex.setWaitForTasksToCompleteOnShutdown(true);
+        ex.setAwaitTerminationSeconds(30);
+        ex.initialize();
+        return ex;
+    }
+
+    // letture indipendenti dentro una richiesta (es. match candidato): con virtual thread un thread per lettura,
+    // altrimenti pool piccolo; se pieno lavora il chiamante
+    @Bean(name = MATCH_LOAD_EXECUTOR)
+    public Executor matchLoadExecutor() {
+        if (virtualThreads) return virtualExecutor("match-load-", 256);
+
+        ThreadPoolTaskExecutor ex = new ThreadPoolTaskExecutor();
+        ex.setCorePoolSize(4);
+        ex.setMaxPoolSize(8);
+        ex.setQueueCapacity(0);
+        ex.setThreadNamePrefix("match-load-");
+        ex.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        ex.initialize();
+        return ex;
+    }
+
+    private Executor virtualExecutor(String prefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor ex = new SimpleAsyncTaskExecutor(prefix);
+        ex.setVirtualThreads(true);
+        ex.setConcurrencyLimit(concurrencyLimit);
+        return ex;
+    }
+}
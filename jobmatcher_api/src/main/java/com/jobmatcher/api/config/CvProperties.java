@@ -9,11 +9,39 @@ import java.util.List;
 public class CvProperties {
     private List<String> allowedContentTypes = new ArrayList<>();
     private long maxSizeBytes = 10 * 1024 * 1024;
+    private Analysis analysis = new Analysis();
 
     public List<String> getAllowedContentTypes() { return allowedContentTypes; }
     public void setAllowedContentTypes(List<String> allowedContentTypes) { this.allowedContentTypes = allowedContentTypes; }
 
     public long getMaxSizeBytes() { return maxSizeBytes; }
     public void setMaxSizeBytes(long maxSizeBytes) { this.maxSizeBytes = maxSizeBytes; }
-}
 
+    public Analysis getAnalysis() { return analysis; }
+    public void setAnalysis(Analysis analysis) { this.analysis = analysis; }
+
+    public static class Analysis {
+        // worker per nodo (chiamate al servizio AI in parallelo)
+        private int workers = 2;
+        private long pollIntervalMs = 2000;
+        // oltre il lease un task RUNNING è considerato abbandonato e torna reclamabile
+        private long leaseSeconds = 300;
+        private int maxAttempts = 3;
+        private long retryBackoffSeconds = 30;
+
+        public int getWorkers() { return workers; }
+        public void setWorkers(int workers) { this.workers = workers; }
+
+        public long getPollIntervalMs() { return pollIntervalMs; }
+        public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+
+        public long getLeaseSeconds() { return leaseSeconds; }
+        public void setLeaseSeconds(long leaseSeconds) { this.leaseSeconds = leaseSeconds; }
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public long getRetryBackoffSeconds() { return retryBackoffSeconds; }
+        public void setRetryBackoffSeconds(long retryBackoffSeconds) { this.retryBackoffSeconds = retryBackoffSeconds; }
+    }
+}
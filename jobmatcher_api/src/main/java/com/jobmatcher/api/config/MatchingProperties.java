@@ -0,0 +1,155 @@
+package com.jobmatcher.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "jobmatcher.matching")
+public class MatchingProperties {
+    private VectorIndex vectorIndex = new VectorIndex();
+    private KeywordIndex keywordIndex = new KeywordIndex();
+    private Feed feed = new Feed();
+    private EmbeddingReconciler embeddingReconciler = new EmbeddingReconciler();
+    private LikeRescore likeRescore = new LikeRescore();
+
+    public VectorIndex getVectorIndex() { return vectorIndex; }
+    public void setVectorIndex(VectorIndex vectorIndex) { this.vectorIndex = vectorIndex; }
+
+    public KeywordIndex getKeywordIndex() { return keywordIndex; }
+    public void setKeywordIndex(KeywordIndex keywordIndex) { this.keywordIndex = keywordIndex; }
+
+    public Feed getFeed() { return feed; }
+    public void setFeed(Feed feed) { this.feed = feed; }
+
+    public EmbeddingReconciler getEmbeddingReconciler() { return embeddingReconciler; }
+    public void setEmbeddingReconciler(EmbeddingReconciler embeddingReconciler) { this.embeddingReconciler = embeddingReconciler; }
+
+    public LikeRescore getLikeRescore() { return likeRescore; }
+    public void setLikeRescore(LikeRescore likeRescore) { this.likeRescore = likeRescore; }
+
+    public static class VectorIndex {
+        private boolean enabled = true;
+        // HNSW: m = vicini per nodo (memoria/recall), ef-* = ampiezza ricerca (latenza/recall)
+        private int m = 16;
+        private int efConstruction = 200;
+        private int efSearch = 64;
+        // quanti candidati chiedere all'indice per ogni item del feed (poi filtri raggio/già visti)
+        private int feedOversampling = 5;
+        private int maxFeedCandidates = 2000;
+        // oltre questa quota di nodi cancellati l'indice viene ricostruito
+        private double rebuildDeletedRatio = 0.3;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getM() { return m; }
+        public void setM(int m) { this.m = m; }
+
+        public int getEfConstruction() { return efConstruction; }
+        public void setEfConstruction(int efConstruction) { this.efConstruction = efConstruction; }
+
+        public int getEfSearch() { return efSearch; }
+        public void setEfSearch(int efSearch) { this.efSearch = efSearch; }
+
+        public int getFeedOversampling() { return feedOversampling; }
+        public void setFeedOversampling(int feedOversampling) { this.feedOversampling = feedOversampling; }
+
+        public int getMaxFeedCandidates() { return maxFeedCandidates; }
+        public void setMaxFeedCandidates(int maxFeedCandidates) { this.maxFeedCandidates = maxFeedCandidates; }
+
+        public double getRebuildDeletedRatio() { return rebuildDeletedRatio; }
+        public void setRebuildDeletedRatio(double rebuildDeletedRatio) { this.rebuildDeletedRatio = rebuildDeletedRatio; }
+    }
+
+    public static class KeywordIndex {
+        private boolean enabled = true;
+        // un job è candidato se condivide almeno N token (selettivi) col CV
+        private int minSharedTokens = 2;
+        // token presenti in più di questa quota di job sono trattati come stopword in generazione
+        private double maxPostingRatio = 0.5;
+        private int maxFeedCandidates = 2000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMinSharedTokens() { return minSharedTokens; }
+        public void setMinSharedTokens(int minSharedTokens) { this.minSharedTokens = minSharedTokens; }
+
+        public double getMaxPostingRatio() { return maxPostingRatio; }
+        public void setMaxPostingRatio(double maxPostingRatio) { this.maxPostingRatio = maxPostingRatio; }
+
+        public int getMaxFeedCandidates() { return maxFeedCandidates; }
+        public void setMaxFeedCandidates(int maxFeedCandidates) { this.maxFeedCandidates = maxFeedCandidates; }
+    }
+
+    public static class Feed {
+        // snapshot del ranking per la paginazione a cursore (memoria locale del nodo)
+        private int maxSnapshots = 2000;
+        private int maxSnapshotItems = 500;
+        private long snapshotTtlSeconds = 900;
+        // job già swipati, per candidato
+        private int seenCacheMaxCandidates = 10000;
+        private long seenCacheTtlSeconds = 600;
+
+        public int getMaxSnapshots() { return maxSnapshots; }
+        public void setMaxSnapshots(int maxSnapshots) { this.maxSnapshots = maxSnapshots; }
+
+        public int getMaxSnapshotItems() { return maxSnapshotItems; }
+        public void setMaxSnapshotItems(int maxSnapshotItems) { this.maxSnapshotItems = maxSnapshotItems; }
+
+        public long getSnapshotTtlSeconds() { return snapshotTtlSeconds; }
+        public void setSnapshotTtlSeconds(long snapshotTtlSeconds) { this.snapshotTtlSeconds = snapshotTtlSeconds; }
+
+        public int getSeenCacheMaxCandidates() { return seenCacheMaxCandidates; }
+        public void setSeenCacheMaxCandidates(int seenCacheMaxCandidates) { this.seenCacheMaxCandidates = seenCacheMaxCandidates; }
+
+        public long getSeenCacheTtlSeconds() { return seenCacheTtlSeconds; }
+        public void setSeenCacheTtlSeconds(long seenCacheTtlSeconds) { this.seenCacheTtlSeconds = seenCacheTtlSeconds; }
+    }
+
+    public static class EmbeddingReconciler {
+        private boolean enabled = true;
+        private long intervalMs = 60000;
+        // job per chiamata al servizio AI e tetto per giro: limita il carico dopo un outage
+        private int batchSize = 32;
+        private int maxPerRun = 256;
+        // modello atteso; vuoto => quello dichiarato dal servizio AI su /health
+        private String model = "";
+        // quota di job PUBLISHED e CV PARSED col vettore del nuovo modello oltre cui si fa il cutover
+        private double cutoverCoverage = 0.95;
+        // ogni quanto ogni nodo rilegge il modello attivo (cutover fatto da un altro nodo)
+        private long modelRefreshMs = 30000;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public int getMaxPerRun() { return maxPerRun; }
+        public void setMaxPerRun(int maxPerRun) { this.maxPerRun = maxPerRun; }
+
+        public String getModel() { return model; }
+        public void setModel(String model) { this.model = model; }
+
+        public double getCutoverCoverage() { return cutoverCoverage; }
+        public void setCutoverCoverage(double cutoverCoverage) { this.cutoverCoverage = cutoverCoverage; }
+
+        public long getModelRefreshMs() { return modelRefreshMs; }
+        public void setModelRefreshMs(long modelRefreshMs) { this.modelRefreshMs = modelRefreshMs; }
+    }
+
+    public static class LikeRescore {
+        // ogni quanto si ricalcolano i like segnalati dalle letture dei match (mai sul thread della richiesta)
+        private long intervalMs = 2000;
+        // like ricalcolati per giro dopo un cambio modello (gli score vecchi restano finché il batch non è riscritto)
+        private int batchSize = 200;
+
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    }
+}
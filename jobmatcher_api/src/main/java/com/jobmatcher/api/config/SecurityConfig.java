@@ -30,7 +30,8 @@ import java.util.List;
         JwtProperties.class,
         DevUserProperties.class,
         StorageProperties.class,
-        CvProperties.class
+        CvProperties.class,
+        MatchingProperties.class
 })
 public class SecurityConfig {
 
@@ -54,9 +55,13 @@ public class SecurityConfig {
                 .requestMatchers(
                         "/api/auth/**",
                         "/swagger-ui/**",
-                        "/v3/api-docs/**"
+                        "/v3/api-docs/**",
+                        "/actuator/health"
                 ).permitAll()
 
+                // metriche operative
+                .requestMatchers("/actuator/**").hasAnyRole("ADMIN", "DEV")
+
                 // Admin area
                 .requestMatchers("/api/admin/**").hasAnyRole("ADMIN", "DEV")
 
@@ -91,7 +96,7 @@ public class SecurityConfig {
 
         cfg.setAllowedMethods(List.of("GET","POST","PUT","PATCH","DELETE","OPTIONS"));
         cfg.setAllowedHeaders(List.of("*"));
-        cfg.setExposedHeaders(List.of("Authorization"));
+        cfg.setExposedHeaders(List.of("Authorization", "X-Next-Cursor"));
         cfg.setAllowCredentials(false); // usi Bearer token, no cookie
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
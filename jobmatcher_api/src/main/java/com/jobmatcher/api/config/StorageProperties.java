@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 public class StorageProperties {
     private String provider = "local";
     private Local local = new Local();
+    private S3 s3 = new S3();
 
     public String getProvider() { return provider; }
     public void setProvider(String provider) { this.provider = provider; }
@@ -13,9 +14,110 @@ public class StorageProperties {
     public Local getLocal() { return local; }
     public void setLocal(Local local) { this.local = local; }
 
+    public S3 getS3() { return s3; }
+    public void setS3(S3 s3) { this.s3 = s3; }
+
     public static class Local {
         private String rootDir = "./data/cv";
+        // flat: tutti i file nella root; sharded: sottocartelle per prefisso (ab/cd/...)
+        private String layout = "sharded";
+        private int shardDepth = 2;
+        // sharded: nome = sha256 del contenuto (stessi byte salvati una volta sola) invece di un uuid
+        private boolean contentAddressed = true;
+        private Migration migration = new Migration();
+
         public String getRootDir() { return rootDir; }
         public void setRootDir(String rootDir) { this.rootDir = rootDir; }
+
+        public String getLayout() { return layout; }
+        public void setLayout(String layout) { this.layout = layout; }
+
+        public int getShardDepth() { return shardDepth; }
+        public void setShardDepth(int shardDepth) { this.shardDepth = shardDepth; }
+
+        public boolean isContentAddressed() { return contentAddressed; }
+        public void setContentAddressed(boolean contentAddressed) { this.contentAddressed = contentAddressed; }
+
+        public Migration getMigration() { return migration; }
+        public void setMigration(Migration migration) { this.migration = migration; }
+    }
+
+    // spostamento dei file flat esistenti nel layout sharded, a batch e a servizio attivo
+    public static class Migration {
+        private boolean enabled = false;
+        private long intervalMs = 60000;
+        private int batchSize = 200;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getIntervalMs() { return intervalMs; }
+        public void setIntervalMs(long intervalMs) { this.intervalMs = intervalMs; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    }
+
+    public static class S3 {
+        private String bucket;
+        private String region = "eu-west-1";
+        // vuoto => AWS; per MinIO/stand-in locali es. http://localhost:9000 con path-style
+        private String endpoint = "";
+        private boolean pathStyle = false;
+        // vuote => catena di credenziali di default (env, profilo, ruolo IAM)
+        private String accessKey = "";
+        private String secretKey = "";
+        private String keyPrefix = "cv/";
+        private int maxConnections = 32;
+        private long connectTimeoutMs = 2000;
+        private long socketTimeoutMs = 30000;
+        // upload: sopra la soglia multipart, parti da partSizeBytes caricate in parallelo
+        private long multipartThresholdBytes = 8 * 1024 * 1024;
+        private long partSizeBytes = 5 * 1024 * 1024;
+        private int multipartConcurrency = 4;
+        // file temporanei degli upload prima del caricamento (vuoto => java.io.tmpdir)
+        private String stagingDir = "";
+
+        public String getBucket() { return bucket; }
+        public void setBucket(String bucket) { this.bucket = bucket; }
+
+        public String getRegion() { return region; }
+        public void setRegion(String region) { this.region = region; }
+
+        public String getEndpoint() { return endpoint; }
+        public void setEndpoint(String endpoint) { this.endpoint = endpoint; }
+
+        public boolean isPathStyle() { return pathStyle; }
+        public void setPathStyle(boolean pathStyle) { this.pathStyle = pathStyle; }
+
+        public String getAccessKey() { return accessKey; }
+        public void setAccessKey(String accessKey) { this.accessKey = accessKey; }
+
+        public String getSecretKey() { return secretKey; }
+        public void setSecretKey(String secretKey) { this.secretKey = secretKey; }
+
+        public String getKeyPrefix() { return keyPrefix; }
+        public void setKeyPrefix(String keyPrefix) { this.keyPrefix = keyPrefix; }
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public long getConnectTimeoutMs() { return connectTimeoutMs; }
+        public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+        public long getSocketTimeoutMs() { return socketTimeoutMs; }
+        public void setSocketTimeoutMs(long socketTimeoutMs) { this.socketTimeoutMs = socketTimeoutMs; }
+
+        public long getMultipartThresholdBytes() { return multipartThresholdBytes; }
+        public void setMultipartThresholdBytes(long multipartThresholdBytes) { this.multipartThresholdBytes = multipartThresholdBytes; }
+
+        public long getPartSizeBytes() { return partSizeBytes; }
+        public void setPartSizeBytes(long partSizeBytes) { this.partSizeBytes = partSizeBytes; }
+
+        public int getMultipartConcurrency() { return multipartConcurrency; }
+        public void setMultipartConcurrency(int multipartConcurrency) { this.multipartConcurrency = multipartConcurrency; }
+
+        public String getStagingDir() { return stagingDir; }
+        public void setStagingDir(String stagingDir) { this.stagingDir = stagingDir; }
     }
 }
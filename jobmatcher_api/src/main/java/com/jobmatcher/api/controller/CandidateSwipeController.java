@@ -1,9 +1,11 @@
 package com.jobmatcher.api.controller;
 
 import com.jobmatcher.api.dto.SwipeFeedItemDTO;
+import com.jobmatcher.api.dto.SwipeFeedPage;
 import com.jobmatcher.api.dto.SwipeRequest;
 import com.jobmatcher.api.dto.SwipeResponse;
 import com.jobmatcher.api.service.CandidateSwipeService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +15,8 @@ import java.util.List;
 @RequestMapping("/api/candidates/me")
 public class CandidateSwipeController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final CandidateSwipeService service;
 
     public CandidateSwipeController(CandidateSwipeService service) {
@@ -21,13 +25,18 @@ public class CandidateSwipeController {
 
     @GetMapping("/swipe-feed")
     @PreAuthorize("hasAnyRole('CANDIDATE','DEV','ADMIN')")
-    public List<SwipeFeedItemDTO> swipeFeed(
+    public ResponseEntity<List<SwipeFeedItemDTO>> swipeFeed(
             @RequestParam(required = false) Double lat,
             @RequestParam(required = false) Double lon,
             @RequestParam(required = false) Double radiusKm,
-            @RequestParam(required = false) Integer limit
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor
     ) {
-        return service.getSwipeFeed(lat, lon, radiusKm, limit);
+        // body invariato (lista); la pagina successiva si chiede passando X-Next-Cursor come ?cursor=
+        SwipeFeedPage page = service.getSwipeFeed(lat, lon, radiusKm, limit, cursor);
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok();
+        if (page.nextCursor() != null) res.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        return res.body(page.items());
     }
 
     @PostMapping("/swipes")
@@ -7,14 +7,19 @@ import com.jobmatcher.api.dto.CvParseTextRequest;
 import com.jobmatcher.api.domain.curriculum.CvFile;
 import com.jobmatcher.api.service.CvService;
 import com.jobmatcher.api.service.ai.CvAiClient;
+import com.jobmatcher.api.service.storage.FileDownloadWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.context.annotation.Profile;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -23,10 +28,12 @@ public class CvController {
 
     private final CvService cvService;
     private final CvAiClient cvAiClient;
+    private final FileDownloadWriter downloads;
 
-    public CvController(CvService cvService, CvAiClient cvAiClient) {
+    public CvController(CvService cvService, CvAiClient cvAiClient, FileDownloadWriter downloads) {
         this.cvService = cvService;
         this.cvAiClient = cvAiClient;
+        this.downloads = downloads;
     }
 
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -38,20 +45,29 @@ public class CvController {
 
     @GetMapping
     public List<CvFileDTO> listMine() {
-        return cvService.listMine().stream().map(cvService::toDto).toList();
+        return cvService.listMine();
     }
 
     @GetMapping("/{cvId}")
     public CvFileDTO getMine(@PathVariable UUID cvId) {
-        return cvService.toDto(cvService.getMine(cvId));
+        return cvService.getMine(cvId);
     }
 
-   @PostMapping("/{cvId}/analyze")
-    public CvParseResponse analyze(
+    // 200 con l'analisi se già presente (e non force), altrimenti 202: analisi accodata, stato su /analysis
+    @PostMapping("/{cvId}/analyze")
+    public ResponseEntity<?> analyze(
             @PathVariable UUID cvId,
             @RequestParam(defaultValue = "false") boolean force
     ) {
-        return cvService.analyze(cvId, force);
+        if (!force) {
+            Optional<CvParseResponse> parsed = cvService.findParsed(cvId);
+            if (parsed.isPresent()) return ResponseEntity.ok(parsed.get());
+        }
+
+        CvAnalysisDTO status = cvService.requestAnalysis(cvId);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/cv/" + cvId + "/analysis"))
+                .body(status);
     }
 
     @GetMapping("/{cvId}/analysis")
@@ -59,24 +75,10 @@ public class CvController {
         return cvService.getAnalysisMine(cvId);
     }
 
+    // ETag/Last-Modified, 304 e Range (206): anteprime ripetute e download ripresi senza riscaricare il file
     @GetMapping("/{cvId}/download")
-    public ResponseEntity<Resource> download(@PathVariable UUID cvId) {
-        CvFile cv = cvService.getMine(cvId);
-        Resource res = cvService.downloadMine(cvId);
-
-        String filename = (cv.getOriginalFilename() == null || cv.getOriginalFilename().isBlank())
-                ? "cv"
-                : cv.getOriginalFilename();
-
-        MediaType mt = MediaType.APPLICATION_OCTET_STREAM;
-        if (cv.getContentType() != null && !cv.getContentType().isBlank()) {
-            try { mt = MediaType.parseMediaType(cv.getContentType()); } catch (Exception ignored) {}
-        }
-
-        return ResponseEntity.ok()
-                .contentType(mt)
-                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
-                .body(res);
+    public void download(@PathVariable UUID cvId, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        downloads.write(cvService.downloadMine(cvId), req, res);
     }
 
     // =========================
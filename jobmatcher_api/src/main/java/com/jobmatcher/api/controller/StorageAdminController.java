@@ -0,0 +1,38 @@
+package com.jobmatcher.api.controller;
+
+import com.jobmatcher.api.dto.StorageMigrationStatusDTO;
+import com.jobmatcher.api.exception.BadRequestException;
+import com.jobmatcher.api.service.storage.StorageLayoutMigrator;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/storage")
+public class StorageAdminController {
+
+    private final ObjectProvider<StorageLayoutMigrator> migrator;
+
+    public StorageAdminController(ObjectProvider<StorageLayoutMigrator> migrator) {
+        this.migrator = migrator;
+    }
+
+    @GetMapping("/migration")
+    @PreAuthorize("hasAnyRole('DEV','ADMIN')")
+    public StorageMigrationStatusDTO migrationStatus() {
+        return localMigrator().status();
+    }
+
+    // un batch subito (anche con la migrazione schedulata disabilitata)
+    @PostMapping("/migration/run")
+    @PreAuthorize("hasAnyRole('DEV','ADMIN')")
+    public StorageMigrationStatusDTO runMigrationBatch() {
+        return localMigrator().runBatch();
+    }
+
+    private StorageLayoutMigrator localMigrator() {
+        StorageLayoutMigrator m = migrator.getIfAvailable();
+        if (m == null) throw new BadRequestException("Migrazione disponibile solo con storage locale");
+        return m;
+    }
+}
@@ -0,0 +1,31 @@
+package com.jobmatcher.api.controller;
+
+import com.jobmatcher.api.dto.VectorIndexStatsDTO;
+import com.jobmatcher.api.service.matching.JobVectorIndex;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/vector-index")
+public class VectorIndexAdminController {
+
+    private final JobVectorIndex vectorIndex;
+
+    public VectorIndexAdminController(JobVectorIndex vectorIndex) {
+        this.vectorIndex = vectorIndex;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('DEV','ADMIN')")
+    public VectorIndexStatsDTO stats() {
+        return vectorIndex.stats();
+    }
+
+    // ricostruzione completa dal DB (es. dopo import massivi)
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasAnyRole('DEV','ADMIN')")
+    public VectorIndexStatsDTO rebuild() {
+        vectorIndex.rebuild();
+        return vectorIndex.stats();
+    }
+}
@@ -0,0 +1,28 @@
+package com.jobmatcher.api.domain.ai;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "embedding_cache")
+public class EmbeddingCacheEntry {
+
+    @EmbeddedId
+    private EmbeddingCacheKey key;
+
+    // float32 big-endian, vedi EmbeddingCodec
+    @Column(nullable = false, columnDefinition = "bytea")
+    private byte[] embedding;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,22 @@
+package com.jobmatcher.api.domain.ai;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class EmbeddingCacheKey implements Serializable {
+
+    @Column(name = "text_sha256", nullable = false, length = 64)
+    private String textSha256;
+
+    @Column(nullable = false, length = 120)
+    private String model;
+}
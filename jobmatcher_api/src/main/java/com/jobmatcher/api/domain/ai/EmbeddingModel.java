@@ -0,0 +1,31 @@
+package com.jobmatcher.api.domain.ai;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "embedding_model")
+public class EmbeddingModel {
+
+    @Id
+    @Column(length = 120)
+    private String model;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EmbeddingModelRole role;
+
+    private Instant activatedAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,6 @@
+package com.jobmatcher.api.domain.ai;
+
+public enum EmbeddingModelRole {
+    ACTIVE,
+    RETIRED
+}
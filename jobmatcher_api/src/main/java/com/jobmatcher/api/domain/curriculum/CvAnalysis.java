@@ -0,0 +1,34 @@
+package com.jobmatcher.api.domain.curriculum;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// analisi del CV (testo estratto, sezioni, modello) separata da cv_file: caricata solo quando serve
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "cv_analysis")
+public class CvAnalysis {
+
+    @Id
+    @Column(name = "cv_file_id", columnDefinition = "uuid")
+    private UUID cvFileId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "analysis_json", nullable = false, columnDefinition = "jsonb")
+    private JsonNode analysisJson;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
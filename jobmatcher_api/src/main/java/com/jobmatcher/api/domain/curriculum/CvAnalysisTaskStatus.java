@@ -0,0 +1,8 @@
+package com.jobmatcher.api.domain.curriculum;
+
+public enum CvAnalysisTaskStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED
+}
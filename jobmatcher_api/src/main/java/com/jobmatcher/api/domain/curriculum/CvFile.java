@@ -3,11 +3,8 @@ package com.jobmatcher.api.domain.curriculum;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.hibernate.annotations.UuidGenerator;
-import org.hibernate.type.SqlTypes;
-import com.fasterxml.jackson.databind.JsonNode;
 
 import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
 
@@ -47,9 +44,19 @@ public class CvFile {
     @Column(nullable = false, length = 1024)
     private String storagePath;
 
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(columnDefinition = "jsonb")
-    private JsonNode analysisJson;
+    // SHA-256 hex del contenuto: CV identici condividono file e analisi
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    // testo estratto e sezioni: in cv_analysis (CvAnalysis), letti solo quando servono
+
+    // embedding del CV (float32 big-endian, vedi EmbeddingCodec); non più dentro l'analisi jsonb
+    @Column(columnDefinition = "bytea")
+    private byte[] embedding;
+
+    // modello dell'embedding (quello attivo, vedi EmbeddingVersions)
+    @Column(name = "embedding_model", length = 120)
+    private String embeddingModel;
 
     private Instant analyzedAt;
 
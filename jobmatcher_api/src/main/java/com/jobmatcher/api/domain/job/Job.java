@@ -11,7 +11,6 @@ import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 import java.util.UUID;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.jobmatcher.api.domain.job.JobStatus;
 
 
@@ -71,9 +70,9 @@ public class Job {
     @Column(name = "apply_url", length = 500)
     private String applyUrl;
 
-    @JdbcTypeCode(SqlTypes.JSON)
-    @Column(columnDefinition = "jsonb")
-    private JsonNode embedding;
+    // float32 big-endian, vedi EmbeddingCodec
+    @Column(columnDefinition = "bytea")
+    private byte[] embedding;
 
     @Column(name="embedding_model", length=120)
     private String embeddingModel;
@@ -81,6 +80,11 @@ public class Job {
     @Column(name="embedding_updated_at")
     private Instant embeddingUpdatedAt;
 
+    // token keyword ordinati (vedi MatchScoringEngine.tokenizeJob / JobKeywordIndex)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "text[]")
+    private String[] tokens;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
@@ -3,7 +3,9 @@ package com.jobmatcher.api.domain.job;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -40,4 +42,24 @@ public class JobSwipe {
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
+
+    // score del match (solo LIKE), vedi LikeScorer
+    @Column(name = "text_score")
+    private Double textScore;
+
+    @Column(name = "company_score")
+    private Double companyScore;
+
+    @Column(name = "used_embedding")
+    private Boolean usedEmbedding;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "match_reasons", columnDefinition = "text[]")
+    private String[] matchReasons;
+
+    @Column(name = "scored_cv_id", columnDefinition = "uuid")
+    private UUID scoredCvId;
+
+    @Column(name = "scored_at")
+    private Instant scoredAt;
 }
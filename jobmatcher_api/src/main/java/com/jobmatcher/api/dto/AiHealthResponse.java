@@ -0,0 +1,7 @@
+package com.jobmatcher.api.dto;
+
+public record AiHealthResponse(
+        String status,
+        Boolean modelLoaded,
+        String model
+) {}
@@ -1,5 +1,7 @@
 package com.jobmatcher.api.dto;
 
+import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+
 import java.time.Instant;
 import java.util.UUID;
 
@@ -14,5 +16,13 @@ public record CvFileDTO(
         String errorMessage,
         boolean embedded,
         String embeddingModel
-) {}
+) {
+    // per le proiezioni JPQL (select new ...) di CvFileRepository
+    public CvFileDTO(UUID id, String originalFilename, String contentType, long sizeBytes, Instant uploadedAt,
+                     Instant analyzedAt, CvProcessingStatus status, String errorMessage, boolean embedded,
+                     String embeddingModel) {
+        this(id, originalFilename, contentType, sizeBytes, uploadedAt, analyzedAt,
+                status != null ? status.name() : null, errorMessage, embedded, embeddingModel);
+    }
+}
 
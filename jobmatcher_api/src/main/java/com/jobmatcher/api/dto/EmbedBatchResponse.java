@@ -0,0 +1,9 @@
+package com.jobmatcher.api.dto;
+
+import java.util.List;
+
+// embeddings nello stesso ordine dei testi inviati
+public record EmbedBatchResponse(
+        List<List<Double>> embeddings,
+        String model_used
+) {}
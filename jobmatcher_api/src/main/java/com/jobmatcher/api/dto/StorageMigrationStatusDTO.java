@@ -0,0 +1,10 @@
+package com.jobmatcher.api.dto;
+
+public record StorageMigrationStatusDTO(
+        boolean enabled,
+        String layout,
+        long remaining,
+        long migrated,
+        long failed,
+        long orphansDeleted
+) {}
@@ -0,0 +1,9 @@
+package com.jobmatcher.api.dto;
+
+import java.util.List;
+
+// nextCursor = null quando il feed è esaurito
+public record SwipeFeedPage(
+        List<SwipeFeedItemDTO> items,
+        String nextCursor
+) {}
@@ -0,0 +1,17 @@
+package com.jobmatcher.api.dto;
+
+public record VectorIndexStatsDTO(
+        boolean enabled,
+        boolean ready,
+        int size,
+        int deleted,
+        int dimension,
+        int maxLevel,
+        int m,
+        int efConstruction,
+        int efSearch,
+        long skippedDimensionMismatch,
+        long estimatedMemoryBytes,
+        long searches,
+        double avgSearchMicros
+) {}
@@ -3,9 +3,12 @@ package com.jobmatcher.api.repository;
 import com.jobmatcher.api.domain.candidate.CandidateProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface CandidateProfileRepository extends JpaRepository<CandidateProfile, UUID> {
     Optional<CandidateProfile> findByOwnerUsername(String ownerUsername);
+    List<CandidateProfile> findByOwnerUsernameIn(Collection<String> ownerUsernames);
 }
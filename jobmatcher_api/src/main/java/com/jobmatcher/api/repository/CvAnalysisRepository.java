@@ -0,0 +1,30 @@
+package com.jobmatcher.api.repository;
+
+import com.jobmatcher.api.domain.curriculum.CvAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CvAnalysisRepository extends JpaRepository<CvAnalysis, UUID> {
+
+    interface CvText {
+        UUID getCvFileId();
+        String getText();
+    }
+
+    // solo il testo estratto (per token ed embedding), senza trasferire sezioni e resto del jsonb
+    @Query(value = """
+            select cv_file_id as cvFileId, analysis_json ->> 'text' as text
+            from cv_analysis
+            where cv_file_id in (:ids)
+            """, nativeQuery = true)
+    List<CvText> findTexts(@Param("ids") Collection<UUID> ids);
+
+    @Query(value = "select analysis_json ->> 'text' from cv_analysis where cv_file_id = :id", nativeQuery = true)
+    Optional<String> findText(@Param("id") UUID id);
+}
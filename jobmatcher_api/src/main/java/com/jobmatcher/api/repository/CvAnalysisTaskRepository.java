@@ -0,0 +1,43 @@
+package com.jobmatcher.api.repository;
+
+import com.jobmatcher.api.domain.curriculum.CvAnalysisTask;
+import com.jobmatcher.api.domain.curriculum.CvAnalysisTaskStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface CvAnalysisTaskRepository extends JpaRepository<CvAnalysisTask, UUID> {
+
+    Optional<CvAnalysisTask> findFirstByCvFileIdAndStatusIn(UUID cvFileId, Collection<CvAnalysisTaskStatus> statuses);
+
+    long countByStatusIn(Collection<CvAnalysisTaskStatus> statuses);
+
+    // task pronti o con lease scaduto; le righe restano bloccate fino al commit, gli altri nodi le saltano
+    @Query(value = """
+            select id from cv_analysis_task
+            where (status = 'PENDING' and available_at <= :now)
+               or (status = 'RUNNING' and lease_until < :now)
+            order by available_at
+            limit :batch
+            for update skip locked
+            """, nativeQuery = true)
+    List<UUID> lockClaimable(@Param("now") Instant now, @Param("batch") int batch);
+
+    @Modifying
+    @Query("""
+            update CvAnalysisTask t
+            set t.status = com.jobmatcher.api.domain.curriculum.CvAnalysisTaskStatus.RUNNING,
+                t.leaseOwner = :owner, t.leaseUntil = :leaseUntil,
+                t.attempts = t.attempts + 1, t.version = t.version + 1, t.updatedAt = :now
+            where t.id in :ids
+            """)
+    int markRunning(@Param("ids") Collection<UUID> ids, @Param("owner") String owner,
+                    @Param("leaseUntil") Instant leaseUntil, @Param("now") Instant now);
+}
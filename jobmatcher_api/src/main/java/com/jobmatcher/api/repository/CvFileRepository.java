@@ -2,12 +2,16 @@ package com.jobmatcher.api.repository;
 
 import com.jobmatcher.api.domain.curriculum.CvFile;
 import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+import com.jobmatcher.api.dto.CvFileDTO;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,4 +23,156 @@ public interface CvFileRepository extends JpaRepository<CvFile, UUID> {
     Optional<CvFile> findByIdAndOwnerUsernameAndStatus(UUID id, String ownerUsername, CvProcessingStatus status);
 
     Optional<CvFile> findFirstByOwnerUsernameAndStatusOrderByUploadedAtDesc(String ownerUsername, CvProcessingStatus status);
+
+    List<CvFile> findByStatusAndUpdatedAtBefore(CvProcessingStatus status, Instant updatedBefore);
+
+    List<CvFile> findByIdInAndStatus(Collection<UUID> ids, CvProcessingStatus status);
+
+    // dedup per contenuto: copia già su storage e analisi già fatta
+    Optional<CvFile> findFirstByContentSha256OrderByUploadedAtAsc(String contentSha256);
+
+    List<CvFile> findByContentSha256AndStatusAndIdNotOrderByAnalyzedAtDesc(String contentSha256, CvProcessingStatus status, UUID id);
+
+    boolean existsByStoragePath(String storagePath);
+
+    // advisory lock fino a fine transazione (vedi StoragePathLocks)
+    @Query(value = "select 1 from (select pg_advisory_xact_lock(hashtext(:path))) l", nativeQuery = true)
+    int lockStoragePath(@Param("path") String storagePath);
+
+    // ---- lista e stato: solo le colonne del DTO (né embedding né analisi) ----
+
+    String DTO_SELECT = """
+            select new com.jobmatcher.api.dto.CvFileDTO(
+                c.id, c.originalFilename, c.contentType, c.sizeBytes, c.uploadedAt, c.analyzedAt,
+                c.status, c.errorMessage,
+                case when c.embedding is not null then true else false end,
+                c.embeddingModel)
+            from CvFile c
+            """;
+
+    @Query(DTO_SELECT + " where c.ownerUsername = :owner order by c.uploadedAt desc")
+    List<CvFileDTO> findDtosByOwnerUsername(@Param("owner") String ownerUsername);
+
+    @Query(DTO_SELECT + " order by c.uploadedAt desc")
+    List<CvFileDTO> findAllDtos();
+
+    @Query(DTO_SELECT + " where c.id = :id")
+    Optional<CvFileDTO> findDtoById(@Param("id") UUID id);
+
+    @Query(DTO_SELECT + " where c.id = :id and c.ownerUsername = :owner")
+    Optional<CvFileDTO> findDtoByIdAndOwnerUsername(@Param("id") UUID id, @Param("owner") String ownerUsername);
+
+    // ---- migrazione del layout dello storage locale (file flat => sharded) ----
+
+    // storage_path senza sottocartelle, paginati per nome (più righe possono condividere lo stesso file)
+    @Query(value = """
+            select distinct storage_path from cv_file
+            where storage_path not like '%/%'
+              and storage_path > :after
+            order by storage_path
+            limit :limit
+            """, nativeQuery = true)
+    List<String> findFlatStoragePaths(@Param("after") String after, @Param("limit") int limit);
+
+    @Query(value = "select count(distinct storage_path) from cv_file where storage_path not like '%/%'", nativeQuery = true)
+    long countFlatStoragePaths();
+
+    @Query("select max(c.contentSha256) from CvFile c where c.storagePath = :storagePath")
+    String findContentSha256ByStoragePath(@Param("storagePath") String storagePath);
+
+    // version+1: un save concorrente con il path vecchio fallisce invece di riscriverlo
+    @Modifying
+    @Transactional
+    @Query(value = """
+            update cv_file
+            set storage_path = :to, content_sha256 = coalesce(content_sha256, :sha256), version = version + 1
+            where storage_path = :from
+            """, nativeQuery = true)
+    int moveStoragePath(@Param("from") String from, @Param("to") String to, @Param("sha256") String sha256);
+
+    // ultimo CV con lo status dato per ciascun owner, in una sola query
+    @Query("""
+            select c from CvFile c
+            where c.ownerUsername in :owners
+              and c.status = :status
+              and c.uploadedAt = (
+                  select max(c2.uploadedAt) from CvFile c2
+                  where c2.ownerUsername = c.ownerUsername and c2.status = :status)
+            order by c.uploadedAt desc, c.id
+            """)
+    List<CvFile> findLatestByOwnerUsernameInAndStatus(@Param("owners") Collection<String> owners,
+                                                      @Param("status") CvProcessingStatus status);
+
+    // ---- embedding versionati (cv_embedding), come per i job ----
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into cv_embedding (cv_file_id, model, embedding, created_at)
+            values (:cvId, :model, :embedding, now())
+            on conflict (cv_file_id, model) do update set embedding = excluded.embedding, created_at = now()
+            """, nativeQuery = true)
+    int upsertVersionedEmbedding(@Param("cvId") UUID cvId, @Param("model") String model,
+                                 @Param("embedding") byte[] embedding);
+
+    // solo CV con testo estratto: gli altri non si possono ri-embeddare (CvService.reembed li salta)
+    @Query(value = """
+            select c.* from cv_file c
+            where c.status = 'PARSED'
+              and exists (select 1 from cv_analysis a where a.cv_file_id = c.id and btrim(coalesce(a.analysis_json ->> 'text', '')) <> '')
+              and c.id > :after
+              and not (c.embedding is not null and coalesce(c.embedding_model, '') = :model)
+              and not (:versioned = true and exists (select 1 from cv_embedding e where e.cv_file_id = c.id and e.model = :model))
+            order by c.id
+            limit :limit
+            """, nativeQuery = true)
+    List<CvFile> findParsedMissingModel(@Param("model") String model, @Param("versioned") boolean versioned,
+                                        @Param("after") UUID after, @Param("limit") int limit);
+
+    // denominatore della copertura CV: i PARSED senza testo non avranno mai un vettore e non bloccano il cutover
+    @Query(value = """
+            select count(*) from cv_file c
+            where c.status = 'PARSED'
+              and exists (select 1 from cv_analysis a where a.cv_file_id = c.id and btrim(coalesce(a.analysis_json ->> 'text', '')) <> '')
+            """, nativeQuery = true)
+    long countParsedEmbeddable();
+
+    @Query(value = """
+            select count(*) from cv_file c
+            where c.status = 'PARSED'
+              and exists (select 1 from cv_analysis a where a.cv_file_id = c.id and btrim(coalesce(a.analysis_json ->> 'text', '')) <> '')
+              and ((c.embedding is not null and coalesce(c.embedding_model, '') = :model)
+                   or (:versioned = true and exists (select 1 from cv_embedding e where e.cv_file_id = c.id and e.model = :model)))
+            """, nativeQuery = true)
+    long countParsedWithModel(@Param("model") String model, @Param("versioned") boolean versioned);
+
+    @Modifying
+    @Query(value = """
+            insert into cv_embedding (cv_file_id, model, embedding, created_at)
+            select id, embedding_model, embedding, now() from cv_file
+            where embedding is not null and embedding_model is not null and embedding_model <> :target
+            on conflict do nothing
+            """, nativeQuery = true)
+    int archivePrimaryEmbeddings(@Param("target") String target);
+
+    @Modifying
+    @Query(value = """
+            update cv_file c
+            set embedding = e.embedding, embedding_model = e.model, version = c.version + 1
+            from cv_embedding e
+            where e.cv_file_id = c.id and e.model = :target
+            """, nativeQuery = true)
+    int promoteVersionedEmbeddings(@Param("target") String target);
+
+    @Modifying
+    @Query(value = """
+            update cv_file
+            set embedding = null, embedding_model = null, version = version + 1
+            where embedding is not null and coalesce(embedding_model, '') <> :target
+            """, nativeQuery = true)
+    int clearPrimaryEmbeddingsNotOf(@Param("target") String target);
+
+    @Modifying
+    @Query(value = "delete from cv_embedding where model <> :keep", nativeQuery = true)
+    int deleteVersionedEmbeddingsExcept(@Param("keep") String keep);
 }
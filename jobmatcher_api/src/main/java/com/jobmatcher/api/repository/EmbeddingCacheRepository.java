@@ -0,0 +1,29 @@
+package com.jobmatcher.api.repository;
+
+import com.jobmatcher.api.domain.ai.EmbeddingCacheEntry;
+import com.jobmatcher.api.domain.ai.EmbeddingCacheKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, EmbeddingCacheKey> {
+
+    // due nodi possono calcolare lo stesso testo insieme: vince il primo, nessun errore
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into embedding_cache (text_sha256, model, embedding, created_at)
+            values (:textSha256, :model, :embedding, now())
+            on conflict do nothing
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("textSha256") String textSha256, @Param("model") String model,
+                       @Param("embedding") byte[] embedding);
+
+    // righe di un modello ritirato dal cutover (tabella condivisa: mai in base al modello visto da un nodo)
+    @Modifying
+    @Transactional
+    @Query("delete from EmbeddingCacheEntry e where e.key.model = :model")
+    int deleteByModel(@Param("model") String model);
+}
@@ -0,0 +1,41 @@
+package com.jobmatcher.api.repository;
+
+import com.jobmatcher.api.domain.ai.EmbeddingModel;
+import com.jobmatcher.api.domain.ai.EmbeddingModelRole;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface EmbeddingModelRepository extends JpaRepository<EmbeddingModel, String> {
+
+    Optional<EmbeddingModel> findFirstByRole(EmbeddingModelRole role);
+
+    // primo modello visto su un sistema vuoto: diventa ACTIVE solo se non ce n'è già uno (anche in gara tra nodi)
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into embedding_model (model, role, activated_at, updated_at)
+            select :model, 'ACTIVE', now(), now()
+            where not exists (select 1 from embedding_model where role = 'ACTIVE')
+            on conflict do nothing
+            """, nativeQuery = true)
+    int claimFirstActive(@Param("model") String model);
+
+    // retireActive + activate: solo dentro la transazione del cutover
+    @Modifying
+    @Query(value = "update embedding_model set role = 'RETIRED', updated_at = now() where role = 'ACTIVE'",
+            nativeQuery = true)
+    int retireActive();
+
+    @Modifying
+    @Query(value = """
+            insert into embedding_model (model, role, activated_at, updated_at)
+            values (:model, 'ACTIVE', now(), now())
+            on conflict (model) do update set role = 'ACTIVE', activated_at = now(), updated_at = now()
+            """, nativeQuery = true)
+    int activate(@Param("model") String model);
+}
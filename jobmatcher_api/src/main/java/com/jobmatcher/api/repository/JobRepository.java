@@ -3,7 +3,12 @@ package com.jobmatcher.api.repository;
 import com.jobmatcher.api.domain.job.Job;
 import com.jobmatcher.api.domain.job.JobStatus;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,5 +26,117 @@ public interface JobRepository extends JpaRepository<Job, UUID> {
 
     List<Job> findByOwnerUsernameAndStatusOrderByCreatedAtDesc(String ownerUsername, JobStatus status);
 
+    // prefiltro geo: solo range sul box, così Postgres usa idx_job_published_geo
+    @Query("""
+            select j from Job j
+            where j.status = :status
+              and j.lat between :minLat and :maxLat
+              and j.lon between :minLon and :maxLon
+            """)
+    List<Job> findByStatusInBox(@Param("status") JobStatus status,
+                                @Param("minLat") double minLat,
+                                @Param("maxLat") double maxLat,
+                                @Param("minLon") double minLon,
+                                @Param("maxLon") double maxLon);
 
+    // job senza coordinate: passano sempre il prefiltro; query a parte (idx_job_published_without_geo)
+    @Query("""
+            select j from Job j
+            where j.status = :status
+              and (j.lat is null or j.lon is null)
+            """)
+    List<Job> findByStatusWithoutGeo(@Param("status") JobStatus status);
+
+    // job da (ri)embeddare: senza embedding o, se checkModel, calcolati con un altro modello. Paginati per id
+    @Query("""
+            select j from Job j
+            where j.status = :status
+              and j.id > :after
+              and (j.embedding is null
+                   or (:checkModel = true and (j.embeddingModel is null or j.embeddingModel <> :model)))
+            order by j.id
+            """)
+    List<Job> findEmbeddingBacklog(@Param("status") JobStatus status,
+                                   @Param("checkModel") boolean checkModel,
+                                   @Param("model") String model,
+                                   @Param("after") UUID after,
+                                   Pageable page);
+
+    @Query("""
+            select count(j) from Job j
+            where j.status = :status
+              and (j.embedding is null
+                   or (:checkModel = true and (j.embeddingModel is null or j.embeddingModel <> :model)))
+            """)
+    long countEmbeddingBacklog(@Param("status") JobStatus status,
+                               @Param("checkModel") boolean checkModel,
+                               @Param("model") String model);
+
+    long countByStatus(JobStatus status);
+
+    // ---- embedding versionati (job_embedding): vettori di modelli diversi da quello attivo ----
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into job_embedding (job_id, model, embedding, created_at)
+            values (:jobId, :model, :embedding, now())
+            on conflict (job_id, model) do update set embedding = excluded.embedding, created_at = now()
+            """, nativeQuery = true)
+    int upsertVersionedEmbedding(@Param("jobId") UUID jobId, @Param("model") String model,
+                                 @Param("embedding") byte[] embedding);
+
+    // job PUBLISHED senza vettore del modello in job.embedding (né, se versioned, in job_embedding), paginati per id
+    @Query(value = """
+            select j.* from job j
+            where j.status = 'PUBLISHED'
+              and j.id > :after
+              and not (j.embedding is not null and coalesce(j.embedding_model, '') = :model)
+              and not (:versioned = true and exists (select 1 from job_embedding e where e.job_id = j.id and e.model = :model))
+            order by j.id
+            limit :limit
+            """, nativeQuery = true)
+    List<Job> findPublishedMissingModel(@Param("model") String model, @Param("versioned") boolean versioned,
+                                        @Param("after") UUID after, @Param("limit") int limit);
+
+    @Query(value = """
+            select count(*) from job j
+            where j.status = 'PUBLISHED'
+              and ((j.embedding is not null and coalesce(j.embedding_model, '') = :model)
+                   or (:versioned = true and exists (select 1 from job_embedding e where e.job_id = j.id and e.model = :model)))
+            """, nativeQuery = true)
+    long countPublishedWithModel(@Param("model") String model, @Param("versioned") boolean versioned);
+
+    // cutover (nella stessa transazione): archivio i vettori attuali, promuovo quelli del nuovo modello,
+    // azzero i vettori rimasti di altri modelli. version+1: un save concorrente fallisce invece di riscriverli
+    @Modifying
+    @Query(value = """
+            insert into job_embedding (job_id, model, embedding, created_at)
+            select id, embedding_model, embedding, now() from job
+            where embedding is not null and embedding_model is not null and embedding_model <> :target
+            on conflict do nothing
+            """, nativeQuery = true)
+    int archivePrimaryEmbeddings(@Param("target") String target);
+
+    @Modifying
+    @Query(value = """
+            update job j
+            set embedding = e.embedding, embedding_model = e.model, embedding_updated_at = now(), version = j.version + 1
+            from job_embedding e
+            where e.job_id = j.id and e.model = :target
+            """, nativeQuery = true)
+    int promoteVersionedEmbeddings(@Param("target") String target);
+
+    @Modifying
+    @Query(value = """
+            update job
+            set embedding = null, embedding_model = null, embedding_updated_at = now(), version = version + 1
+            where embedding is not null and coalesce(embedding_model, '') <> :target
+            """, nativeQuery = true)
+    int clearPrimaryEmbeddingsNotOf(@Param("target") String target);
+
+    // dopo il cutover restano solo i vettori del modello precedente (rollback)
+    @Modifying
+    @Query(value = "delete from job_embedding where model <> :keep", nativeQuery = true)
+    int deleteVersionedEmbeddingsExcept(@Param("keep") String keep);
 }
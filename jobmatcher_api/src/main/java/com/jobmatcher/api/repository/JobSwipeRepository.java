@@ -2,8 +2,12 @@ package com.jobmatcher.api.repository;
 
 import com.jobmatcher.api.domain.job.JobSwipe;
 import com.jobmatcher.api.domain.job.SwipeAction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -17,6 +21,52 @@ public interface JobSwipeRepository extends JpaRepository<JobSwipe, UUID> {
 
     List<JobSwipe> findByCandidateUsernameOrderByCreatedAtDesc(String candidateUsername);
 
+    @Query("select s.jobId from JobSwipe s where s.candidateUsername = :candidateUsername")
+    List<UUID> findJobIdsByCandidateUsername(@Param("candidateUsername") String candidateUsername);
+
     List<JobSwipe> findByJobIdInAndActionOrderByCreatedAtDesc(Collection<UUID> jobIds, SwipeAction action);
 
+    List<JobSwipe> findByJobIdAndAction(UUID jobId, SwipeAction action);
+
+    List<JobSwipe> findByJobIdInAndActionAndScoredAtIsNull(Collection<UUID> jobIds, SwipeAction action);
+
+    // like non ancora valutati, o valutati con un CV diverso da quello attuale
+    @Query("""
+            select s from JobSwipe s
+            where s.candidateUsername = :candidateUsername
+              and s.action = :action
+              and (s.scoredAt is null or s.scoredCvId is null or s.scoredCvId <> :cvId)
+            """)
+    List<JobSwipe> findStaleByCandidate(@Param("candidateUsername") String candidateUsername,
+                                        @Param("action") SwipeAction action,
+                                        @Param("cvId") UUID cvId);
+
+    @Query("""
+            select s from JobSwipe s
+            where s.candidateUsername = :candidateUsername and s.action = :action
+            order by s.textScore desc nulls last, s.createdAt desc
+            """)
+    List<JobSwipe> findRankedByCandidate(@Param("candidateUsername") String candidateUsername,
+                                         @Param("action") SwipeAction action,
+                                         Pageable page);
+
+    @Query("""
+            select s from JobSwipe s
+            where s.jobId in :jobIds and s.action = :action
+            order by s.companyScore desc nulls last, s.createdAt desc
+            """)
+    List<JobSwipe> findRankedByJobs(@Param("jobIds") Collection<UUID> jobIds,
+                                    @Param("action") SwipeAction action,
+                                    Pageable page);
+
+    // dopo un cambio modello: like valutati prima dell'attivazione, a pagine per id (keyset)
+    @Query("""
+            select s from JobSwipe s
+            where s.action = :action
+              and (s.scoredAt is null or s.scoredAt < :since)
+              and s.id > :after
+            order by s.id
+            """)
+    List<JobSwipe> findScoredBefore(@Param("action") SwipeAction action, @Param("since") Instant since,
+                                    @Param("after") UUID after, Pageable page);
 }
@@ -6,9 +6,11 @@ import com.jobmatcher.api.dto.CandidateProfileUpsertRequest;
 import com.jobmatcher.api.exception.BadRequestException;
 import com.jobmatcher.api.exception.NotFoundException;
 import com.jobmatcher.api.repository.CandidateProfileRepository;
+import com.jobmatcher.api.service.matching.ActiveCvChangedEvent;
 
 import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,9 +19,11 @@ import org.springframework.transaction.annotation.Transactional;
 public class CandidateProfileService {
 
     private final CandidateProfileRepository repo;
+    private final ApplicationEventPublisher events;
 
-    public CandidateProfileService(CandidateProfileRepository repo) {
+    public CandidateProfileService(CandidateProfileRepository repo, ApplicationEventPublisher events) {
         this.repo = repo;
+        this.events = events;
     }
 
     private String currentUsername() {
@@ -62,6 +66,9 @@ public class CandidateProfileService {
 
         p.setActiveCvFileId(cvFileId);
         repo.save(p);
+
+        // anche a parità di id (CV rianalizzato) gli score dei like vanno rivalutati, dopo il commit
+        events.publishEvent(new ActiveCvChangedEvent(ownerUsername, cvFileId));
     }
 
     private CandidateProfileDTO toDto(CandidateProfile p) {
@@ -1,5 +1,9 @@
 package com.jobmatcher.api.service;
 
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.candidate.CandidateProfile;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
 import com.jobmatcher.api.domain.job.Job;
 import com.jobmatcher.api.domain.job.JobStatus;
 import com.jobmatcher.api.domain.job.JobSwipe;
@@ -7,65 +11,288 @@ import com.jobmatcher.api.domain.job.SwipeAction;
 import com.jobmatcher.api.dto.*;
 import com.jobmatcher.api.exception.BadRequestException;
 import com.jobmatcher.api.exception.NotFoundException;
+import com.jobmatcher.api.repository.CandidateProfileRepository;
+import com.jobmatcher.api.repository.CvAnalysisRepository;
+import com.jobmatcher.api.repository.CvFileRepository;
 import com.jobmatcher.api.repository.JobRepository;
 import com.jobmatcher.api.repository.JobSwipeRepository;
+import com.jobmatcher.api.service.feed.FeedCursor;
+import com.jobmatcher.api.service.feed.FeedSnapshot;
+import com.jobmatcher.api.service.feed.FeedSnapshotCache;
+import com.jobmatcher.api.service.feed.SeenJobSet;
+import com.jobmatcher.api.service.feed.SeenJobsCache;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.Geo;
+import com.jobmatcher.api.service.matching.HnswIndex;
+import com.jobmatcher.api.service.matching.JobKeywordIndex;
+import com.jobmatcher.api.service.matching.JobVectorIndex;
+import com.jobmatcher.api.service.matching.LikeScorer;
+import com.jobmatcher.api.service.matching.MatchScoringEngine;
+import com.jobmatcher.api.service.matching.TokenSet;
+import com.jobmatcher.api.service.matching.TopK;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class CandidateSwipeService {
 
+    // stesso ordine di FeedSnapshot.ORDER: score desc, poi jobId asc
+    private static final Comparator<FeedSnapshot.Entry> FEED_TIE_BREAK = Comparator.comparing(FeedSnapshot.Entry::jobId);
+
     private final JobRepository jobRepo;
     private final JobSwipeRepository swipeRepo;
     private final JobService jobService; // per riusare toDto()
+    private final CvFileRepository cvRepo;
+    private final CvAnalysisRepository analysisRepo;
+    private final CandidateProfileRepository profileRepo;
+    private final JobVectorIndex vectorIndex;
+    private final MatchingProperties matchingProps;
+    private final MatchScoringEngine scoring;
+    private final FeedSnapshotCache snapshots;
+    private final SeenJobsCache seenJobs;
+    private final JobKeywordIndex keywordIndex;
+    private final LikeScorer likeScorer;
 
-    public CandidateSwipeService(JobRepository jobRepo, JobSwipeRepository swipeRepo, JobService jobService) {
+    public CandidateSwipeService(JobRepository jobRepo, JobSwipeRepository swipeRepo, JobService jobService,
+                                 CvFileRepository cvRepo, CvAnalysisRepository analysisRepo,
+                                 CandidateProfileRepository profileRepo, JobVectorIndex vectorIndex, MatchingProperties matchingProps,
+                                 MatchScoringEngine scoring, FeedSnapshotCache snapshots,
+                                 SeenJobsCache seenJobs, JobKeywordIndex keywordIndex,
+                                 LikeScorer likeScorer) {
         this.jobRepo = jobRepo;
         this.swipeRepo = swipeRepo;
         this.jobService = jobService;
+        this.cvRepo = cvRepo;
+        this.analysisRepo = analysisRepo;
+        this.profileRepo = profileRepo;
+        this.vectorIndex = vectorIndex;
+        this.matchingProps = matchingProps;
+        this.scoring = scoring;
+        this.snapshots = snapshots;
+        this.seenJobs = seenJobs;
+        this.keywordIndex = keywordIndex;
+        this.likeScorer = likeScorer;
     }
 
     private String currentUsername() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
 
-    public List<SwipeFeedItemDTO> getSwipeFeed(Double lat, Double lon, Double radiusKm, Integer limit) {
+    public SwipeFeedPage getSwipeFeed(Double lat, Double lon, Double radiusKm, Integer limit, String cursor) {
         String candidate = currentUsername();
 
         int lim = (limit == null) ? 20 : Math.max(1, Math.min(limit, 100));
         double r = (radiusKm == null) ? 25.0 : Math.max(1.0, Math.min(radiusKm, 500.0));
+        String paramsKey = FeedCursor.paramsKey(lat, lon, r);
+
+        // 1) Escludo i job già swipati (set compatto in cache, non le entity)
+        SeenJobSet alreadySeen = seenJobs.get(candidate);
+
+        // 2) Snapshot del ranking: nuovo alla prima pagina, dalla cache per le successive
+        FeedSnapshot snap;
+        int offset;
+        if (cursor == null || cursor.isBlank()) {
+            snap = buildSnapshot(candidate, paramsKey, lat, lon, r, lim, alreadySeen);
+            offset = 0;
+        } else {
+            FeedCursor c = FeedCursor.decode(cursor);
+            if (!c.paramsKey().equals(paramsKey)) {
+                throw new BadRequestException("cursor non valido per questi parametri");
+            }
+            snap = snapshots.get(c.snapshotId(), candidate);
+            if (snap != null) {
+                offset = Math.max(0, c.offset());
+            } else {
+                // snapshot scaduto (o su un altro nodo): ricostruisco e riprendo dopo l'ultimo item servito
+                snap = buildSnapshot(candidate, paramsKey, lat, lon, r, lim, alreadySeen);
+                offset = snap.resumeAfter(c.segment(), c.lastScore(), c.lastJobId());
+                // l'ultimo item servito può stare in un blocco oltre il primo: estendo finché non lo raggiungo
+                while (offset >= snap.size() && !snap.isRestLoaded()) {
+                    loadRest(snap, alreadySeen, offset);
+                    offset = snap.resumeAfter(c.segment(), c.lastScore(), c.lastJobId());
+                }
+            }
+        }
+
+        // 3) Pagina: carico solo i job della pagina (salto quelli swipati o non più pubblicati nel frattempo)
+        List<SwipeFeedItemDTO> items = new ArrayList<>(lim);
+        FeedSnapshot.Entry last = null;
+        FeedSnapshot.Segment lastSegment = null;
+        int i = offset;
+        while (items.size() < lim) {
+            if (i >= snap.size()) {
+                if (snap.isRestLoaded()) break;
+                loadRest(snap, alreadySeen, i);
+                continue;
+            }
+
+            int end = Math.min(snap.size(), i + (lim - items.size()));
+            List<UUID> ids = new ArrayList<>(end - i);
+            for (int p = i; p < end; p++) ids.add(snap.get(p).jobId());
+            Map<UUID, Job> jobsById = jobRepo.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Job::getId, j -> j));
+
+            for (; i < end; i++) {
+                FeedSnapshot.Entry e = snap.get(i);
+                last = e;
+                lastSegment = snap.segmentAt(i);
+                if (alreadySeen.contains(e.jobId())) continue;
+                Job j = jobsById.get(e.jobId());
+                if (j == null || j.getStatus() != JobStatus.PUBLISHED) continue;
+
+                Double d = Geo.distanceKm(lat, lon, j.getLat(), j.getLon());
+                items.add(new SwipeFeedItemDTO(jobService.toDto(j), d, e.score()));
+            }
+        }
+
+        String next = null;
+        if (i < snap.size() || !snap.isRestLoaded()) {
+            next = new FeedCursor(snap.getId(), i, lastSegment,
+                    last != null ? last.score() : Double.MAX_VALUE,
+                    last != null ? last.jobId() : null,
+                    paramsKey).encode();
+        }
+        return new SwipeFeedPage(items, next);
+    }
 
-        // 1) Prendo tutti i PUBLISHED (senza paginazione: ok per demo)
-        List<Job> jobs = jobRepo.findByStatusOrderByCreatedAtDesc(JobStatus.PUBLISHED);
+    private FeedSnapshot buildSnapshot(String candidate, String paramsKey, Double lat, Double lon, double r,
+                                       int lim, SeenJobSet alreadySeen) {
+        // box attorno al raggio: prefiltro economico prima dell'haversine esatta
+        Geo.BoundingBox box = Geo.boxAround(lat, lon, r);
+        FeedSnapshot snap = new FeedSnapshot(candidate, paramsKey, lat, lon, r, box,
+                Math.max(lim, matchingProps.getFeed().getMaxSnapshotItems()));
 
-        // 2) Escludo i job già swipati
-        Set<UUID> alreadySeen = swipeRepo.findByCandidateUsernameOrderByCreatedAtDesc(candidate).stream()
-                .map(JobSwipe::getJobId)
-                .collect(Collectors.toSet());
+        // Se il CV attivo ha un embedding: primo segmento dall'indice vettoriale (top-K semantico),
+        // altrimenti dall'indice keyword (job che condividono token col CV).
+        // Il segmento per sola prossimità si carica solo quando il primo è esaurito.
+        Optional<CvFile> cv = activeCv(candidate);
+        float[] cvVec = vectorIndex.isEnabled()
+                ? cv.map(CvFile::getEmbedding).map(EmbeddingCodec::decodeNormalized).orElse(null)
+                : null;
+        if (cvVec != null) {
+            snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, semanticFeed(cvVec, alreadySeen, lat, lon, r, box, lim, snap.remainingCapacity()), false);
+        } else if (cv.isPresent() && keywordIndex.isEnabled()) {
+            TokenSet cvTokens = scoring.tokenize(analysisRepo.findText(cv.get().getId()).orElse(""));
+            snap.appendSegment(FeedSnapshot.Segment.KEYWORD, keywordFeed(cvTokens, alreadySeen, lat, lon, r, box, snap.remainingCapacity()), false);
+        }
+        if (snap.size() < lim) {
+            loadRest(snap, alreadySeen, snap.size());
+        }
+
+        snapshots.put(snap);
+        return snap;
+    }
+
+    // Fallback (o riempimento): PUBLISHED nel box (o tutti se manca la posizione), score solo prossimità.
+    // Un blocco alla volta, esclusi i job già nello snapshot; observedSize = dimensione vista dal chiamante
+    private void loadRest(FeedSnapshot snap, SeenJobSet alreadySeen, int observedSize) {
+        snap.extend(observedSize, () -> appendProximityBlock(snap, alreadySeen));
+    }
 
-        // 3) Filtro + calcolo distanza
-        List<SwipeFeedItemDTO> items = new ArrayList<>();
+    private void appendProximityBlock(FeedSnapshot snap, SeenJobSet alreadySeen) {
+        Geo.BoundingBox box = snap.getBox();
+        List<Job> jobs;
+        if (box == null) {
+            jobs = jobRepo.findByStatusOrderByCreatedAtDesc(JobStatus.PUBLISHED);
+        } else {
+            // due query: un OR con "senza coordinate" impedirebbe il range scan sull'indice geo
+            jobs = new ArrayList<>(jobRepo.findByStatusInBox(JobStatus.PUBLISHED,
+                    box.minLat(), box.maxLat(), box.minLon(), box.maxLon()));
+            jobs.addAll(jobRepo.findByStatusWithoutGeo(JobStatus.PUBLISHED));
+        }
+
+        int capacity = snap.remainingCapacity();
+        TopK<FeedSnapshot.Entry> top = new TopK<>(capacity, FEED_TIE_BREAK);
+        int candidates = 0;
         for (Job j : jobs) {
-            if (alreadySeen.contains(j.getId())) continue;
+            if (alreadySeen.contains(j.getId()) || snap.contains(j.getId())) continue;
+
+            Double d = Geo.distanceKm(snap.getLat(), snap.getLon(), j.getLat(), j.getLon());
+            if (d != null && d > snap.getRadiusKm()) continue;
 
-            Double d = distanceKm(lat, lon, j.getLat(), j.getLon());
+            double score = scoring.proximityScore(d, snap.getRadiusKm());
+            top.offer(score, new FeedSnapshot.Entry(j.getId(), score));
+            candidates++;
+        }
+
+        // oltre il blocco restano altri job: il feed continua col blocco successivo
+        snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, top.drainDescending(), candidates <= capacity);
+    }
+
+    private List<FeedSnapshot.Entry> semanticFeed(float[] cvVec, SeenJobSet alreadySeen,
+                                                  Double lat, Double lon, double r, Geo.BoundingBox box, int lim,
+                                                  int capacity) {
+        MatchingProperties.VectorIndex cfg = matchingProps.getVectorIndex();
+        // lo snapshot copre più pagine; i già visti occupano posti nel top-K: li aggiungo al budget
+        int pages = Math.max(lim * cfg.getFeedOversampling(), matchingProps.getFeed().getMaxSnapshotItems());
+        int k = Math.min(pages + alreadySeen.size(), cfg.getMaxFeedCandidates());
+
+        List<HnswIndex.Hit> hits = vectorIndex.search(cvVec, k);
+        if (hits.isEmpty()) return List.of();
+
+        List<UUID> ids = hits.stream().map(HnswIndex.Hit::id).filter(id -> !alreadySeen.contains(id)).toList();
+        Map<UUID, Job> jobsById = jobRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Job::getId, j -> j));
+
+        TopK<FeedSnapshot.Entry> top = new TopK<>(capacity, FEED_TIE_BREAK);
+        for (HnswIndex.Hit h : hits) {
+            Job j = jobsById.get(h.id());
+            if (j == null || j.getStatus() != JobStatus.PUBLISHED) continue;
+            if (box != null && !box.contains(j.getLat(), j.getLon())) continue;
+
+            Double d = Geo.distanceKm(lat, lon, j.getLat(), j.getLon());
             if (d != null && d > r) continue;
 
-            // score demo: per ora solo proximityScore (0..1)
-            double score = proximityScore(d, r);
+            // stessi pesi di /matches: prossimità + similarità CV/job (la similarità viene dall'indice)
+            double semantic = (Math.max(-1.0, Math.min(1.0, h.similarity())) + 1.0) / 2.0;
+            double score = scoring.candidateScore(scoring.proximityScore(d, r), semantic);
 
-            items.add(new SwipeFeedItemDTO(jobService.toDto(j), d, score));
+            top.offer(score, new FeedSnapshot.Entry(j.getId(), score));
         }
 
-        // 4) Ordino: score desc, poi createdAt desc
-        items.sort(Comparator
-                .comparing((SwipeFeedItemDTO it) -> it.score() != null ? it.score() : 0.0).reversed());
+        return top.drainDescending();
+    }
+
+    private List<FeedSnapshot.Entry> keywordFeed(TokenSet cvTokens, SeenJobSet alreadySeen,
+                                                 Double lat, Double lon, double r, Geo.BoundingBox box,
+                                                 int capacity) {
+        int k = matchingProps.getKeywordIndex().getMaxFeedCandidates();
+        List<JobKeywordIndex.Hit> hits = keywordIndex.search(cvTokens, k + alreadySeen.size());
+        if (hits.isEmpty()) return List.of();
+
+        List<UUID> ids = hits.stream().map(JobKeywordIndex.Hit::id).filter(id -> !alreadySeen.contains(id)).toList();
+        Map<UUID, Job> jobsById = jobRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Job::getId, j -> j));
+
+        TopK<FeedSnapshot.Entry> top = new TopK<>(capacity, FEED_TIE_BREAK);
+        for (JobKeywordIndex.Hit h : hits) {
+            Job j = jobsById.get(h.id());
+            if (j == null || j.getStatus() != JobStatus.PUBLISHED) continue;
+            if (box != null && !box.contains(j.getLat(), j.getLon())) continue;
 
-        return items.size() <= lim ? items : items.subList(0, lim);
+            Double d = Geo.distanceKm(lat, lon, j.getLat(), j.getLon());
+            if (d != null && d > r) continue;
+
+            // stessi pesi di /matches col fallback keyword
+            double score = scoring.candidateScore(scoring.proximityScore(d, r), h.jaccard());
+            top.offer(score, new FeedSnapshot.Entry(j.getId(), score));
+        }
+
+        return top.drainDescending();
+    }
+
+    // CV attivo PARSED, o l'ultimo PARSED se l'attivo non è impostato
+    private Optional<CvFile> activeCv(String candidate) {
+        UUID activeId = profileRepo.findByOwnerUsername(candidate)
+                .map(CandidateProfile::getActiveCvFileId)
+                .orElse(null);
+
+        return (activeId != null)
+                ? cvRepo.findByIdAndOwnerUsernameAndStatus(activeId, candidate, CvProcessingStatus.PARSED)
+                : cvRepo.findFirstByOwnerUsernameAndStatusOrderByUploadedAtDesc(candidate, CvProcessingStatus.PARSED);
     }
 
     public SwipeResponse swipe(SwipeRequest req) {
@@ -94,30 +321,11 @@ public class CandidateSwipeService {
                         .build());
 
         swipe.setAction(action);
+        // score del match calcolato ora, una volta: le viste match leggono solo il valore salvato
+        likeScorer.score(swipe, job);
         JobSwipe saved = swipeRepo.save(swipe);
+        seenJobs.onSwiped(candidate, saved.getJobId());
 
         return new SwipeResponse(saved.getJobId(), saved.getAction().name(), saved.getCreatedAt());
     }
-
-    // --- helpers: haversine ---
-    private Double distanceKm(Double lat1, Double lon1, Double lat2, Double lon2) {
-        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return null;
-
-        double R = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
-    }
-
-    private double proximityScore(Double distance, double radiusKm) {
-        if (distance == null) return 0.5; // se manca geo, score neutro
-        double x = Math.max(0.0, Math.min(distance / radiusKm, 1.0));
-        return 1.0 - x;
-    }
 }
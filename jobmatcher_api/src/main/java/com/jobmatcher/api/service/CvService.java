@@ -2,55 +2,88 @@ package com.jobmatcher.api.service;
 
 import com.jobmatcher.api.config.CvProperties;
 import com.jobmatcher.api.domain.candidate.CandidateProfile;
+import com.jobmatcher.api.domain.curriculum.CvAnalysis;
 import com.jobmatcher.api.domain.curriculum.CvFile;
 import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+import com.jobmatcher.api.repository.CvAnalysisRepository;
 import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.service.storage.FileDownloadWriter;
+import com.jobmatcher.api.service.storage.FileSignatures;
+import com.jobmatcher.api.service.storage.InspectingInputStream;
+import com.jobmatcher.api.service.storage.StoragePathLocks;
 import com.jobmatcher.api.service.storage.StorageService;
 import com.jobmatcher.api.dto.CvAnalysisDTO;
 import com.jobmatcher.api.dto.CvFileDTO;
 import com.jobmatcher.api.service.CandidateProfileService;
 import com.jobmatcher.api.dto.CvParseResponse;
+import com.jobmatcher.api.service.ai.AiModelResolver;
 import com.jobmatcher.api.service.ai.CvAiClient;
+import com.jobmatcher.api.service.ai.EmbeddingBatcher;
+import com.jobmatcher.api.service.ai.EmbeddingCache;
+import com.jobmatcher.api.service.analysis.CvAnalysisQueue;
+import com.jobmatcher.api.dto.EmbedResponse;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.EmbeddingVersions;
 import com.jobmatcher.api.exception.BadRequestException;
 import com.jobmatcher.api.exception.NotFoundException;
 
 import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
-import org.springframework.web.client.RestClientException;
 
 import com.jobmatcher.api.exception.ConflictException;
-import com.jobmatcher.api.exception.ServiceUnavailableException;
 
 
-import org.springframework.core.io.Resource;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.Instant;
 import java.util.*;
 
 @Service
 public class CvService {
 
+    private static final String DOCX = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+
     private final CvFileRepository repo;
+    private final CvAnalysisRepository analysisRepo;
     private final StorageService storage;
     private final CandidateProfileService candidateProfileService;
     private final CvProperties cvProps;
     private final CvAiClient cvAiClient;
     private final ObjectMapper objectMapper;
-
-    public CvService(CvFileRepository repo, StorageService storage, CandidateProfileService candidateProfileService, CvProperties cvProps, CvAiClient cvAiClient, ObjectMapper objectMapper) {
+    private final CvAnalysisQueue analysisQueue;
+    private final AiModelResolver aiModels;
+    private final EmbeddingVersions versions;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingBatcher embeddingBatcher;
+    private final StoragePathLocks storageLocks;
+
+    public CvService(CvFileRepository repo, CvAnalysisRepository analysisRepo, StorageService storage, CandidateProfileService candidateProfileService,
+                     CvProperties cvProps, CvAiClient cvAiClient, ObjectMapper objectMapper,
+                     CvAnalysisQueue analysisQueue, AiModelResolver aiModels, EmbeddingVersions versions,
+                     EmbeddingCache embeddingCache, EmbeddingBatcher embeddingBatcher, StoragePathLocks storageLocks) {
         this.repo = repo;
+        this.analysisRepo = analysisRepo;
         this.storage = storage;
         this.candidateProfileService = candidateProfileService;
         this.cvProps = cvProps;
         this.cvAiClient = cvAiClient;
         this.objectMapper = objectMapper;
+        this.analysisQueue = analysisQueue;
+        this.aiModels = aiModels;
+        this.versions = versions;
+        this.embeddingCache = embeddingCache;
+        this.embeddingBatcher = embeddingBatcher;
+        this.storageLocks = storageLocks;
     }
 
     private boolean canAccessAll() {
@@ -58,123 +91,237 @@ public class CvService {
                 .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN") || a.getAuthority().equals("ROLE_DEV"));
     }
 
+    /**
+     * Upload in un solo passaggio: il multipart viene copiato in un temporaneo dello storage mentre si calcolano
+     * dimensione (limite), SHA-256 e tipo reale dai primi byte; poi rename atomico al nome definitivo.
+     * Heap costante per upload, indipendente dalla dimensione del file.
+     */
     public CvFile upload(MultipartFile file) {
         if (file == null || file.isEmpty()) throw new BadRequestException("File mancante");
-    
+
         String owner = SecurityContextHolder.getContext().getAuthentication().getName();
         String original = Optional.ofNullable(file.getOriginalFilename()).orElse("cv");
         String ext = extension(original);
-    
+
+        // dimensione dichiarata: rifiuto subito senza leggere il contenuto (il limite vero è sullo stream)
         if (file.getSize() > cvProps.getMaxSizeBytes()) {
             throw new BadRequestException("File troppo grande: " + file.getSize());
         }
-    
-        String contentType = Optional.ofNullable(file.getContentType()).orElse("application/octet-stream");
-    
-        boolean allowedByType = cvProps.getAllowedContentTypes().isEmpty()
-                || cvProps.getAllowedContentTypes().contains(contentType);
 
-        boolean allowedByExt = Set.of("pdf", "docx").contains(ext);
+        String staged;
+        InspectingInputStream in;
+        try (InputStream raw = file.getInputStream()) {
+            in = new InspectingInputStream(raw, cvProps.getMaxSizeBytes());
+            staged = storage.stage(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Errore lettura file", e);
+        }
 
-        boolean allowed = allowedByType || allowedByExt;
-        if (!allowed) {
-            throw new BadRequestException("Tipo file non consentito: " + contentType + " / ." + ext);
+        String sha256;
+        String contentType;
+        try {
+            sha256 = in.sha256Hex();
+            contentType = sniffContentType(in.head(), ext, file.getContentType());
+        } catch (RuntimeException e) {
+            storage.discard(staged);
+            throw e;
         }
 
-    
-        String storedFilename = UUID.randomUUID() + (ext.isBlank() ? "" : ("." + ext));
-    
-        byte[] bytes;
-        try { bytes = file.getBytes(); }
-        catch (Exception e) { throw new IllegalStateException("Errore lettura file", e); }
-    
-       storage.save(bytes, storedFilename);
+        // stesso contenuto già caricato (anche da altri): riuso il nome della copia fisica esistente
+        String storedFilename = repo.findFirstByContentSha256OrderByUploadedAtAsc(sha256)
+                .map(CvFile::getStoragePath)
+                .orElseGet(() -> storage.newStoredFilename(sha256, ext));
 
         CvFile cv = new CvFile();
         cv.setOwnerUsername(owner);
         cv.setOriginalFilename(original);
         cv.setContentType(contentType);
-        cv.setSizeBytes(file.getSize());
+        cv.setSizeBytes(in.size());
         cv.setStoragePath(storedFilename);
+        cv.setContentSha256(sha256);
         cv.setStatus(CvProcessingStatus.UPLOADED);
         cv.setErrorMessage(null);
 
+        // sotto lock sul nome: commit (false se il file c'è già, es. dedup) e insert non si incrociano
+        // con la cancellazione di un file non referenziato. Se il file deduplicato è sparito lo riscrivo (stessi byte)
+        boolean[] written = {false};
         try {
-            return repo.save(cv);
-        } catch (Exception e) {
-            // evita file orfano se il DB fallisce
-            try { storage.delete(storedFilename); } catch (Exception ignored) {}
+            return storageLocks.withLock(storedFilename, () -> {
+                written[0] = storage.commit(staged, storedFilename);
+                return repo.save(cv);
+            });
+        } catch (RuntimeException e) {
+            if (!written[0]) {
+                try { storage.discard(staged); } catch (Exception ignored) {}
+            } else {
+                // evita file orfano se il DB fallisce (solo se nessun altro CV lo usa)
+                try { storageLocks.deleteIfUnreferenced(storedFilename); } catch (Exception ignored) {}
+            }
             throw e;
         }
     }
 
-    public CvParseResponse analyze(UUID cvId, boolean force) {
-        CvFile cv = loadCvForCurrentUser(cvId);
+    // tipo dai magic byte, non da quanto dichiara il client: PDF, oppure zip con estensione .docx
+    private String sniffContentType(byte[] head, String ext, String declared) {
+        String sniffed = FileSignatures.sniff(head);
+        String contentType = null;
+        if (FileSignatures.PDF.equals(sniffed)) {
+            contentType = FileSignatures.PDF;
+        } else if (FileSignatures.ZIP.equals(sniffed) && "docx".equals(ext)) {
+            contentType = DOCX;
+        }
 
-        // best-effort: evita doppio click che lancia 2 parse in parallelo
-        if (!force && cv.getStatus() == CvProcessingStatus.PARSING) {
-            throw new ConflictException("CV già in analisi");
+        boolean allowed = contentType != null
+                && (cvProps.getAllowedContentTypes().isEmpty() || cvProps.getAllowedContentTypes().contains(contentType));
+        if (!allowed) {
+            throw new BadRequestException("Tipo file non consentito: "
+                    + Optional.ofNullable(declared).orElse("application/octet-stream") + " / ." + ext);
         }
+        return contentType;
+    }
 
-        boolean alreadyParsed = cv.getStatus() == CvProcessingStatus.PARSED
-                && cv.getAnalyzedAt() != null
-                && cv.getAnalysisJson() != null;
+    /** Analisi già presente (CV PARSED), senza ricalcolo. */
+    public Optional<CvParseResponse> findParsed(UUID cvId) {
+        CvFile cv = loadCvForCurrentUser(cvId);
 
-        if (!force && alreadyParsed) {
-            try {
-                return objectMapper.treeToValue(cv.getAnalysisJson(), CvParseResponse.class);
-            } catch (Exception e) {
-                throw new IllegalStateException("Analysis salvata non convertibile in CvParseResponse", e);
-            }
+        boolean alreadyParsed = cv.getStatus() == CvProcessingStatus.PARSED && cv.getAnalyzedAt() != null;
+        if (!alreadyParsed) return Optional.empty();
+
+        Optional<CvAnalysis> analysis = analysisRepo.findById(cv.getId());
+        if (analysis.isEmpty()) return Optional.empty();
+
+        try {
+            CvParseResponse cached = objectMapper.treeToValue(analysis.get().getAnalysisJson(), CvParseResponse.class);
+            cached.setEmbedding(EmbeddingCodec.toList(cv.getEmbedding()));
+            return Optional.of(cached);
+        } catch (Exception e) {
+            throw new IllegalStateException("Analysis salvata non convertibile in CvParseResponse", e);
         }
+    }
+
+    /**
+     * Accoda l'analisi e risponde subito: il client segue lo stato su GET /api/cv/{id}/analysis.
+     * Idempotente: se c'è già un'analisi in corso restituisce il suo stato.
+     */
+    public CvAnalysisDTO requestAnalysis(UUID cvId) {
+        CvFile cv = loadCvForCurrentUser(cvId);
+        if (analysisQueue.hasActiveTask(cv.getId())) return toAnalysisDto(cv);
 
         // set PARSING e salva subito (così la UI può vedere lo stato)
         cv.setStatus(CvProcessingStatus.PARSING);
         cv.setErrorMessage(null);
         try {
-            repo.save(cv);
+            cv = repo.save(cv);
         } catch (ObjectOptimisticLockingFailureException e) {
             // un’altra richiesta ha già aggiornato lo stesso CV
             throw new ConflictException("CV già in analisi");
         }
 
+        analysisQueue.enqueue(cv.getId());
+        return toAnalysisDto(cv);
+    }
 
-        try {
-            Resource res = storage.loadAsResource(cv.getStoragePath());
-
-            CvParseResponse response = cvAiClient.parseResource(
-                    res,
+    /** Eseguita dai worker della coda (senza utente in contesto); lancia eccezione se l'analisi fallisce. */
+    public void runAnalysis(UUID cvId) {
+        CvFile cv = repo.findById(cvId).orElseThrow(() -> new NotFoundException("CV non trovato"));
+
+        Optional<CvFile> same = findReusableAnalysis(cv);
+        Optional<CvAnalysis> sameAnalysis = same.flatMap(c -> analysisRepo.findById(c.getId()));
+        if (sameAnalysis.isPresent()) {
+            // stesso contenuto già analizzato con il modello attuale: niente chiamata AI
+            analysisRepo.save(new CvAnalysis(cv.getId(), sameAnalysis.get().getAnalysisJson().deepCopy(), null));
+            versions.applyCv(cv, same.get().getEmbedding(), same.get().getEmbeddingModel());
+        } else {
+            // il file va al servizio AI in streaming dallo storage, senza caricarlo in memoria
+            CvParseResponse response = cvAiClient.parseStream(
+                    storage.stream(cv.getStoragePath()),
                     cv.getOriginalFilename(),
                     cv.getContentType()
             );
 
-            cv.setAnalysisJson(objectMapper.valueToTree(response));
-            cv.setAnalyzedAt(Instant.now());
-            cv.setStatus(CvProcessingStatus.PARSED);
-            cv.setErrorMessage(null);
-
-            repo.save(cv);
+            // embedding in colonna binaria, il resto dell'analisi resta jsonb
+            ObjectNode analysis = objectMapper.valueToTree(response);
+            analysis.remove("embedding");
+            // prima l'analisi, poi lo stato PARSED: chi vede PARSED trova sempre la riga in cv_analysis
+            analysisRepo.save(new CvAnalysis(cv.getId(), analysis, null));
+            // modello non ancora attivo (migrazione in corso): il vettore va in cv_embedding,
+            // l'embedding attuale (stesso file) resta valido per il matching
+            versions.applyCv(cv, EmbeddingCodec.encode(response.getEmbedding()), response.getModelUsed());
+        }
+        cv.setAnalyzedAt(Instant.now());
+        cv.setStatus(CvProcessingStatus.PARSED);
+        cv.setErrorMessage(null);
 
-            candidateProfileService.setActiveCv(cv.getOwnerUsername(), cv.getId());
+        repo.save(cv);
 
-            return response;
+        candidateProfileService.setActiveCv(cv.getOwnerUsername(), cv.getId());
+    }
 
-        } catch (Exception e) {
-            // best effort: segna FAILED
-            try {
-                cv.setStatus(CvProcessingStatus.FAILED);
-                cv.setErrorMessage(truncate(e.getMessage(), 500));
-                repo.save(cv);
-            } catch (Exception ignored) {}
-        
-            // errore “pulito” verso API
-            if (e instanceof RestClientException) {
-                throw new ServiceUnavailableException("Servizio AI non disponibile");
+    /**
+     * Ricalcola l'embedding dei CV PARSED indicati dal testo estratto già salvato (senza rianalizzare il file),
+     * con una chiamata batch. Usata dal reconciler quando il servizio AI passa a un nuovo modello.
+     * Ritorna quanti CV sono stati aggiornati.
+     */
+    public int reembed(List<CvFile> cvs) {
+        if (cvs.isEmpty()) return 0;
+
+        // solo il campo "text" dell'analisi, non l'intero jsonb
+        Map<UUID, String> texts = new HashMap<>();
+        for (CvAnalysisRepository.CvText t : analysisRepo.findTexts(cvs.stream().map(CvFile::getId).toList())) {
+            if (t.getText() != null && !t.getText().isBlank()) texts.put(t.getCvFileId(), t.getText());
+        }
+        List<CvFile> withText = cvs.stream().filter(cv -> texts.containsKey(cv.getId())).toList();
+        if (withText.isEmpty()) return 0;
+
+        List<EmbedResponse> embs = embeddingCache.getAll(
+                withText.stream().map(cv -> texts.get(cv.getId())).toList(), embeddingBatcher::embedAll);
+
+        int updated = 0;
+        for (int i = 0; i < withText.size(); i++) {
+            CvFile cv = withText.get(i);
+            if (versions.applyCv(cv, EmbeddingCodec.encode(embs.get(i).embedding()), embs.get(i).model_used())) {
+                try {
+                    repo.save(cv);
+                } catch (ObjectOptimisticLockingFailureException changed) {
+                    continue;
+                }
             }
-        
-            throw new BadRequestException("Impossibile analizzare CV: " + truncate(e.getMessage(), 200));
+            updated++;
         }
+        return updated;
+    }
 
+    // finale => FAILED; altrimenti resta PARSING (verrà ritentata) con l'ultimo errore visibile
+    public void markAnalysisFailed(UUID cvId, String error, boolean finalFailure) {
+        repo.findById(cvId).ifPresent(cv -> {
+            if (finalFailure) cv.setStatus(CvProcessingStatus.FAILED);
+            cv.setErrorMessage(truncate(error, 500));
+            repo.save(cv);
+        });
+    }
+
+    public void requeueStuckAnalyses(long staleAfterSeconds) {
+        Instant cutoff = Instant.now().minusSeconds(staleAfterSeconds);
+        for (CvFile cv : repo.findByStatusAndUpdatedAtBefore(CvProcessingStatus.PARSING, cutoff)) {
+            if (!analysisQueue.hasActiveTask(cv.getId())) analysisQueue.enqueue(cv.getId());
+        }
+    }
+
+    // analisi PARSED di un CV con lo stesso hash, fatta con il modello servito ora dall'AI
+    private Optional<CvFile> findReusableAnalysis(CvFile cv) {
+        if (cv.getContentSha256() == null) return Optional.empty();
+
+        List<CvFile> same = repo.findByContentSha256AndStatusAndIdNotOrderByAnalyzedAtDesc(
+                cv.getContentSha256(), CvProcessingStatus.PARSED, cv.getId());
+        if (same.isEmpty()) return Optional.empty();
+
+        String model = aiModels.currentModel();
+        if (model == null) return Optional.empty(); // modello sconosciuto: meglio rianalizzare
+
+        return same.stream()
+                .filter(c -> c.getEmbedding() != null)
+                .filter(c -> model.equals(c.getEmbeddingModel()))
+                .findFirst();
     }
 
     private String truncate(String s, int max) {
@@ -195,33 +342,75 @@ public class CvService {
     }
 
 
-    public Resource downloadMine(UUID cvId) {
+    public FileDownloadWriter.Download downloadMine(UUID cvId) {
         CvFile cv = loadCvForCurrentUser(cvId);
-        return storage.loadAsResource(cv.getStoragePath());
+        return new FileDownloadWriter.Download(
+                cv.getStoragePath(),
+                cv.getOriginalFilename(),
+                cv.getContentType(),
+                contentSha256(cv),
+                cv.getUploadedAt()
+        );
+    }
+
+    // CV caricati prima di content_sha256: hash calcolato in streaming al primo download e salvato (per l'ETag)
+    private String contentSha256(CvFile cv) {
+        if (cv.getContentSha256() != null) return cv.getContentSha256();
+        try (InspectingInputStream in = new InspectingInputStream(
+                storage.loadAsResource(cv.getStoragePath()).getInputStream(), Long.MAX_VALUE)) {
+            in.transferTo(OutputStream.nullOutputStream());
+            cv.setContentSha256(in.sha256Hex());
+            repo.save(cv);
+        } catch (ObjectOptimisticLockingFailureException ignored) {
+            // CV aggiornato nel frattempo: l'hash resta valido per questa risposta, si salva al prossimo giro
+        } catch (IOException e) {
+            return null; // niente ETag: resta Last-Modified
+        }
+        return cv.getContentSha256();
     }
 
-    public CvFile getMine(UUID cvId) {
-        return loadCvForCurrentUser(cvId);
+    // lista e stato: proiezioni sulle sole colonne del DTO (niente embedding, niente analisi)
+    public CvFileDTO getMine(UUID cvId) {
+        return loadDtoForCurrentUser(cvId);
     }
 
-    public List<CvFile> listMine() {
+    public List<CvFileDTO> listMine() {
         if (canAccessAll()) {
-            return repo.findAllByOrderByUploadedAtDesc();
+            return repo.findAllDtos();
         }
         String owner = SecurityContextHolder.getContext().getAuthentication().getName();
-        return repo.findByOwnerUsernameOrderByUploadedAtDesc(owner);
+        return repo.findDtosByOwnerUsername(owner);
     }
 
     public CvAnalysisDTO getAnalysisMine(UUID cvId) {
-        CvFile cv = loadCvForCurrentUser(cvId);
+        CvFileDTO cv = loadDtoForCurrentUser(cvId);
+        // il jsonb si legge solo se l'analisi è completa
+        boolean parsed = CvProcessingStatus.PARSED.name().equals(cv.status());
+        return new CvAnalysisDTO(
+                cv.analyzedAt(),
+                parsed ? analysisRepo.findById(cvId).map(CvAnalysis::getAnalysisJson).orElse(null) : null,
+                cv.status(),
+                cv.errorMessage()
+        );
+    }
+
+    // stato durante l'accodamento: l'analisi precedente non serve alla UI, che segue GET /analysis
+    private CvAnalysisDTO toAnalysisDto(CvFile cv) {
         return new CvAnalysisDTO(
                 cv.getAnalyzedAt(),
-                cv.getAnalysisJson(),
+                null,
                 cv.getStatus() != null ? cv.getStatus().name() : null,
                 cv.getErrorMessage()
         );
     }
 
+    private CvFileDTO loadDtoForCurrentUser(UUID cvId) {
+        Optional<CvFileDTO> dto = canAccessAll()
+                ? repo.findDtoById(cvId)
+                : repo.findDtoByIdAndOwnerUsername(cvId, SecurityContextHolder.getContext().getAuthentication().getName());
+        return dto.orElseThrow(() -> new NotFoundException("CV non trovato"));
+    }
+
 
     private String extension(String filename) {
         int i = filename.lastIndexOf('.');
@@ -230,17 +419,8 @@ public class CvService {
     }
 
     public CvFileDTO toDto(CvFile cv) {
-        boolean embedded = false;
-        String embeddingModel = null;
-    
-        if (cv.getAnalysisJson() != null) {
-            var emb = cv.getAnalysisJson().get("embedding");
-            embedded = emb != null && emb.isArray() && emb.size() > 0;
-        
-            var model = cv.getAnalysisJson().get("model_used");
-            if (model != null && model.isTextual()) embeddingModel = model.asText();
-        }
-    
+        boolean embedded = cv.getEmbedding() != null && cv.getEmbedding().length > 0;
+
         return new CvFileDTO(
                 cv.getId(),
                 cv.getOriginalFilename(),
@@ -251,7 +431,7 @@ public class CvService {
                 cv.getStatus() != null ? cv.getStatus().name() : null,
                 cv.getErrorMessage(),
                 embedded,
-                embeddingModel
+                cv.getEmbeddingModel()
         );
     }
 
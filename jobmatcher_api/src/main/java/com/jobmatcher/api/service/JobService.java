@@ -1,7 +1,5 @@
 package com.jobmatcher.api.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jobmatcher.api.domain.job.Job;
 import com.jobmatcher.api.domain.job.JobStatus;
 import com.jobmatcher.api.dto.JobCreateRequest;
@@ -10,7 +8,16 @@ import com.jobmatcher.api.exception.BadRequestException;
 import com.jobmatcher.api.exception.NotFoundException;
 import com.jobmatcher.api.repository.JobRepository;
 import com.jobmatcher.api.dto.EmbedResponse;
-import com.jobmatcher.api.service.ai.JobAiClient;
+import com.jobmatcher.api.service.ai.EmbeddingBatcher;
+import com.jobmatcher.api.service.ai.EmbeddingCache;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.EmbeddingVersions;
+import com.jobmatcher.api.service.matching.JobEmbeddingChangedEvent;
+import com.jobmatcher.api.service.matching.JobKeywordIndex;
+import com.jobmatcher.api.service.matching.JobVectorIndex;
+import com.jobmatcher.api.service.matching.MatchScoringEngine;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
@@ -24,13 +31,25 @@ import java.util.UUID;
 public class JobService {
 
     private final JobRepository repo;
-    private final JobAiClient jobAiClient;
-    private final ObjectMapper objectMapper;
-
-    public JobService(JobRepository repo, JobAiClient jobAiClient, ObjectMapper objectMapper) {
+    private final EmbeddingBatcher embeddingBatcher;
+    private final EmbeddingCache embeddingCache;
+    private final EmbeddingVersions versions;
+    private final JobVectorIndex vectorIndex;
+    private final JobKeywordIndex keywordIndex;
+    private final MatchScoringEngine scoring;
+    private final ApplicationEventPublisher events;
+
+    public JobService(JobRepository repo, EmbeddingBatcher embeddingBatcher, EmbeddingCache embeddingCache,
+                      EmbeddingVersions versions, JobVectorIndex vectorIndex, JobKeywordIndex keywordIndex, MatchScoringEngine scoring,
+                      ApplicationEventPublisher events) {
         this.repo = repo;
-        this.jobAiClient = jobAiClient;
-        this.objectMapper = objectMapper;
+        this.embeddingBatcher = embeddingBatcher;
+        this.embeddingCache = embeddingCache;
+        this.versions = versions;
+        this.vectorIndex = vectorIndex;
+        this.keywordIndex = keywordIndex;
+        this.scoring = scoring;
+        this.events = events;
     }
 
     private String currentUsername() {
@@ -83,6 +102,9 @@ public class JobService {
             job.setArchivedAt(Instant.now());
         }
 
+        // token keyword calcolati una volta qui (il testo del job non cambia dopo la creazione)
+        job.setTokens(scoring.tokenizeJob(job).toArray());
+
         Job saved = repo.save(job);
 
         // Se pubblicato: embedding (best-effort per demo; se vuoi hard-fail, vedi commento sotto)
@@ -96,6 +118,8 @@ public class JobService {
             }
         }
 
+        vectorIndex.onJobSaved(saved);
+        keywordIndex.onJobSaved(saved);
         return toDto(saved);
     }
 
@@ -173,15 +197,22 @@ public class JobService {
         }
 
         // Se va a PUBLISHED e manca embedding => embed
+        boolean embeddingChanged = false;
         if (newStatus == JobStatus.PUBLISHED) {
+            if (job.getTokens() == null) job.setTokens(scoring.tokenizeJob(job).toArray());
+
             try {
-                ensureEmbedded(job);
+                embeddingChanged = ensureEmbedded(job);
             } catch (Exception ignored) {
                 // hard requirement? throw new BadRequestException("Impossibile calcolare embedding job (AI non disponibile)");
             }
         }
 
         Job saved = repo.save(job);
+        vectorIndex.onJobSaved(saved);
+        keywordIndex.onJobSaved(saved);
+        // i like già ricevuti vanno rivalutati col nuovo embedding (in background)
+        if (embeddingChanged) events.publishEvent(new JobEmbeddingChangedEvent(saved.getId()));
         return toDto(saved);
     }
 
@@ -193,16 +224,52 @@ public class JobService {
         return repo.findByIdAndOwnerUsername(jobId, owner).orElseThrow(() -> new NotFoundException("Job non trovato"));
     }
 
-    private void ensureEmbedded(Job job) {
-        if (job.getEmbedding() != null && !job.getEmbedding().isNull()) return;
+    // true se l'embedding usato dal matching è stato (ri)calcolato
+    private boolean ensureEmbedded(Job job) {
+        if (job.getEmbedding() != null && job.getEmbedding().length > 0) return false;
 
         String text = buildTextForEmbedding(job);
-        EmbedResponse emb = jobAiClient.embedText(text);
+        // testo già visto (job riaperto, annuncio clonato): dalla cache; altrimenti accorpata alle richieste concorrenti
+        EmbedResponse emb = embeddingCache.get(text, embeddingBatcher::embed);
+        return applyEmbedding(job, emb);
+    }
+
+    /**
+     * Ricalcola l'embedding dei job indicati con una chiamata batch (riconciliazione in background).
+     * Se il modello del servizio AI non è ancora quello attivo il vettore va in job_embedding
+     * e il job non cambia (vedi EmbeddingVersions).
+     * Job cambiati nel frattempo (version diversa) vengono saltati: li riprende il giro successivo.
+     * Ritorna quanti job sono stati aggiornati.
+     */
+    public int reembed(List<Job> jobs) {
+        if (jobs.isEmpty()) return 0;
+
+        List<EmbedResponse> embs = embeddingCache.getAll(
+                jobs.stream().map(this::buildTextForEmbedding).toList(), embeddingBatcher::embedAll);
+
+        int updated = 0;
+        for (int i = 0; i < jobs.size(); i++) {
+            Job job = jobs.get(i);
+            if (!applyEmbedding(job, embs.get(i))) {
+                updated++;
+                continue;
+            }
+            Job saved;
+            try {
+                saved = repo.save(job);
+            } catch (ObjectOptimisticLockingFailureException changed) {
+                continue;
+            }
+            vectorIndex.onJobSaved(saved);
+            events.publishEvent(new JobEmbeddingChangedEvent(saved.getId()));
+            updated++;
+        }
+        return updated;
+    }
 
-        JsonNode json = objectMapper.valueToTree(emb.embedding());
-        job.setEmbedding(json);
-        job.setEmbeddingModel(emb.model_used());
-        job.setEmbeddingUpdatedAt(Instant.now());
+    // true se è cambiato job.embedding (da salvare), false se il vettore è andato a fianco
+    private boolean applyEmbedding(Job job, EmbedResponse emb) {
+        return versions.applyJob(job, EmbeddingCodec.encode(emb.embedding()), emb.model_used());
     }
 
     private String buildTextForEmbedding(Job job) {
@@ -222,7 +289,7 @@ public class JobService {
     }
 
     public JobDTO toDto(Job j) {
-        boolean embedded = j.getEmbedding() != null && !j.getEmbedding().isNull();
+        boolean embedded = j.getEmbedding() != null && j.getEmbedding().length > 0;
 
         return new JobDTO(
                 j.getId(),
@@ -0,0 +1,59 @@
+package com.jobmatcher.api.service.ai;
+
+/**
+ * Circuit breaker a errori consecutivi: oltre la soglia il circuito si apre per openMs
+ * e le chiamate falliscono subito; poi passa una sola chiamata di prova (half-open).
+ */
+final class AiCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+
+    AiCircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = Math.max(0, openMs) * 1_000_000L;
+    }
+
+    /** true se la chiamata può partire. */
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) return true;
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (trialInFlight) return false;
+        trialInFlight = true;
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    // la chiamata di prova non ha dato esito sul servizio (es. 4xx, bulkhead pieno): libero il posto
+    synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
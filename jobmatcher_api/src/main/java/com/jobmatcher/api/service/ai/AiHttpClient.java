@@ -0,0 +1,181 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.config.AiClientProperties;
+import com.jobmatcher.api.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * WebClient condiviso verso il servizio AI: pool di connessioni limitato, timeout per operazione,
+ * bulkhead per tipo (parse/embed), retry con jitter per le chiamate idempotenti,
+ * circuit breaker che fallisce subito con ServiceUnavailableException e timer per endpoint.
+ * Gli errori 4xx arrivano al chiamante come WebClientResponseException (nessun retry).
+ */
+@Component
+public class AiHttpClient {
+
+    private static final String METRIC = "jobmatcher.ai.client.requests";
+
+    private final AiClientProperties props;
+    private final ConnectionProvider pool;
+    private final WebClient webClient;
+    private final MeterRegistry meters;
+    private final AiCircuitBreaker breaker;
+    private final Map<AiOperation.Kind, Semaphore> bulkheads = new EnumMap<>(AiOperation.Kind.class);
+
+    public AiHttpClient(AiClientProperties props, MeterRegistry meters) {
+        this.props = props;
+        this.meters = meters;
+
+        AiClientProperties.Pool p = props.getPool();
+        this.pool = ConnectionProvider.builder("jobmatcher-ai")
+                .maxConnections(p.getMaxConnections())
+                .pendingAcquireMaxCount(p.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(p.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(p.getMaxIdleTimeMs()))
+                .build();
+        HttpClient http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) props.getConnectTimeoutMs());
+        this.webClient = WebClient.builder()
+                .baseUrl(props.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build();
+
+        AiClientProperties.CircuitBreaker cb = props.getCircuitBreaker();
+        this.breaker = new AiCircuitBreaker(cb.getFailureThreshold(), cb.getOpenMs());
+        Gauge.builder("jobmatcher.ai.client.circuit.open", breaker, b -> b.state() == AiCircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 se il circuito verso il servizio AI è aperto o in prova")
+                .register(meters);
+
+        AiClientProperties.Bulkhead bh = props.getBulkhead();
+        bulkheads.put(AiOperation.Kind.PARSE, new Semaphore(Math.max(1, bh.getMaxConcurrentParse())));
+        bulkheads.put(AiOperation.Kind.EMBED, new Semaphore(Math.max(1, bh.getMaxConcurrentEmbed())));
+    }
+
+    /** Esegue la richiesta costruita da request e ne attende il risultato (bloccante, come il resto del codice). */
+    public <T> T call(AiOperation op, Function<WebClient, Mono<T>> request) {
+        if (!breaker.tryAcquire()) {
+            record(op, "circuit_open", 0);
+            throw new ServiceUnavailableException("Servizio AI non disponibile");
+        }
+
+        Semaphore bulkhead = bulkheads.get(op.kind());
+        if (bulkhead != null && !tryAcquire(bulkhead)) {
+            breaker.onIgnored();
+            record(op, "rejected", 0);
+            throw new ServiceUnavailableException("Servizio AI occupato, riprova tra poco");
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = withResilience(op, request.apply(webClient)).block();
+            breaker.onSuccess();
+            record(op, "success", System.nanoTime() - start);
+            return result;
+        } catch (WebClientResponseException e) {
+            if (e.getStatusCode().is5xxServerError()) {
+                breaker.onFailure();
+                record(op, "error", System.nanoTime() - start);
+                throw new ServiceUnavailableException("Servizio AI in errore (" + e.getStatusCode().value() + ")");
+            }
+            // 4xx: il servizio risponde, l'errore è della richiesta
+            breaker.onSuccess();
+            record(op, "client_error", System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            if (!isTransient(e)) {
+                breaker.onIgnored();
+                record(op, "error", System.nanoTime() - start);
+                throw e;
+            }
+            breaker.onFailure();
+            record(op, isTimeout(e) ? "timeout" : "error", System.nanoTime() - start);
+            throw new ServiceUnavailableException("Servizio AI non disponibile");
+        } finally {
+            if (bulkhead != null) bulkhead.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.dispose();
+    }
+
+    // ---------------- helpers ----------------
+
+    private <T> Mono<T> withResilience(AiOperation op, Mono<T> mono) {
+        Mono<T> m = mono.timeout(Duration.ofMillis(timeoutMs(op)));
+        AiClientProperties.Retry r = props.getRetry();
+        if (!op.idempotent() || r.getMaxAttempts() <= 1) return m;
+
+        return m.retryWhen(Retry.backoff(r.getMaxAttempts() - 1L, Duration.ofMillis(r.getInitialBackoffMs()))
+                .maxBackoff(Duration.ofMillis(r.getMaxBackoffMs()))
+                .jitter(r.getJitter())
+                .filter(AiHttpClient::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private long timeoutMs(AiOperation op) {
+        AiClientProperties.Timeouts t = props.getTimeouts();
+        return switch (op.kind()) {
+            case PARSE -> t.getParseMs();
+            case EMBED -> t.getEmbedMs();
+            case HEALTH -> t.getHealthMs();
+        };
+    }
+
+    private boolean tryAcquire(Semaphore s) {
+        try {
+            return s.tryAcquire(props.getBulkhead().getMaxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // errori da riprovare / che contano per il circuito: timeout, connessione, 5xx
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException w) return w.getStatusCode().is5xxServerError();
+        return e instanceof WebClientRequestException || isTimeout(e);
+    }
+
+    private static boolean isTimeout(Throwable e) {
+        // block() avvolge le checked exception (TimeoutException di Mono.timeout)
+        Throwable t = e;
+        while (t != null) {
+            if (t instanceof TimeoutException) return true;
+            t = t.getCause();
+        }
+        return false;
+    }
+
+    private void record(AiOperation op, String outcome, long nanos) {
+        Timer.builder(METRIC)
+                .description("Latenza delle chiamate al servizio AI")
+                .tag("operation", op.metricName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meters)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
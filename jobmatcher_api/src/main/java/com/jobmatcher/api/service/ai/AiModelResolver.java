@@ -0,0 +1,43 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.dto.AiHealthResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Modello attualmente servito dal servizio AI (da /health), in cache per qualche secondo.
+ * null se il servizio non risponde o non lo dichiara: chi lo usa deve comportarsi in modo conservativo.
+ */
+@Component
+public class AiModelResolver {
+
+    private static final long TTL_NANOS = 60_000_000_000L;
+
+    private final JobAiClient client;
+
+    private volatile String model;
+    private volatile long fetchedAt = 0;
+
+    public AiModelResolver(JobAiClient client) {
+        this.client = client;
+    }
+
+    public String currentModel() {
+        long now = System.nanoTime();
+        if (fetchedAt != 0 && now - fetchedAt < TTL_NANOS) return model;
+        try {
+            AiHealthResponse h = client.health();
+            model = h != null && h.model() != null && !h.model().isBlank() ? h.model() : null;
+        } catch (Exception e) {
+            model = null;
+        }
+        fetchedAt = now;
+        return model;
+    }
+
+    /** Modello letto in una risposta (model_used): più fresco di /health. */
+    public void observe(String usedModel) {
+        if (usedModel == null || usedModel.isBlank()) return;
+        model = usedModel;
+        fetchedAt = System.nanoTime();
+    }
+}
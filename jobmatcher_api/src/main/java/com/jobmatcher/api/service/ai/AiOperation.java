@@ -0,0 +1,26 @@
+package com.jobmatcher.api.service.ai;
+
+/** Chiamate verso il servizio AI: ognuna ha timeout, bulkhead e politica di retry del suo tipo. */
+public enum AiOperation {
+    CV_PARSE_TEXT("cv.parse-text", Kind.PARSE),
+    CV_PARSE_FILE("cv.parse-file", Kind.PARSE),
+    JOB_EMBED_TEXT("job.embed-text", Kind.EMBED),
+    JOB_EMBED_BATCH("job.embed-batch", Kind.EMBED),
+    HEALTH("health", Kind.HEALTH);
+
+    public enum Kind { PARSE, EMBED, HEALTH }
+
+    private final String metricName;
+    private final Kind kind;
+
+    AiOperation(String metricName, Kind kind) {
+        this.metricName = metricName;
+        this.kind = kind;
+    }
+
+    public String metricName() { return metricName; }
+    public Kind kind() { return kind; }
+
+    // il parsing è costoso e non va ripetuto alla cieca; embedding e health sono idempotenti
+    public boolean idempotent() { return kind != Kind.PARSE; }
+}
@@ -0,0 +1,22 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.dto.AiHealthResponse;
+import com.jobmatcher.api.dto.CvParseResponse;
+import com.jobmatcher.api.dto.EmbedBatchResponse;
+import com.jobmatcher.api.dto.EmbedResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Backend di parsing ed embedding dietro CvAiClient/JobAiClient, scelto con jobmatcher.ai.provider
+ * (come StorageService): remote = servizio jobmatcher_ai, local = implementazione deterministica in JVM.
+ */
+public interface AiProvider {
+    EmbedResponse embedText(String text);
+    EmbedBatchResponse embedBatch(List<String> texts);
+    CvParseResponse parseText(String text);
+    CvParseResponse parseFile(Flux<DataBuffer> content, String filename, String contentType);
+    AiHealthResponse health();
+}
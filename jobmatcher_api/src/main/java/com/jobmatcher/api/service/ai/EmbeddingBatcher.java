@@ -0,0 +1,136 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.config.AiClientProperties;
+import com.jobmatcher.api.dto.EmbedBatchResponse;
+import com.jobmatcher.api.dto.EmbedResponse;
+import com.jobmatcher.api.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Accorpa le richieste di embedding concorrenti: la prima apre una finestra di windowMs,
+ * quelle che arrivano nel frattempo (fino a maxSize) partono nella stessa chiamata /job/embed-batch
+ * e ognuno riceve il proprio risultato. Un solo thread di dispatch: un batch alla volta verso l'AI.
+ */
+@Component
+public class EmbeddingBatcher {
+
+    private record Pending(String text, CompletableFuture<EmbedResponse> result) {}
+
+    private final JobAiClient client;
+    private final AiClientProperties.EmbedBatch props;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+
+    // servizio AI senza /job/embed-batch (versione precedente): si torna alle chiamate singole
+    private volatile boolean batchUnsupported = false;
+
+    public EmbeddingBatcher(JobAiClient client, AiClientProperties props) {
+        this.client = client;
+        this.props = props.getEmbedBatch();
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "embed-batcher");
+            t.setDaemon(true);
+            return t;
+        });
+        if (this.props.isEnabled()) dispatcher.execute(this::loop);
+    }
+
+    /** Embedding di un testo; bloccante (come le altre chiamate AI), al più timeoutMs. */
+    public EmbedResponse embed(String text) {
+        if (!props.isEnabled() || batchUnsupported) return client.embedText(text);
+
+        CompletableFuture<EmbedResponse> f = new CompletableFuture<>();
+        queue.add(new Pending(text, f));
+        try {
+            return f.get(props.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(false);
+            throw new ServiceUnavailableException("Servizio AI non disponibile (timeout embedding)");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Embedding interrotto");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /** Batch esplicito (es. riconciliazione): spezzato in chiamate da maxSize. */
+    public List<EmbedResponse> embedAll(List<String> texts) {
+        List<EmbedResponse> out = new ArrayList<>(texts.size());
+        int max = Math.max(1, props.getMaxSize());
+        for (int i = 0; i < texts.size(); i += max) {
+            out.addAll(call(texts.subList(i, Math.min(texts.size(), i + max))));
+        }
+        return out;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    // ---------------- dispatch ----------------
+
+    private void loop() {
+        List<Pending> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(props.getWindowMs());
+                while (batch.size() < props.getMaxSize()) {
+                    long wait = deadline - System.nanoTime();
+                    if (wait <= 0) break;
+                    Pending p = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (p == null) break;
+                    batch.add(p);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                for (Pending p : batch) p.result().completeExceptionally(new ServiceUnavailableException("Embedding annullato"));
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        // chi ha già rinunciato (timeout) non occupa posto nel batch
+        batch.removeIf(p -> p.result().isDone());
+        if (batch.isEmpty()) return;
+
+        try {
+            List<EmbedResponse> results = call(batch.stream().map(Pending::text).toList());
+            for (int i = 0; i < batch.size(); i++) batch.get(i).result().complete(results.get(i));
+        } catch (RuntimeException e) {
+            for (Pending p : batch) p.result().completeExceptionally(e);
+        }
+    }
+
+    private List<EmbedResponse> call(List<String> texts) {
+        if (batchUnsupported) return texts.stream().map(client::embedText).toList();
+
+        EmbedBatchResponse res;
+        try {
+            res = client.embedBatch(texts);
+        } catch (WebClientResponseException.NotFound | WebClientResponseException.MethodNotAllowed e) {
+            batchUnsupported = true;
+            return texts.stream().map(client::embedText).toList();
+        }
+
+        if (res == null || res.embeddings() == null || res.embeddings().size() != texts.size()) {
+            throw new IllegalStateException("Risposta embed-batch non valida");
+        }
+        List<EmbedResponse> out = new ArrayList<>(texts.size());
+        for (List<Double> e : res.embeddings()) out.add(new EmbedResponse(e, res.model_used()));
+        return out;
+    }
+}
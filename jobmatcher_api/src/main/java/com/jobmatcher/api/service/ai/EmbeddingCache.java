@@ -0,0 +1,187 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.config.AiClientProperties;
+import com.jobmatcher.api.domain.ai.EmbeddingCacheEntry;
+import com.jobmatcher.api.domain.ai.EmbeddingCacheKey;
+import com.jobmatcher.api.dto.EmbedResponse;
+import com.jobmatcher.api.repository.EmbeddingCacheRepository;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.EmbeddingModelCutoverEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Cache degli embedding a due livelli: LRU in memoria + tabella embedding_cache,
+ * chiave (SHA-256 del testo normalizzato, modello). Il modello è quello servito ora dall'AI:
+ * quando cambia (da /health o da un model_used diverso) si svuota solo la memoria di questo nodo.
+ * La tabella è condivisa: le righe di un modello si cancellano solo quando il cutover lo ritira.
+ */
+@Component
+public class EmbeddingCache {
+
+    private static final String METRIC = "jobmatcher.ai.embedding.cache";
+
+    private final AiClientProperties.EmbedCache props;
+    private final EmbeddingCacheRepository repo;
+    private final AiModelResolver models;
+
+    private final Counter memoryHits;
+    private final Counter dbHits;
+    private final Counter misses;
+
+    // chiave: modello + "|" + hash; valore: embedding codificato (compatto)
+    private final LinkedHashMap<String, byte[]> lru;
+    private String activeModel;
+
+    public EmbeddingCache(AiClientProperties props, EmbeddingCacheRepository repo, AiModelResolver models,
+                          MeterRegistry meters) {
+        this.props = props.getEmbedCache();
+        this.repo = repo;
+        this.models = models;
+
+        int max = Math.max(1, this.props.getMaxEntries());
+        this.lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > max;
+            }
+        };
+
+        this.memoryHits = Counter.builder(METRIC).tag("level", "memory").tag("result", "hit").register(meters);
+        this.dbHits = Counter.builder(METRIC).tag("level", "db").tag("result", "hit").register(meters);
+        this.misses = Counter.builder(METRIC).tag("level", "all").tag("result", "miss").register(meters);
+        Gauge.builder(METRIC + ".size", this, EmbeddingCache::memorySize).register(meters);
+    }
+
+    /** Embedding di text dalla cache, altrimenti calcolato con compute e memorizzato. */
+    public EmbedResponse get(String text, Function<String, EmbedResponse> compute) {
+        return getAll(List.of(text), texts -> List.of(compute.apply(texts.get(0)))).get(0);
+    }
+
+    /** Come get, per più testi: compute riceve solo i mancanti (nello stesso ordine). */
+    public List<EmbedResponse> getAll(List<String> texts, Function<List<String>, List<EmbedResponse>> compute) {
+        if (!props.isEnabled() || texts.isEmpty()) return compute.apply(texts);
+
+        String model = models.currentModel();
+        if (model != null) switchModel(model);
+
+        String[] hashes = new String[texts.size()];
+        for (int i = 0; i < texts.size(); i++) hashes[i] = sha256Hex(normalize(texts.get(i)));
+        Map<String, byte[]> cached = model != null ? lookup(hashes, model) : Map.of();
+
+        EmbedResponse[] out = new EmbedResponse[texts.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < texts.size(); i++) {
+            byte[] v = cached.get(hashes[i]);
+            if (v != null) out[i] = new EmbedResponse(EmbeddingCodec.toList(v), model);
+            else missing.add(i);
+        }
+        if (missing.isEmpty()) return Arrays.asList(out);
+
+        misses.increment(missing.size());
+        List<EmbedResponse> computed = compute.apply(missing.stream().map(texts::get).toList());
+        for (int j = 0; j < missing.size(); j++) {
+            int i = missing.get(j);
+            EmbedResponse r = computed.get(j);
+            out[i] = r;
+            store(hashes[i], r);
+        }
+        return Arrays.asList(out);
+    }
+
+    public synchronized int memorySize() {
+        return lru.size();
+    }
+
+    // il modello precedente non è più servito da nessun nodo: le sue righe non verranno più lette
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModelCutover(EmbeddingModelCutoverEvent event) {
+        if (!props.isPersistent() || event.previousModel() == null) return;
+        try {
+            repo.deleteByModel(event.previousModel());
+        } catch (Exception ignored) {
+            // le righe vecchie non vengono comunque lette; riprova il prossimo nodo che vede il cutover
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    // memoria prima, poi un'unica query per tutti i mancanti del batch; chiave: hash
+    private Map<String, byte[]> lookup(String[] hashes, String model) {
+        Map<String, byte[]> found = new HashMap<>();
+        List<String> notInMemory = new ArrayList<>();
+        synchronized (this) {
+            for (String hash : hashes) {
+                byte[] v = lru.get(model + "|" + hash);
+                if (v != null) found.put(hash, v);
+                else notInMemory.add(hash);
+            }
+        }
+        memoryHits.increment(hashes.length - notInMemory.size());
+        if (notInMemory.isEmpty() || !props.isPersistent()) return found;
+
+        Set<EmbeddingCacheKey> keys = new HashSet<>();
+        for (String hash : notInMemory) keys.add(new EmbeddingCacheKey(hash, model));
+        List<EmbeddingCacheEntry> rows = repo.findAllById(keys);
+        if (rows.isEmpty()) return found;
+        synchronized (this) {
+            for (EmbeddingCacheEntry e : rows) {
+                found.put(e.getKey().getTextSha256(), e.getEmbedding());
+                lru.put(model + "|" + e.getKey().getTextSha256(), e.getEmbedding());
+            }
+        }
+        dbHits.increment(notInMemory.stream().filter(found::containsKey).count());
+        return found;
+    }
+
+    private void store(String hash, EmbedResponse r) {
+        if (r == null || r.embedding() == null || r.embedding().isEmpty() || r.model_used() == null) return;
+
+        // la risposta dice quale modello è in servizio: se è cambiato invalido subito
+        models.observe(r.model_used());
+        switchModel(r.model_used());
+
+        byte[] encoded = EmbeddingCodec.encode(r.embedding());
+        synchronized (this) {
+            lru.put(r.model_used() + "|" + hash, encoded);
+        }
+        if (props.isPersistent()) {
+            try {
+                repo.insertIfAbsent(hash, r.model_used(), encoded);
+            } catch (Exception ignored) {
+                // la cache non deve far fallire il calcolo
+            }
+        }
+    }
+
+    // solo la memoria locale: altri nodi possono servire ancora l'altro modello dalla stessa tabella
+    private synchronized void switchModel(String model) {
+        if (model.equals(activeModel)) return;
+        activeModel = model;
+        lru.clear();
+    }
+
+    // spazi compattati e forma Unicode canonica: stesso annuncio con formattazione diversa => stessa chiave
+    static String normalize(String text) {
+        if (text == null) return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ");
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+}
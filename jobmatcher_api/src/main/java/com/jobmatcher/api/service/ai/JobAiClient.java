@@ -1,30 +1,31 @@
 package com.jobmatcher.api.service.ai;
 
+import com.jobmatcher.api.dto.EmbedBatchResponse;
 import com.jobmatcher.api.dto.EmbedResponse;
+import com.jobmatcher.api.dto.AiHealthResponse;
 
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
 
 @Service
 public class JobAiClient {
 
-    private final WebClient webClient;
+    private final AiProvider provider;
 
-    public JobAiClient(@Value("${jobmatcher.ai.base-url}") String baseUrl) {
-        this.webClient = WebClient.builder().baseUrl(baseUrl).build();
+    public JobAiClient(AiProvider provider) {
+        this.provider = provider;
     }
 
-    private record TextBody(String text) {}
-
     public EmbedResponse embedText(String text) {
-        return webClient.post()
-                .uri("/job/embed-text")
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(new TextBody(text))
-                .retrieve()
-                .bodyToMono(EmbedResponse.class)
-                .block();
+        return provider.embedText(text);
+    }
+
+    public EmbedBatchResponse embedBatch(List<String> texts) {
+        return provider.embedBatch(texts);
+    }
+
+    public AiHealthResponse health() {
+        return provider.health();
     }
 }
@@ -0,0 +1,175 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.config.AiClientProperties;
+import com.jobmatcher.api.config.CvProperties;
+import com.jobmatcher.api.dto.AiHealthResponse;
+import com.jobmatcher.api.dto.CvParseResponse;
+import com.jobmatcher.api.dto.EmbedBatchResponse;
+import com.jobmatcher.api.dto.EmbedResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Provider in JVM per load test e run offline (profilo local-ai): nessun servizio esterno.
+ * Embedding deterministici a dimensione fissa con feature hashing di unigrammi e bigrammi
+ * (segno dal bit basso dell'hash, vettore normalizzato L2); il parsing estrae solo il testo.
+ * Non ha qualità semantica: serve a misurare i percorsi Java, non la rilevanza.
+ */
+@Service
+@ConditionalOnProperty(prefix = "jobmatcher.ai", name = "provider", havingValue = "local")
+public class LocalAiProvider implements AiProvider {
+
+    private static final double BIGRAM_WEIGHT = 0.5;
+    private static final int MIN_RUN = 4; // sequenze stampabili più corte sono rumore binario
+
+    private final int dimension;
+    private final String model;
+    private final long maxBytes;
+
+    public LocalAiProvider(AiClientProperties props, CvProperties cvProps) {
+        this.dimension = Math.max(8, props.getLocal().getDimension());
+        this.model = "local-feature-hash-" + dimension;
+        this.maxBytes = cvProps.getMaxSizeBytes();
+    }
+
+    @Override
+    public EmbedResponse embedText(String text) {
+        return new EmbedResponse(embed(text), model);
+    }
+
+    @Override
+    public EmbedBatchResponse embedBatch(List<String> texts) {
+        List<List<Double>> out = new ArrayList<>(texts.size());
+        for (String t : texts) out.add(embed(t));
+        return new EmbedBatchResponse(out, model);
+    }
+
+    @Override
+    public CvParseResponse parseText(String text) {
+        String t = text == null ? "" : text;
+
+        // stessa forma della risposta di jobmatcher_ai (sezioni vuote)
+        Map<String, Object> sections = new LinkedHashMap<>();
+        sections.put("experience", List.of());
+        sections.put("education", List.of());
+        sections.put("skills", List.of());
+        sections.put("languages", List.of());
+
+        CvParseResponse res = new CvParseResponse();
+        res.setText(t);
+        res.setSections(sections);
+        res.setEmbedding(embed(t));
+        res.setModelUsed(model);
+        return res;
+    }
+
+    @Override
+    public CvParseResponse parseFile(Flux<DataBuffer> content, String filename, String contentType) {
+        DataBuffer joined = DataBufferUtils.join(content, (int) Math.min(Integer.MAX_VALUE, maxBytes)).block();
+        byte[] bytes;
+        if (joined == null) {
+            bytes = new byte[0];
+        } else {
+            try {
+                bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+            } finally {
+                DataBufferUtils.release(joined);
+            }
+        }
+        return parseText(extractText(bytes));
+    }
+
+    @Override
+    public AiHealthResponse health() {
+        return new AiHealthResponse("ok", true, model);
+    }
+
+    // ---------------- helpers ----------------
+
+    private List<Double> embed(String text) {
+        double[] v = new double[dimension];
+        String prev = null;
+        for (String tok : tokens(text)) {
+            add(v, tok, 1.0);
+            if (prev != null) add(v, prev + ' ' + tok, BIGRAM_WEIGHT);
+            prev = tok;
+        }
+
+        double norm = 0.0;
+        for (double x : v) norm += x * x;
+        if (norm == 0.0) {
+            // testo vuoto: vettore fisso, mai nullo (il coseno deve restare definito)
+            add(v, "", 1.0);
+            norm = 1.0;
+        }
+        double inv = 1.0 / Math.sqrt(norm);
+
+        List<Double> out = new ArrayList<>(dimension);
+        for (double x : v) out.add(x * inv);
+        return out;
+    }
+
+    private void add(double[] v, String feature, double weight) {
+        long h = fnv1a64(feature);
+        int idx = (int) Long.remainderUnsigned(h >>> 1, dimension);
+        v[idx] += (h & 1L) == 0 ? weight : -weight;
+    }
+
+    private static List<String> tokens(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        List<String> out = new ArrayList<>();
+        for (String t : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (t.length() >= 2) out.add(t);
+        }
+        return out;
+    }
+
+    // FNV-1a a 64 bit sui char: stabile tra JVM e run
+    private static long fnv1a64(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // UTF-8 valido => testo così com'è; altrimenti (PDF/DOCX binari) le sequenze stampabili, come `strings`
+    static String extractText(byte[] bytes) {
+        try {
+            String s = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes))
+                    .toString();
+            if (s.indexOf('\0') < 0) return s.trim();
+        } catch (CharacterCodingException ignored) {
+            // binario
+        }
+
+        StringBuilder out = new StringBuilder();
+        StringBuilder run = new StringBuilder();
+        for (byte b : bytes) {
+            char c = (char) (b & 0xFF);
+            boolean printable = (c >= 0x20 && c < 0x7F) || (c >= 0xC0 && c <= 0xFF) || c == '\t';
+            if (printable) {
+                run.append(c);
+                continue;
+            }
+            if (run.length() >= MIN_RUN) out.append(run).append('\n');
+            run.setLength(0);
+        }
+        if (run.length() >= MIN_RUN) out.append(run);
+        return out.toString().trim();
+    }
+}
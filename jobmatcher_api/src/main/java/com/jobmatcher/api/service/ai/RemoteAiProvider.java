@@ -0,0 +1,96 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.dto.AiHealthResponse;
+import com.jobmatcher.api.dto.CvParseResponse;
+import com.jobmatcher.api.dto.EmbedBatchResponse;
+import com.jobmatcher.api.dto.EmbedResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@Service
+@ConditionalOnProperty(prefix = "jobmatcher.ai", name = "provider", havingValue = "remote", matchIfMissing = true)
+public class RemoteAiProvider implements AiProvider {
+
+    private final AiHttpClient http;
+
+    public RemoteAiProvider(AiHttpClient http) {
+        this.http = http;
+    }
+
+    private record TextBody(String text) {}
+
+    private record BatchBody(List<String> texts) {}
+
+    @Override
+    public EmbedResponse embedText(String text) {
+        return http.call(AiOperation.JOB_EMBED_TEXT, wc -> wc.post()
+                .uri("/job/embed-text")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new TextBody(text))
+                .retrieve()
+                .bodyToMono(EmbedResponse.class));
+    }
+
+    @Override
+    public EmbedBatchResponse embedBatch(List<String> texts) {
+        return http.call(AiOperation.JOB_EMBED_BATCH, wc -> wc.post()
+                .uri("/job/embed-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BatchBody(texts))
+                .retrieve()
+                .bodyToMono(EmbedBatchResponse.class));
+    }
+
+    @Override
+    public CvParseResponse parseText(String text) {
+        return http.call(AiOperation.CV_PARSE_TEXT, wc -> wc.post()
+                .uri("/cv/parse-text")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new TextBody(text))
+                .retrieve()
+                .bodyToMono(CvParseResponse.class));
+    }
+
+    // il file va al servizio come parte multipart in streaming (vedi StorageService.stream)
+    @Override
+    public CvParseResponse parseFile(Flux<DataBuffer> content, String filename, String contentType) {
+        String ct = (contentType == null || contentType.isBlank())
+                ? "application/octet-stream"
+                : contentType;
+
+        MultipartBodyBuilder builder = new MultipartBodyBuilder();
+        builder.asyncPart("file", content, DataBuffer.class)
+                .filename(filename)           // <-- IMPORTANTISSIMO
+                .contentType(MediaType.parseMediaType(ct));
+
+        return http.call(AiOperation.CV_PARSE_FILE, wc -> wc.post()
+                .uri("/cv/parse-file")
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .accept(MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromMultipartData(builder.build()))
+                .retrieve()
+                // 4xx con il messaggio del servizio; i 5xx restano errori del servizio (circuit breaker)
+                .onStatus(status -> status.is4xxClientError(), resp ->
+                        resp.bodyToMono(String.class).flatMap(body ->
+                                Mono.error(new RuntimeException("AI " + resp.statusCode() + ": " + body))
+                        )
+                )
+                .bodyToMono(CvParseResponse.class));
+    }
+
+    @Override
+    public AiHealthResponse health() {
+        return http.call(AiOperation.HEALTH, wc -> wc.get()
+                .uri("/health")
+                .retrieve()
+                .bodyToMono(AiHealthResponse.class));
+    }
+}
@@ -0,0 +1,106 @@
+package com.jobmatcher.api.service.analysis;
+
+import com.jobmatcher.api.config.CvProperties;
+import com.jobmatcher.api.domain.curriculum.CvAnalysisTask;
+import com.jobmatcher.api.domain.curriculum.CvAnalysisTaskStatus;
+import com.jobmatcher.api.repository.CvAnalysisTaskRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Coda DB delle analisi CV (tabella cv_analysis_task).
+ * Claim con FOR UPDATE SKIP LOCKED + lease: più nodi API possono consumare la stessa coda.
+ */
+@Service
+public class CvAnalysisQueue {
+
+    public static final Set<CvAnalysisTaskStatus> ACTIVE =
+            Set.of(CvAnalysisTaskStatus.PENDING, CvAnalysisTaskStatus.RUNNING);
+
+    private final CvAnalysisTaskRepository repo;
+    private final CvProperties.Analysis props;
+    // identifica il nodo nel lease (pid@host + suffisso casuale per riavvii sullo stesso host)
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    public CvAnalysisQueue(CvAnalysisTaskRepository repo, CvProperties props) {
+        this.repo = repo;
+        this.props = props.getAnalysis();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /** Accoda l'analisi del CV; se ne esiste già una attiva restituisce quella. */
+    public CvAnalysisTask enqueue(UUID cvFileId) {
+        var existing = repo.findFirstByCvFileIdAndStatusIn(cvFileId, ACTIVE);
+        if (existing.isPresent()) return existing.get();
+
+        try {
+            return repo.save(CvAnalysisTask.builder()
+                    .cvFileId(cvFileId)
+                    .status(CvAnalysisTaskStatus.PENDING)
+                    .attempts(0)
+                    .availableAt(Instant.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // accodato in parallelo da un'altra richiesta (indice unico sui task attivi)
+            return repo.findFirstByCvFileIdAndStatusIn(cvFileId, ACTIVE).orElseThrow(() -> e);
+        }
+    }
+
+    public boolean hasActiveTask(UUID cvFileId) {
+        return repo.findFirstByCvFileIdAndStatusIn(cvFileId, ACTIVE).isPresent();
+    }
+
+    /** Reclama fino a max task (pronti o con lease scaduto) per questo nodo. */
+    @Transactional
+    public List<CvAnalysisTask> claim(int max) {
+        if (max <= 0) return List.of();
+        Instant now = Instant.now();
+        List<UUID> ids = repo.lockClaimable(now, max);
+        if (ids.isEmpty()) return List.of();
+
+        repo.markRunning(ids, nodeId, now.plus(Duration.ofSeconds(props.getLeaseSeconds())), now);
+        return repo.findAllById(ids);
+    }
+
+    public void complete(CvAnalysisTask task) {
+        task.setStatus(CvAnalysisTaskStatus.DONE);
+        task.setLeaseUntil(null);
+        task.setLastError(null);
+        repo.save(task);
+    }
+
+    /**
+     * Errore: di nuovo PENDING con backoff esponenziale, oppure FAILED se i tentativi sono finiti.
+     * @return true se il task non verrà più ritentato
+     */
+    public boolean fail(CvAnalysisTask task, String error) {
+        boolean exhausted = task.getAttempts() >= props.getMaxAttempts();
+        task.setLastError(error);
+        task.setLeaseUntil(null);
+        if (exhausted) {
+            task.setStatus(CvAnalysisTaskStatus.FAILED);
+        } else {
+            long backoff = props.getRetryBackoffSeconds() << Math.max(0, task.getAttempts() - 1);
+            task.setStatus(CvAnalysisTaskStatus.PENDING);
+            task.setAvailableAt(Instant.now().plusSeconds(backoff));
+        }
+        repo.save(task);
+        return exhausted;
+    }
+
+    public long backlog() {
+        return repo.countByStatusIn(ACTIVE);
+    }
+}
@@ -0,0 +1,84 @@
+package com.jobmatcher.api.service.analysis;
+
+import com.jobmatcher.api.config.AsyncConfig;
+import com.jobmatcher.api.config.CvProperties;
+import com.jobmatcher.api.domain.curriculum.CvAnalysisTask;
+import com.jobmatcher.api.service.CvService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Consuma la coda delle analisi CV con un numero limitato di worker per nodo:
+ * reclama solo tanti task quanti sono gli slot liberi, il resto resta in coda per gli altri nodi.
+ */
+@Component
+public class CvAnalysisWorker {
+
+    private final CvAnalysisQueue queue;
+    private final CvService cvService;
+    private final Executor executor;
+    private final CvProperties.Analysis props;
+    private final Semaphore slots;
+
+    public CvAnalysisWorker(CvAnalysisQueue queue, CvService cvService,
+                            @Qualifier(AsyncConfig.CV_ANALYSIS_EXECUTOR) Executor executor,
+                            CvProperties props) {
+        this.queue = queue;
+        this.cvService = cvService;
+        this.executor = executor;
+        this.props = props.getAnalysis();
+        this.slots = new Semaphore(Math.max(1, this.props.getWorkers()));
+    }
+
+    @Scheduled(fixedDelayString = "${jobmatcher.cv.analysis.poll-interval-ms:2000}")
+    public void poll() {
+        int free = slots.availablePermits();
+        if (free == 0) return;
+
+        List<CvAnalysisTask> tasks = queue.claim(free);
+        for (CvAnalysisTask task : tasks) {
+            slots.acquireUninterruptibly();
+            try {
+                executor.execute(() -> {
+                    try {
+                        run(task);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // executor rifiuta: il lease scadrà e il task verrà ripreso
+                slots.release();
+            }
+        }
+    }
+
+    // CV rimasti in PARSING senza task attivo (es. nodo caduto prima di accodare): li rimetto in coda
+    @Scheduled(fixedDelayString = "${jobmatcher.cv.analysis.stuck-check-interval-ms:60000}")
+    public void requeueStuck() {
+        cvService.requeueStuckAnalyses(props.getLeaseSeconds());
+    }
+
+    private void run(CvAnalysisTask task) {
+        try {
+            cvService.runAnalysis(task.getCvFileId());
+            queue.complete(task);
+        } catch (ObjectOptimisticLockingFailureException lost) {
+            // lease perso (scaduto e ripreso da un altro worker): il risultato lo scrive lui
+        } catch (Exception e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            try {
+                boolean exhausted = queue.fail(task, error);
+                cvService.markAnalysisFailed(task.getCvFileId(), error, exhausted);
+            } catch (ObjectOptimisticLockingFailureException ignored) {
+                // come sopra
+            }
+        }
+    }
+}
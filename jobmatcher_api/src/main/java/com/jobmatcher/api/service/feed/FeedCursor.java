@@ -0,0 +1,63 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Cursore opaco dello swipe feed (base64url).
+ * snapshotId/offset puntano allo snapshot in memoria; segment/lastScore/lastJobId servono
+ * a riprendere (keyset dentro il segmento) se lo snapshot è scaduto o è su un altro nodo.
+ * I cursori v1 (senza segmento) sono ancora accettati: riprendono per jobId o dall'inizio.
+ */
+public record FeedCursor(UUID snapshotId, int offset, FeedSnapshot.Segment segment, double lastScore,
+                         UUID lastJobId, String paramsKey) {
+
+    private static final String VERSION = "v2";
+    private static final String V1 = "v1";
+
+    public String encode() {
+        String raw = String.join("|",
+                VERSION,
+                snapshotId.toString(),
+                Integer.toString(offset),
+                segment != null ? segment.name() : "-",
+                Double.toString(lastScore),
+                lastJobId != null ? lastJobId.toString() : "-",
+                paramsKey);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] p = raw.split("\\|", -1);
+            if (p.length == 6 && V1.equals(p[0])) {
+                return new FeedCursor(UUID.fromString(p[1]), Integer.parseInt(p[2]), null,
+                        Double.parseDouble(p[3]), "-".equals(p[4]) ? null : UUID.fromString(p[4]), p[5]);
+            }
+            if (p.length != 7 || !VERSION.equals(p[0])) throw new IllegalArgumentException();
+            return new FeedCursor(
+                    UUID.fromString(p[1]),
+                    Integer.parseInt(p[2]),
+                    "-".equals(p[3]) ? null : FeedSnapshot.Segment.valueOf(p[3]),
+                    Double.parseDouble(p[4]),
+                    "-".equals(p[5]) ? null : UUID.fromString(p[5]),
+                    p[6]
+            );
+        } catch (Exception e) {
+            throw new BadRequestException("cursor non valido");
+        }
+    }
+
+    // parametri che determinano il ranking: se cambiano, il cursore non è più valido
+    public static String paramsKey(Double lat, Double lon, double radiusKm) {
+        return String.format(Locale.ROOT, "%s,%s,%.3f",
+                lat != null ? String.format(Locale.ROOT, "%.6f", lat) : "-",
+                lon != null ? String.format(Locale.ROOT, "%.6f", lon) : "-",
+                radiusKm);
+    }
+}
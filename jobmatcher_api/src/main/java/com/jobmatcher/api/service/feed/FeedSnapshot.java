@@ -0,0 +1,143 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.service.matching.Geo;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Ranking di una sessione di swipe: solo (jobId, score), i DTO vengono costruiti pagina per pagina.
+ * Due segmenti: prima i candidati semantici (indice vettoriale) o per keyword, poi — caricati solo se servono —
+ * quelli per sola prossimità. Ogni segmento è ordinato per score desc, jobId asc; gli score di segmenti
+ * diversi non sono sulla stessa scala e non vanno confrontati.
+ * Lo snapshot cresce a blocchi di maxItems: raggiunto il tetto, la prossimità continua con un altro blocco
+ * (escludendo i job già presenti) invece di chiudere il feed.
+ */
+public class FeedSnapshot {
+
+    public record Entry(UUID jobId, double score) {}
+
+    public enum Segment { SEMANTIC, KEYWORD, PROXIMITY }
+
+    public static final Comparator<Entry> ORDER = Comparator
+            .comparingDouble(Entry::score).reversed()
+            .thenComparing(Entry::jobId);
+
+    private final UUID id = UUID.randomUUID();
+    private final String candidate;
+    private final String paramsKey;
+    private final Double lat;
+    private final Double lon;
+    private final double radiusKm;
+    private final Geo.BoundingBox box;
+    private final int maxItems;
+    // un solo chiamante alla volta aggiunge il blocco successivo
+    private final Object extendLock = new Object();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<UUID> members = new HashSet<>();
+    private final List<Segment> segments = new ArrayList<>();
+    private final List<Integer> segmentStarts = new ArrayList<>();
+    private boolean restLoaded;
+    private int limit;
+    private volatile Instant lastAccess = Instant.now();
+
+    public FeedSnapshot(String candidate, String paramsKey, Double lat, Double lon, double radiusKm,
+                        Geo.BoundingBox box, int maxItems) {
+        this.candidate = candidate;
+        this.paramsKey = paramsKey;
+        this.lat = lat;
+        this.lon = lon;
+        this.radiusKm = radiusKm;
+        this.box = box;
+        this.maxItems = maxItems;
+        this.limit = maxItems;
+    }
+
+    public UUID getId() { return id; }
+    public String getCandidate() { return candidate; }
+    public String getParamsKey() { return paramsKey; }
+    public Double getLat() { return lat; }
+    public Double getLon() { return lon; }
+    public double getRadiusKm() { return radiusKm; }
+    public Geo.BoundingBox getBox() { return box; }
+    public Instant getLastAccess() { return lastAccess; }
+    public void touch() { lastAccess = Instant.now(); }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized boolean isRestLoaded() { return restLoaded; }
+    public synchronized boolean contains(UUID jobId) { return members.contains(jobId); }
+
+    public synchronized Entry get(int i) { return entries.get(i); }
+    // posti liberi nel blocco corrente
+    public synchronized int remainingCapacity() { return Math.max(0, limit - entries.size()); }
+
+    /**
+     * Aggiunge un segmento (già ordinato) rispettando il tetto del blocco corrente; lo stesso segmento
+     * aggiunto di nuovo continua quello precedente. last = non ci sono altri job oltre a questi:
+     * il feed finisce solo se sono entrati tutti.
+     */
+    public synchronized void appendSegment(Segment kind, List<Entry> sorted, boolean last) {
+        if (segments.isEmpty() || segments.get(segments.size() - 1) != kind) {
+            segments.add(kind);
+            segmentStarts.add(entries.size());
+        }
+        boolean full = false;
+        for (Entry e : sorted) {
+            if (entries.size() >= limit) {
+                full = true;
+                break;
+            }
+            if (members.add(e.jobId())) entries.add(e);
+        }
+        if (last && !full) restLoaded = true;
+    }
+
+    /**
+     * Carica il seguito dello snapshot con loader (che chiama appendSegment), aprendo un nuovo blocco se quello
+     * corrente è pieno. Serializzato e fuori dal monitor dello snapshot: le pagine già caricate restano leggibili
+     * durante la query, e chi aspettava trova lo snapshot già cresciuto rispetto a observedSize e non ricarica.
+     */
+    public void extend(int observedSize, Runnable loader) {
+        synchronized (extendLock) {
+            synchronized (this) {
+                if (restLoaded || entries.size() != observedSize) return;
+                if (entries.size() >= limit) limit += maxItems;
+            }
+            loader.run();
+        }
+    }
+
+    // segmento a cui appartiene la posizione i
+    public synchronized Segment segmentAt(int i) {
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (segmentStarts.get(s) <= i) return segments.get(s);
+        }
+        return null;
+    }
+
+    /**
+     * Posizione da cui riprendere dopo l'ultimo item servito quando lo snapshot è stato ricostruito.
+     * Se il job non c'è più (tipicamente appena swipato) keyset (score, jobId) solo dentro il suo segmento.
+     * size() se il segmento di prossimità non è ancora caricato (o non fin lì): il chiamante estende e riprova.
+     * Ranking di un altro tipo (es. il CV ora ha un embedding): si riparte dall'inizio.
+     */
+    public synchronized int resumeAfter(Segment segment, double lastScore, UUID lastJobId) {
+        if (lastJobId != null) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).jobId().equals(lastJobId)) return i + 1;
+            }
+        }
+
+        int s = segments.indexOf(segment);
+        if (s < 0) return segment == Segment.PROXIMITY ? entries.size() : 0;
+
+        int start = segmentStarts.get(s);
+        int end = (s + 1 < segments.size()) ? segmentStarts.get(s + 1) : entries.size();
+        Entry last = new Entry(lastJobId != null ? lastJobId : new UUID(0L, 0L), lastScore);
+        for (int i = start; i < end; i++) {
+            if (ORDER.compare(entries.get(i), last) > 0) return i;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,61 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.service.matching.EmbeddingModelCutoverEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Snapshot dei feed attivi, in memoria locale: LRU limitata + scadenza per inattività.
+ * Se uno snapshot manca (scaduto, altro nodo) il feed lo ricostruisce dal cursore.
+ */
+@Component
+public class FeedSnapshotCache {
+
+    private final MatchingProperties.Feed props;
+    private final Map<UUID, FeedSnapshot> snapshots;
+
+    public FeedSnapshotCache(MatchingProperties props) {
+        this.props = props.getFeed();
+        int max = Math.max(1, this.props.getMaxSnapshots());
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, FeedSnapshot> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    public synchronized void put(FeedSnapshot snapshot) {
+        snapshots.put(snapshot.getId(), snapshot);
+    }
+
+    public synchronized FeedSnapshot get(UUID id, String candidate) {
+        FeedSnapshot s = snapshots.get(id);
+        if (s == null) return null;
+
+        Instant expiry = s.getLastAccess().plus(Duration.ofSeconds(props.getSnapshotTtlSeconds()));
+        if (!s.getCandidate().equals(candidate) || Instant.now().isAfter(expiry)) {
+            snapshots.remove(id);
+            return null;
+        }
+        s.touch();
+        return s;
+    }
+
+    public synchronized void clear() {
+        snapshots.clear();
+    }
+
+    // ranking calcolato con vettori del modello precedente: i feed ripartono dal cursore
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModelCutover(EmbeddingModelCutoverEvent event) {
+        clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.jobmatcher.api.service.feed;
+
+import java.util.*;
+
+/**
+ * Insieme compatto dei job già swipati da un candidato.
+ * UUID come coppie di long in un array ordinato (16 byte a job, ricerca binaria)
+ * più un piccolo delta per gli swipe recenti, fuso nell'array quando cresce.
+ */
+public class SeenJobSet {
+
+    private static final int MERGE_THRESHOLD = 64;
+
+    private long[] sorted;  // [msb0, lsb0, msb1, lsb1, ...] ordinati per (msb, lsb)
+    private int count;
+    private final Set<UUID> delta = new HashSet<>();
+
+    private SeenJobSet(long[] sorted, int count) {
+        this.sorted = sorted;
+        this.count = count;
+    }
+
+    public static SeenJobSet of(Collection<UUID> ids) {
+        UUID[] arr = ids.toArray(new UUID[0]);
+        Arrays.sort(arr, SeenJobSet::compare);
+
+        long[] packed = new long[arr.length * 2];
+        int n = 0;
+        for (UUID id : arr) {
+            if (n > 0 && packed[2 * n - 2] == id.getMostSignificantBits()
+                    && packed[2 * n - 1] == id.getLeastSignificantBits()) continue; // duplicato
+            packed[2 * n] = id.getMostSignificantBits();
+            packed[2 * n + 1] = id.getLeastSignificantBits();
+            n++;
+        }
+        return new SeenJobSet(packed, n);
+    }
+
+    public synchronized boolean contains(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0 || delta.contains(id);
+    }
+
+    public synchronized void add(UUID id) {
+        if (contains(id)) return;
+        delta.add(id);
+        if (delta.size() >= MERGE_THRESHOLD) merge();
+    }
+
+    public synchronized int size() {
+        return count + delta.size();
+    }
+
+    // ---------------- internals ----------------
+
+    private void merge() {
+        List<UUID> all = new ArrayList<>(count + delta.size());
+        for (int i = 0; i < count; i++) all.add(new UUID(sorted[2 * i], sorted[2 * i + 1]));
+        all.addAll(delta);
+        SeenJobSet merged = of(all);
+        sorted = merged.sorted;
+        count = merged.count;
+        delta.clear();
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(sorted[2 * mid], sorted[2 * mid + 1], msb, lsb);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private static int compare(UUID a, UUID b) {
+        return compare(a.getMostSignificantBits(), a.getLeastSignificantBits(),
+                b.getMostSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private static int compare(long msbA, long lsbA, long msbB, long lsbB) {
+        int c = Long.compare(msbA, msbB);
+        return c != 0 ? c : Long.compare(lsbA, lsbB);
+    }
+}
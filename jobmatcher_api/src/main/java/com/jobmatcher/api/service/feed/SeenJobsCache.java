@@ -0,0 +1,82 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.repository.JobSwipeRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Job già swipati per candidato: caricati una volta (solo gli id) e aggiornati a ogni swipe.
+ * LRU limitata + scadenza, così gli swipe fatti su altri nodi rientrano entro il TTL.
+ * La query gira fuori dal lock: gli swipe arrivati durante il caricamento vengono annotati
+ * e fusi nel set caricato prima di pubblicarlo, altrimenti andrebbero persi fino al TTL.
+ */
+@Component
+public class SeenJobsCache {
+
+    private record Cached(SeenJobSet set, Instant loadedAt) {}
+
+    // caricamenti in corso per candidato: swipe visti nel frattempo e quanti caricamenti li attendono
+    private static final class Loading {
+        final Set<UUID> swiped = new HashSet<>();
+        int loaders;
+    }
+
+    private final JobSwipeRepository swipeRepo;
+    private final MatchingProperties.Feed props;
+    private final Map<String, Cached> cache;
+    private final Map<String, Loading> loading = new HashMap<>();
+
+    public SeenJobsCache(JobSwipeRepository swipeRepo, MatchingProperties props) {
+        this.swipeRepo = swipeRepo;
+        this.props = props.getFeed();
+        int max = Math.max(1, this.props.getSeenCacheMaxCandidates());
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    public SeenJobSet get(String candidate) {
+        Loading l;
+        synchronized (this) {
+            Cached c = cache.get(candidate);
+            if (c != null && Instant.now().isBefore(c.loadedAt().plus(Duration.ofSeconds(props.getSeenCacheTtlSeconds())))) {
+                return c.set();
+            }
+            l = loading.computeIfAbsent(candidate, k -> new Loading());
+            l.loaders++;
+        }
+
+        // query fuori dal lock: due caricamenti concorrenti dello stesso candidato sono innocui
+        SeenJobSet loaded = null;
+        try {
+            loaded = SeenJobSet.of(swipeRepo.findJobIdsByCandidateUsername(candidate));
+        } finally {
+            synchronized (this) {
+                if (loaded != null) {
+                    l.swiped.forEach(loaded::add);
+                    cache.put(candidate, new Cached(loaded, Instant.now()));
+                }
+                if (--l.loaders == 0) loading.remove(candidate);
+            }
+        }
+        return loaded;
+    }
+
+    // chiamato dopo ogni swipe salvato (già su DB); se il candidato non è in cache verrà caricato alla prossima richiesta
+    public void onSwiped(String candidate, UUID jobId) {
+        Cached c;
+        synchronized (this) {
+            Loading l = loading.get(candidate);
+            if (l != null) l.swiped.add(jobId);
+            c = cache.get(candidate);
+        }
+        if (c != null) c.set().add(jobId);
+    }
+}
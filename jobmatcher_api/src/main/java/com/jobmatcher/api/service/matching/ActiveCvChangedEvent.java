@@ -0,0 +1,6 @@
+package com.jobmatcher.api.service.matching;
+
+import java.util.UUID;
+
+// pubblicato quando cambia il CV attivo di un candidato: i suoi like vanno ricalcolati
+public record ActiveCvChangedEvent(String candidateUsername, UUID cvFileId) {}
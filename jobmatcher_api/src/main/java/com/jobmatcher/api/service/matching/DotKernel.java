@@ -0,0 +1,6 @@
+package com.jobmatcher.api.service.matching;
+
+// prodotto scalare float32: implementazione scalare o SIMD (Vector API), vedi VectorKernels
+interface DotKernel {
+    float dot(float[] a, float[] b);
+}
@@ -0,0 +1,53 @@
+package com.jobmatcher.api.service.matching;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Formato binario degli embedding su DB (colonne bytea): float32 big-endian, 4 byte per componente.
+ * Stesso layout di float4send() lato Postgres (usato dalla migrazione V11).
+ */
+public final class EmbeddingCodec {
+
+    private EmbeddingCodec() {}
+
+    public static byte[] encode(float[] v) {
+        if (v == null || v.length == 0) return null;
+        ByteBuffer buf = ByteBuffer.allocate(v.length * Float.BYTES);
+        buf.asFloatBuffer().put(v);
+        return buf.array();
+    }
+
+    public static byte[] encode(List<Double> v) {
+        if (v == null || v.isEmpty()) return null;
+        ByteBuffer buf = ByteBuffer.allocate(v.size() * Float.BYTES);
+        for (Double d : v) buf.putFloat(d != null ? d.floatValue() : 0f);
+        return buf.array();
+    }
+
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes.length % Float.BYTES != 0) return null;
+        float[] out = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).asFloatBuffer().get(out);
+        return out;
+    }
+
+    // decode + normalizzazione L2 sul posto (un'unica allocazione); null se vettore nullo
+    public static float[] decodeNormalized(byte[] bytes) {
+        float[] v = decode(bytes);
+        return Vectors.normalizeInPlace(v) ? v : null;
+    }
+
+    // per le risposte API che espongono ancora l'embedding come lista
+    public static List<Double> toList(byte[] bytes) {
+        float[] v = decode(bytes);
+        if (v == null) return null;
+        Double[] out = new Double[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = (double) v[i];
+        return List.of(out);
+    }
+
+    public static int dimension(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length / Float.BYTES;
+    }
+}
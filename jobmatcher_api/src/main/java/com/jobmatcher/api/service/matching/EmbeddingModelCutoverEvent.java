@@ -0,0 +1,4 @@
+package com.jobmatcher.api.service.matching;
+
+// pubblicato quando il modello attivo cambia (cutover): indici e cache in memoria vanno ricostruiti
+public record EmbeddingModelCutoverEvent(String previousModel, String activeModel) {}
@@ -0,0 +1,162 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.domain.ai.EmbeddingModel;
+import com.jobmatcher.api.domain.ai.EmbeddingModelRole;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.repository.EmbeddingModelRepository;
+import com.jobmatcher.api.repository.JobRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Embedding versionati per modello. job.embedding / cv_file.embedding contengono sempre vettori
+ * del modello ATTIVO, quindi il matching confronta solo vettori dello stesso spazio.
+ * Quando il servizio AI passa a un nuovo modello i suoi vettori vanno in job_embedding / cv_embedding;
+ * superata la soglia di copertura, cutover() li promuove tutti in una transazione.
+ */
+@Service
+public class EmbeddingVersions {
+
+    public record Coverage(String model, long jobs, long jobsWithModel, long cvs, long cvsWithModel) {
+        public double jobRatio() { return jobs == 0 ? 1.0 : (double) jobsWithModel / jobs; }
+        public double cvRatio() { return cvs == 0 ? 1.0 : (double) cvsWithModel / cvs; }
+    }
+
+    private final EmbeddingModelRepository modelRepo;
+    private final JobRepository jobRepo;
+    private final CvFileRepository cvRepo;
+    private final ApplicationEventPublisher events;
+
+    private volatile String activeModel;
+    private volatile Instant activeSince;
+    private volatile boolean loaded = false;
+
+    public EmbeddingVersions(EmbeddingModelRepository modelRepo, JobRepository jobRepo, CvFileRepository cvRepo,
+                             ApplicationEventPublisher events) {
+        this.modelRepo = modelRepo;
+        this.jobRepo = jobRepo;
+        this.cvRepo = cvRepo;
+        this.events = events;
+    }
+
+    /** Modello usato dal matching; null finché non è stato calcolato nessun embedding. */
+    public String activeModel() {
+        if (!loaded) refresh();
+        return activeModel;
+    }
+
+    /** Attivazione del modello attivo (orologio del DB): i like valutati prima vanno ricalcolati. */
+    public Instant activeSince() {
+        if (!loaded) refresh();
+        return activeSince;
+    }
+
+    /**
+     * Applica l'embedding al job: modello attivo => job.embedding (true, il chiamante salva il job),
+     * altro modello => job_embedding, accanto al vettore attuale (false).
+     */
+    public boolean applyJob(Job job, byte[] embedding, String model) {
+        if (isActive(model)) {
+            job.setEmbedding(embedding);
+            job.setEmbeddingModel(model);
+            job.setEmbeddingUpdatedAt(Instant.now());
+            return true;
+        }
+        if (job.getId() != null) jobRepo.upsertVersionedEmbedding(job.getId(), model, embedding);
+        return false;
+    }
+
+    /** Come applyJob, per il CV. */
+    public boolean applyCv(CvFile cv, byte[] embedding, String model) {
+        if (isActive(model)) {
+            cv.setEmbedding(embedding);
+            cv.setEmbeddingModel(model);
+            return true;
+        }
+        if (cv.getId() != null) cvRepo.upsertVersionedEmbedding(cv.getId(), model, embedding);
+        return false;
+    }
+
+    /**
+     * Job PUBLISHED e CV PARSED che hanno un vettore di model (anche a fianco, se versioned).
+     * Per i CV contano solo quelli con testo estratto: gli altri non verranno mai ri-embeddati.
+     */
+    public Coverage coverage(String model, boolean versioned) {
+        return new Coverage(
+                model,
+                jobRepo.countByStatus(JobStatus.PUBLISHED),
+                jobRepo.countPublishedWithModel(model, versioned),
+                cvRepo.countParsedEmbeddable(),
+                cvRepo.countParsedWithModel(model, versioned)
+        );
+    }
+
+    /**
+     * Promuove target a modello attivo: i vettori attuali vengono archiviati (rollback),
+     * quelli di target copiati in job.embedding / cv_file.embedding, quelli di altri modelli azzerati
+     * (quei job/CV restano sul path keyword finché il reconciler non li ricalcola).
+     * I like non si toccano qui: LikeScorer li ricalcola a batch in background (quelli valutati prima di activeSince)
+     * e fino ad allora si servono gli score calcolati col modello precedente.
+     */
+    @Transactional
+    public void cutover(String target) {
+        String previous = activeModel();
+        if (Objects.equals(previous, target)) return;
+
+        jobRepo.archivePrimaryEmbeddings(target);
+        jobRepo.promoteVersionedEmbeddings(target);
+        jobRepo.clearPrimaryEmbeddingsNotOf(target);
+
+        cvRepo.archivePrimaryEmbeddings(target);
+        cvRepo.promoteVersionedEmbeddings(target);
+        cvRepo.clearPrimaryEmbeddingsNotOf(target);
+
+        if (previous != null) {
+            jobRepo.deleteVersionedEmbeddingsExcept(previous);
+            cvRepo.deleteVersionedEmbeddingsExcept(previous);
+        }
+
+        modelRepo.retireActive();
+        modelRepo.activate(target);
+
+        activeModel = target;
+        activeSince = modelRepo.findFirstByRole(EmbeddingModelRole.ACTIVE).map(EmbeddingModel::getActivatedAt).orElse(null);
+        loaded = true;
+        events.publishEvent(new EmbeddingModelCutoverEvent(previous, target));
+    }
+
+    // cutover fatto da un altro nodo: me ne accorgo qui e ricostruisco come se fosse locale
+    @Scheduled(fixedDelayString = "${jobmatcher.matching.embedding-reconciler.model-refresh-ms:30000}")
+    public void refresh() {
+        String before = activeModel;
+        boolean wasLoaded = loaded;
+        EmbeddingModel active = modelRepo.findFirstByRole(EmbeddingModelRole.ACTIVE).orElse(null);
+        String now = active != null ? active.getModel() : null;
+        activeModel = now;
+        activeSince = active != null ? active.getActivatedAt() : null;
+        loaded = true;
+        if (wasLoaded && now != null && !now.equals(before)) {
+            events.publishEvent(new EmbeddingModelCutoverEvent(before, now));
+        }
+    }
+
+    // sistema vuoto: il primo modello visto diventa attivo.
+    // Servizio AI che non dichiara il modello: non si può versionare, vale come attivo (comportamento storico)
+    private boolean isActive(String model) {
+        if (model == null) return true;
+        String active = activeModel();
+        if (model.equals(active)) return true;
+        if (active == null) modelRepo.claimFirstActive(model);
+        // prima di scrivere a fianco ricontrollo: il cutover può averlo fatto un altro nodo
+        refresh();
+        return model.equals(activeModel);
+    }
+}
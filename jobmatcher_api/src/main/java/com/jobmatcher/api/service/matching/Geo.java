@@ -0,0 +1,62 @@
+package com.jobmatcher.api.service.matching;
+
+/**
+ * Helper geografici condivisi: haversine esatta + bounding box per il prefiltro.
+ * Il box è un sovrainsieme del cerchio: chi passa il box viene poi verificato con haversine.
+ */
+public final class Geo {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private Geo() {}
+
+    public static Double distanceKm(Double lat1, Double lon1, Double lat2, Double lon2) {
+        if (lat1 == null || lon1 == null || lat2 == null || lon2 == null) return null;
+
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return EARTH_RADIUS_KM * c;
+    }
+
+    /**
+     * Box lat/lon che contiene il cerchio (centro, raggio). null se il centro manca (nessun filtro).
+     * Vicino ai poli o a cavallo dell'antimeridiano il box copre tutte le longitudini.
+     */
+    public static BoundingBox boxAround(Double lat, Double lon, double radiusKm) {
+        if (lat == null || lon == null) return null;
+
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = lat - dLat;
+        double maxLat = lat + dLat;
+
+        if (minLat <= -90.0 || maxLat >= 90.0) {
+            return new BoundingBox(Math.max(minLat, -90.0), Math.min(maxLat, 90.0), -180.0, 180.0);
+        }
+
+        double angular = radiusKm / EARTH_RADIUS_KM;
+        double dLon = Math.toDegrees(Math.asin(Math.min(1.0, Math.sin(angular) / Math.cos(Math.toRadians(lat)))));
+        double minLon = lon - dLon;
+        double maxLon = lon + dLon;
+
+        if (minLon < -180.0 || maxLon > 180.0) {
+            return new BoundingBox(minLat, maxLat, -180.0, 180.0);
+        }
+        return new BoundingBox(minLat, maxLat, minLon, maxLon);
+    }
+
+    public record BoundingBox(double minLat, double maxLat, double minLon, double maxLon) {
+
+        // job senza coordinate passano sempre (come prima: distanza null => score neutro)
+        public boolean contains(Double lat, Double lon) {
+            if (lat == null || lon == null) return true;
+            return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        }
+    }
+}
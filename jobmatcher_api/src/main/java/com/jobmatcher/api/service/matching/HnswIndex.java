@@ -0,0 +1,276 @@
+package com.jobmatcher.api.service.matching;
+
+import java.util.*;
+
+/**
+ * Indice HNSW (Hierarchical Navigable Small World) in memoria.
+ * Lavora su vettori già normalizzati L2: similarità = dot product (= cosine).
+ * Non è thread-safe: la sincronizzazione è a carico del chiamante (vedi JobVectorIndex).
+ * Le rimozioni sono tombstone: il nodo resta navigabile ma non compare nei risultati.
+ */
+public class HnswIndex {
+
+    public record Hit(UUID id, float similarity) {}
+
+    private record Candidate(int ord, float sim) {}
+
+    private static final Comparator<Candidate> BY_SIM = Comparator.comparingDouble(Candidate::sim);
+    private static final int MAX_LEVEL_CAP = 16;
+
+    private static final class Node {
+        final UUID id;
+        final float[] vec;
+        final int[][] links;      // links[l] = vicini al livello l
+        final int[] linkCounts;
+        boolean deleted;
+
+        Node(UUID id, float[] vec, int level, int m, int m0) {
+            this.id = id;
+            this.vec = vec;
+            this.links = new int[level + 1][];
+            this.linkCounts = new int[level + 1];
+            for (int l = 0; l <= level; l++) links[l] = new int[l == 0 ? m0 : m];
+        }
+    }
+
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private int efSearch;
+    private final double levelMult;
+    private final Random random = new Random(42); // livelli deterministici a parità di inserimenti
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<UUID, Integer> ordinals = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int dimension = 0;
+    private int deletedCount = 0;
+
+    public HnswIndex(int m, int efConstruction, int efSearch) {
+        this.m = Math.max(2, m);
+        this.m0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMult = 1.0 / Math.log(this.m);
+    }
+
+    public int size() { return ordinals.size(); }
+    public int deletedCount() { return deletedCount; }
+    public int dimension() { return dimension; }
+    public int maxLevel() { return maxLevel; }
+    public int getM() { return m; }
+    public int getEfConstruction() { return efConstruction; }
+    public int getEfSearch() { return efSearch; }
+    public void setEfSearch(int efSearch) { this.efSearch = Math.max(1, efSearch); }
+
+    public boolean contains(UUID id) { return ordinals.containsKey(id); }
+
+    /** Inserisce (o sostituisce) il vettore di id. Il vettore deve essere normalizzato. */
+    public void insert(UUID id, float[] vec) {
+        if (dimension == 0) dimension = vec.length;
+        if (vec.length != dimension) {
+            throw new IllegalArgumentException("Dimensione vettore " + vec.length + " != " + dimension);
+        }
+
+        remove(id);
+
+        int level = randomLevel();
+        int ord = nodes.size();
+        Node node = new Node(id, vec, level, m, m0);
+        nodes.add(node);
+        ordinals.put(id, ord);
+
+        if (entryPoint < 0) {
+            entryPoint = ord;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) ep = greedyClosest(vec, ep, l);
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> w = searchLayer(vec, ep, efConstruction, l);
+            List<Candidate> selected = selectNeighbors(w, m);
+            int maxConn = (l == 0) ? m0 : m;
+            for (Candidate c : selected) {
+                node.links[l][node.linkCounts[l]++] = c.ord();
+                connect(c.ord(), l, ord, maxConn);
+            }
+            ep = w.get(0).ord();
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = ord;
+        }
+    }
+
+    public boolean remove(UUID id) {
+        Integer ord = ordinals.remove(id);
+        if (ord == null) return false;
+        nodes.get(ord).deleted = true;
+        deletedCount++;
+        return true;
+    }
+
+    /** Top-k per similarità decrescente (solo nodi non cancellati). */
+    public List<Hit> search(float[] query, int k) {
+        if (entryPoint < 0 || k <= 0 || ordinals.isEmpty() || query.length != dimension) return List.of();
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) ep = greedyClosest(query, ep, l);
+
+        // i tombstone occupano posti nel beam: allargo un po' ef per compensare
+        int ef = Math.max(efSearch, k) + Math.min(deletedCount, k);
+        List<Candidate> w = searchLayer(query, ep, ef, 0);
+
+        List<Hit> out = new ArrayList<>(Math.min(k, w.size()));
+        for (Candidate c : w) {
+            Node n = nodes.get(c.ord());
+            if (n.deleted) continue;
+            out.add(new Hit(n.id, c.sim()));
+            if (out.size() == k) break;
+        }
+        return out;
+    }
+
+    /** Vettori vivi (per ricostruire l'indice senza tombstone). */
+    public Map<UUID, float[]> liveVectors() {
+        Map<UUID, float[]> out = new LinkedHashMap<>();
+        for (Map.Entry<UUID, Integer> e : ordinals.entrySet()) out.put(e.getKey(), nodes.get(e.getValue()).vec);
+        return out;
+    }
+
+    /** Stima grezza dell'occupazione heap (vettori + grafo + mappe). */
+    public long estimatedMemoryBytes() {
+        long bytes = 0;
+        for (Node n : nodes) {
+            bytes += 16L + 4L * n.vec.length;     // float[]
+            bytes += 40L;                           // Node + UUID
+            for (int[] l : n.links) bytes += 16L + 4L * l.length;
+            bytes += 16L + 4L * n.linkCounts.length;
+        }
+        bytes += 64L * ordinals.size();             // HashMap entry + Integer
+        return bytes;
+    }
+
+    // ---------------- internals ----------------
+
+    private int randomLevel() {
+        double r = -Math.log(1.0 - random.nextDouble()) * levelMult;
+        return Math.min((int) r, MAX_LEVEL_CAP);
+    }
+
+    private float sim(float[] q, int ord) {
+        return Vectors.dot(q, nodes.get(ord).vec);
+    }
+
+    private int greedyClosest(float[] q, int ep, int level) {
+        int cur = ep;
+        float best = sim(q, cur);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            Node n = nodes.get(cur);
+            int[] links = n.links[level];
+            for (int i = 0; i < n.linkCounts[level]; i++) {
+                float s = sim(q, links[i]);
+                if (s > best) {
+                    best = s;
+                    cur = links[i];
+                    changed = true;
+                }
+            }
+        }
+        return cur;
+    }
+
+    // beam search su un livello; risultato ordinato per similarità decrescente
+    private List<Candidate> searchLayer(float[] q, int ep, int ef, int level) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(BY_SIM.reversed());
+        PriorityQueue<Candidate> results = new PriorityQueue<>(BY_SIM);
+
+        Candidate start = new Candidate(ep, sim(q, ep));
+        visited.set(ep);
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate c = frontier.poll();
+            if (results.size() >= ef && c.sim() < results.peek().sim()) break;
+
+            Node n = nodes.get(c.ord());
+            int[] links = n.links[level];
+            for (int i = 0; i < n.linkCounts[level]; i++) {
+                int nb = links[i];
+                if (visited.get(nb)) continue;
+                visited.set(nb);
+
+                float s = sim(q, nb);
+                if (results.size() < ef || s > results.peek().sim()) {
+                    Candidate nc = new Candidate(nb, s);
+                    frontier.add(nc);
+                    results.add(nc);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+
+        List<Candidate> out = new ArrayList<>(results);
+        out.sort(BY_SIM.reversed());
+        return out;
+    }
+
+    // euristica HNSW: scarto un candidato se è più vicino a un vicino già scelto che alla query
+    private List<Candidate> selectNeighbors(List<Candidate> sorted, int max) {
+        List<Candidate> selected = new ArrayList<>(max);
+        BitSet taken = new BitSet();
+        for (Candidate c : sorted) {
+            if (selected.size() >= max) break;
+            float[] cv = nodes.get(c.ord()).vec;
+            boolean good = true;
+            for (Candidate s : selected) {
+                if (Vectors.dot(cv, nodes.get(s.ord()).vec) > c.sim()) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                selected.add(c);
+                taken.set(c.ord());
+            }
+        }
+        // riempio con i più vicini scartati (keepPrunedConnections)
+        for (Candidate c : sorted) {
+            if (selected.size() >= max) break;
+            if (!taken.get(c.ord())) {
+                selected.add(c);
+                taken.set(c.ord());
+            }
+        }
+        return selected;
+    }
+
+    private void connect(int target, int level, int newOrd, int maxConn) {
+        Node t = nodes.get(target);
+        if (t.linkCounts[level] < maxConn) {
+            t.links[level][t.linkCounts[level]++] = newOrd;
+            return;
+        }
+
+        List<Candidate> cands = new ArrayList<>(maxConn + 1);
+        for (int i = 0; i < t.linkCounts[level]; i++) {
+            int o = t.links[level][i];
+            cands.add(new Candidate(o, Vectors.dot(t.vec, nodes.get(o).vec)));
+        }
+        cands.add(new Candidate(newOrd, Vectors.dot(t.vec, nodes.get(newOrd).vec)));
+        cands.sort(BY_SIM.reversed());
+
+        List<Candidate> sel = selectNeighbors(cands, maxConn);
+        for (int i = 0; i < sel.size(); i++) t.links[level][i] = sel.get(i).ord();
+        t.linkCounts[level] = sel.size();
+    }
+}
@@ -0,0 +1,6 @@
+package com.jobmatcher.api.service.matching;
+
+import java.util.UUID;
+
+// pubblicato quando cambia l'embedding di un job: i like su quel job vanno ricalcolati
+public record JobEmbeddingChangedEvent(UUID jobId) {}
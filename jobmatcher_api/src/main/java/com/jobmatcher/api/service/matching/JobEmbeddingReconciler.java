@@ -0,0 +1,225 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.exception.ServiceUnavailableException;
+import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.repository.JobRepository;
+import com.jobmatcher.api.service.CvService;
+import com.jobmatcher.api.service.JobService;
+import com.jobmatcher.api.service.ai.AiModelResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Recupera i job PUBLISHED e i CV PARSED senza vettore del modello servito dal servizio AI
+ * (AI giù alla create/publish, oppure modello cambiato).
+ * Se il modello servito non è quello attivo i vettori vanno a fianco (EmbeddingVersions) e il matching
+ * continua sul modello attivo; quando la copertura supera cutoverCoverage si fa il cutover.
+ * Lo stato è tutto su DB: dopo un riavvio riparte da solo.
+ * Ogni giro elabora al più maxPerRun elementi, in batch da batchSize. Se un batch fallisce per un singolo
+ * elemento (es. 4xx sul testo) si riprova uno per uno e si va oltre quelli che falliscono;
+ * con AI non disponibile ci si ferma e si riprende dallo stesso punto. Job e CV avanzano indipendentemente.
+ */
+@Component
+public class JobEmbeddingReconciler {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final JobRepository jobRepo;
+    private final CvFileRepository cvRepo;
+    private final JobService jobService;
+    private final CvService cvService;
+    private final EmbeddingVersions versions;
+    private final AiModelResolver models;
+    private final MatchingProperties.EmbeddingReconciler props;
+
+    private final AtomicLong backlog = new AtomicLong(-1);
+    private final AtomicLong reembedded = new AtomicLong();
+    private final AtomicReference<EmbeddingVersions.Coverage> coverage = new AtomicReference<>();
+    private final Counter jobItemFailures;
+    private final Counter cvItemFailures;
+    private final Counter jobPhaseErrors;
+    private final Counter cvPhaseErrors;
+
+    // id da cui riprendere: un job/CV che fallisce sempre non blocca quelli dopo
+    private UUID jobAfter = MIN_ID;
+    private UUID cvAfter = MIN_ID;
+    private String cursorModel;
+
+    public JobEmbeddingReconciler(JobRepository jobRepo, CvFileRepository cvRepo, JobService jobService,
+                                  CvService cvService, EmbeddingVersions versions, AiModelResolver models,
+                                  MatchingProperties props, MeterRegistry meters) {
+        this.jobRepo = jobRepo;
+        this.cvRepo = cvRepo;
+        this.jobService = jobService;
+        this.cvService = cvService;
+        this.versions = versions;
+        this.models = models;
+        this.props = props.getEmbeddingReconciler();
+
+        Gauge.builder("jobmatcher.jobs.embedding.backlog", backlog, AtomicLong::get)
+                .description("Job PUBLISHED senza vettore del modello servito (-1 = non ancora misurato)")
+                .register(meters);
+        Gauge.builder("jobmatcher.jobs.embedding.reconciled", reembedded, AtomicLong::get)
+                .description("Job e CV ri-embeddati dal reconciler dall'avvio")
+                .register(meters);
+        Gauge.builder("jobmatcher.embedding.coverage", coverage, c -> c.get() == null ? -1 : c.get().jobRatio())
+                .description("Quota di job PUBLISHED con vettore del modello servito")
+                .tag("kind", "job")
+                .register(meters);
+        Gauge.builder("jobmatcher.embedding.coverage", coverage, c -> c.get() == null ? -1 : c.get().cvRatio())
+                .description("Quota di CV PARSED con vettore del modello servito")
+                .tag("kind", "cv")
+                .register(meters);
+        jobItemFailures = failures(meters, "job", "item");
+        cvItemFailures = failures(meters, "cv", "item");
+        jobPhaseErrors = failures(meters, "job", "error");
+        cvPhaseErrors = failures(meters, "cv", "error");
+    }
+
+    @Scheduled(initialDelayString = "${jobmatcher.matching.embedding-reconciler.interval-ms:60000}",
+            fixedDelayString = "${jobmatcher.matching.embedding-reconciler.interval-ms:60000}")
+    public synchronized void reconcile() {
+        if (!props.isEnabled()) return;
+
+        String target = targetModel();
+        if (target == null) {
+            reconcileUnknownModel();
+            return;
+        }
+        if (!target.equals(cursorModel)) {
+            jobAfter = MIN_ID;
+            cvAfter = MIN_ID;
+            cursorModel = target;
+        }
+
+        // migrazione: contano anche i vettori a fianco; altrimenti solo job.embedding / cv_file.embedding
+        String active = versions.activeModel();
+        boolean migrating = active != null && !active.equals(target);
+
+        int batchSize = Math.max(1, props.getBatchSize());
+        int budget = Math.max(batchSize, props.getMaxPerRun());
+        try {
+            while (budget > 0) {
+                List<Job> batch = jobRepo.findPublishedMissingModel(target, migrating, jobAfter, Math.min(batchSize, budget));
+                if (batch.isEmpty()) {
+                    jobAfter = MIN_ID; // fine giro: il prossimo riparte dall'inizio
+                    break;
+                }
+                budget -= batch.size();
+                Progress p = reembed(batch, Job::getId, jobService::reembed, jobItemFailures);
+                if (p.after() != null) jobAfter = p.after();
+                if (p.stop()) break;
+            }
+        } catch (RuntimeException e) {
+            // DB non disponibile: riprovo al prossimo giro dallo stesso punto, i CV provano comunque
+            jobPhaseErrors.increment();
+        }
+        try {
+            while (budget > 0) {
+                List<CvFile> batch = cvRepo.findParsedMissingModel(target, migrating, cvAfter, Math.min(batchSize, budget));
+                if (batch.isEmpty()) {
+                    cvAfter = MIN_ID;
+                    break;
+                }
+                budget -= batch.size();
+                Progress p = reembed(batch, CvFile::getId, cvService::reembed, cvItemFailures);
+                if (p.after() != null) cvAfter = p.after();
+                if (p.stop()) break;
+            }
+        } catch (RuntimeException e) {
+            cvPhaseErrors.increment();
+        }
+
+        EmbeddingVersions.Coverage c = versions.coverage(target, migrating);
+        coverage.set(c);
+        backlog.set(c.jobs() - c.jobsWithModel());
+
+        double threshold = props.getCutoverCoverage();
+        if (migrating && c.jobRatio() >= threshold && c.cvRatio() >= threshold) {
+            versions.cutover(target);
+        }
+    }
+
+    public long backlog() {
+        return backlog.get();
+    }
+
+    // modello sconosciuto (AI giù o senza /health): recupero solo i job senza embedding
+    private void reconcileUnknownModel() {
+        int batchSize = Math.max(1, props.getBatchSize());
+        int budget = Math.max(batchSize, props.getMaxPerRun());
+        try {
+            while (budget > 0) {
+                List<Job> batch = jobRepo.findEmbeddingBacklog(JobStatus.PUBLISHED, false, "", jobAfter,
+                        PageRequest.of(0, Math.min(batchSize, budget)));
+                if (batch.isEmpty()) {
+                    jobAfter = MIN_ID;
+                    break;
+                }
+                budget -= batch.size();
+                Progress p = reembed(batch, Job::getId, jobService::reembed, jobItemFailures);
+                if (p.after() != null) jobAfter = p.after();
+                if (p.stop()) break;
+            }
+        } catch (RuntimeException e) {
+            jobPhaseErrors.increment();
+        } finally {
+            backlog.set(jobRepo.countEmbeddingBacklog(JobStatus.PUBLISHED, false, ""));
+        }
+    }
+
+    // id fino a cui avanzare (null = nessun progresso); stop => AI non disponibile, fine del giro per questa fase
+    private record Progress(UUID after, boolean stop) {}
+
+    private <T> Progress reembed(List<T> batch, Function<T, UUID> idOf, ToIntFunction<List<T>> reembed, Counter failures) {
+        try {
+            reembedded.addAndGet(reembed.applyAsInt(batch));
+            return new Progress(idOf.apply(batch.get(batch.size() - 1)), false);
+        } catch (ServiceUnavailableException e) {
+            return new Progress(null, true);
+        } catch (RuntimeException e) {
+            // un elemento non valido fa fallire tutto il batch: uno per uno, oltre quelli che falliscono
+        }
+        UUID after = null;
+        for (T item : batch) {
+            try {
+                reembedded.addAndGet(reembed.applyAsInt(List.of(item)));
+            } catch (ServiceUnavailableException e) {
+                return new Progress(after, true);
+            } catch (RuntimeException e) {
+                failures.increment();
+            }
+            after = idOf.apply(item);
+        }
+        return new Progress(after, false);
+    }
+
+    private static Counter failures(MeterRegistry meters, String kind, String reason) {
+        return Counter.builder("jobmatcher.embedding.reconcile.failures")
+                .description("Elementi saltati (item) o giri interrotti da errori non AI (error) del reconciler")
+                .tag("kind", kind)
+                .tag("reason", reason)
+                .register(meters);
+    }
+
+    // modello configurato o dichiarato dal servizio AI; null se sconosciuto
+    private String targetModel() {
+        if (props.getModel() != null && !props.getModel().isBlank()) return props.getModel().trim();
+        return models.currentModel();
+    }
+}
@@ -0,0 +1,245 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.repository.JobRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice invertito token -> job PUBLISHED, costruito dai token salvati su job.tokens.
+ * Una ricerca tocca solo le posting list dei token del CV, non tutto il catalogo.
+ * Aggiornato da JobService a ogni create/cambio stato, come JobVectorIndex; come lì, ricostruzione
+ * e compattazione avvengono fuori dal lock e i save arrivati nel frattempo vengono riapplicati prima dello scambio.
+ */
+@Service
+public class JobKeywordIndex {
+
+    public record Hit(UUID id, int shared, double jaccard) {}
+
+    private static final int[] EMPTY_POSTING = new int[0];
+
+    private final JobRepository jobRepo;
+    private final MatchScoringEngine scoring;
+    private final MatchingProperties.KeywordIndex props;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Postings index = new Postings();
+    private volatile boolean ready = false;
+
+    // save arrivati durante una ricostruzione (null = rimosso); null se non c'è ricostruzione in corso
+    private Map<UUID, TokenSet> pendingDuringRebuild;
+
+    public JobKeywordIndex(JobRepository jobRepo, MatchScoringEngine scoring, MatchingProperties props) {
+        this.jobRepo = jobRepo;
+        this.scoring = scoring;
+        this.props = props.getKeywordIndex();
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!props.isEnabled()) return;
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings fresh = new Postings();
+        try {
+            // job pubblicati prima dell'introduzione di job.tokens: calcolo e salvo una volta
+            List<Job> published = jobRepo.findByStatusOrderByCreatedAtDesc(JobStatus.PUBLISHED);
+            List<Job> backfill = new ArrayList<>();
+            for (Job j : published) {
+                if (j.getTokens() == null) {
+                    j.setTokens(scoring.tokenizeJob(j).toArray());
+                    backfill.add(j);
+                }
+            }
+            if (!backfill.isEmpty()) jobRepo.saveAll(backfill);
+
+            for (Job j : published) fresh.insert(j.getId(), TokenSet.fromSorted(j.getTokens()));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        swapIn(fresh);
+    }
+
+    // chiamato dopo ogni save di un job: PUBLISHED => dentro, altrimenti fuori
+    public void onJobSaved(Job job) {
+        if (!props.isEnabled() || job == null || job.getId() == null) return;
+
+        TokenSet tokens = job.getStatus() == JobStatus.PUBLISHED ? scoring.jobTokens(job) : null;
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) pendingDuringRebuild.put(job.getId(), tokens);
+            index.put(job.getId(), tokens);
+            compact = pendingDuringRebuild == null && index.needsCompaction();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) compact();
+    }
+
+    /**
+     * Job che condividono almeno minSharedTokens token "selettivi" col CV, per Jaccard decrescente.
+     * Lista vuota solo se l'indice non è pronto: il chiamante usa il fallback.
+     * Un save concorrente tiene il write lock per un solo inserimento (la ricostruzione è fuori lock),
+     * quindi la ricerca aspetta invece di ricadere sulla sola prossimità.
+     */
+    public List<Hit> search(TokenSet query, int limit) {
+        if (!props.isEnabled() || !ready || query == null || query.isEmpty() || limit <= 0) return List.of();
+        lock.readLock().lock();
+        try {
+            Postings ix = index;
+            if (ix.live() == 0) return List.of();
+            // le posting list contano anche i tombstone: soglia sugli ordinali totali, non sui soli vivi
+            int maxPosting = Math.max(1, (int) (ix.ids.size() * props.getMaxPostingRatio()));
+
+            // conteggi solo per gli ordinali toccati: memoria proporzionale alle posting list, non al catalogo
+            Map<Integer, int[]> counts = new HashMap<>();
+            for (String t : query.asList()) {
+                int[] p = ix.postings.get(t);
+                if (p == null) continue;
+                int n = ix.postingSizes.get(t);
+                if (n > maxPosting) continue; // quasi-stopword: non discrimina, non la scorro
+                for (int i = 0; i < n; i++) {
+                    counts.computeIfAbsent(p[i], k -> new int[1])[0]++;
+                }
+            }
+
+            int minShared = Math.max(1, props.getMinSharedTokens());
+            TopK<Hit> top = new TopK<>(limit, Comparator.comparing(Hit::id));
+            for (Map.Entry<Integer, int[]> c : counts.entrySet()) {
+                if (c.getValue()[0] < minShared) continue;
+                int ord = c.getKey();
+                TokenSet jt = ix.tokensByOrd.get(ord);
+                if (jt == null) continue;
+                double jaccard = scoring.keywordScore(query, jt);
+                if (top.wouldAccept(jaccard)) top.offer(jaccard, new Hit(ix.ids.get(ord), jt.intersectionSize(query), jaccard));
+            }
+            return top.drainDescending();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.live();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    // troppi tombstone: ricostruzione dai job vivi, fuori lock come rebuild()
+    private synchronized void compact() {
+        Map<UUID, TokenSet> live;
+        lock.writeLock().lock();
+        try {
+            if (!index.needsCompaction()) return; // già compattato da un altro save
+            pendingDuringRebuild = new HashMap<>();
+            live = index.liveTokens();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Postings fresh = new Postings();
+        live.forEach(fresh::insert);
+        swapIn(fresh);
+    }
+
+    // riapplica i save arrivati durante la costruzione e sostituisce l'indice
+    private void swapIn(Postings fresh) {
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild.forEach(fresh::put);
+            pendingDuringRebuild = null;
+            index = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ordinale -> job (tokens null se rimosso), posting list di ordinali in ordine di inserimento
+    private static final class Postings {
+
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<TokenSet> tokensByOrd = new ArrayList<>();
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        private final Map<String, int[]> postings = new HashMap<>();
+        private final Map<String, Integer> postingSizes = new HashMap<>();
+        private int deleted = 0;
+
+        int live() {
+            return ids.size() - deleted;
+        }
+
+        // tokens null => rimosso
+        void put(UUID id, TokenSet tokens) {
+            remove(id);
+            if (tokens != null) insert(id, tokens);
+        }
+
+        void insert(UUID id, TokenSet tokens) {
+            int ord = ids.size();
+            ids.add(id);
+            tokensByOrd.add(tokens);
+            ordinals.put(id, ord);
+            for (String t : tokens.asList()) {
+                int[] p = postings.getOrDefault(t, EMPTY_POSTING);
+                int n = postingSizes.getOrDefault(t, 0);
+                if (n == p.length) {
+                    p = Arrays.copyOf(p, Math.max(4, n * 2));
+                    postings.put(t, p);
+                }
+                p[n] = ord;
+                postingSizes.put(t, n + 1);
+            }
+        }
+
+        // tombstone: l'ordinale resta nelle posting list ma viene saltato in ricerca
+        void remove(UUID id) {
+            Integer ord = ordinals.remove(id);
+            if (ord == null) return;
+            tokensByOrd.set(ord, null);
+            deleted++;
+        }
+
+        boolean needsCompaction() {
+            return deleted > 0 && deleted * 2 > ids.size();
+        }
+
+        Map<UUID, TokenSet> liveTokens() {
+            Map<UUID, TokenSet> live = new LinkedHashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (tokensByOrd.get(i) != null) live.put(ids.get(i), tokensByOrd.get(i));
+            }
+            return live;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.dto.VectorIndexStatsDTO;
+import com.jobmatcher.api.repository.JobRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice ANN dei job PUBLISHED costruito dagli embedding.
+ * Caricato all'avvio e aggiornato da JobService a ogni create/cambio stato.
+ * La ricostruzione (avvio, cutover del modello, compattazione dei tombstone) avviene fuori dal lock: i save arrivati nel frattempo
+ * vengono registrati e riapplicati al nuovo indice prima dello scambio.
+ */
+@Service
+public class JobVectorIndex {
+
+    private final JobRepository jobRepo;
+    private final MatchingProperties.VectorIndex props;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private HnswIndex index;
+    private volatile boolean ready = false;
+
+    // save arrivati durante una ricostruzione (null = rimosso); null se non c'è ricostruzione in corso
+    private Map<UUID, float[]> pendingDuringRebuild;
+
+    private final AtomicLong skippedDimensionMismatch = new AtomicLong();
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    public JobVectorIndex(JobRepository jobRepo, MatchingProperties props) {
+        this.jobRepo = jobRepo;
+        this.props = props.getVectorIndex();
+        this.index = newIndex();
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!props.isEnabled()) return;
+
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        HnswIndex fresh = newIndex();
+        long skipped = 0;
+        try {
+            for (Job j : jobRepo.findByStatusOrderByCreatedAtDesc(JobStatus.PUBLISHED)) {
+                if (!insertInto(fresh, j.getId(), EmbeddingCodec.decodeNormalized(j.getEmbedding()))) skipped++;
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        swapIn(fresh, skipped);
+    }
+
+    // troppi tombstone: ricostruzione dai vettori vivi, fuori lock come rebuild()
+    private synchronized void compact() {
+        Map<UUID, float[]> live;
+        lock.writeLock().lock();
+        try {
+            if (!needsCompactionLocked()) return; // già compattato da un altro save
+            pendingDuringRebuild = new HashMap<>();
+            live = index.liveVectors();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        HnswIndex fresh = newIndex();
+        live.forEach(fresh::insert);
+        swapIn(fresh, skippedDimensionMismatch.get());
+    }
+
+    // riapplica i save arrivati durante la costruzione e sostituisce l'indice
+    private void swapIn(HnswIndex fresh, long skipped) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<UUID, float[]> p : pendingDuringRebuild.entrySet()) {
+                if (!insertInto(fresh, p.getKey(), p.getValue())) skipped++;
+            }
+            pendingDuringRebuild = null;
+            index = fresh;
+            skippedDimensionMismatch.set(skipped);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // nuovo modello attivo: i vettori nell'indice sono di un altro spazio, niente ricerche finché non è ricostruito
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onModelCutover(EmbeddingModelCutoverEvent event) {
+        ready = false;
+        rebuild();
+    }
+
+    // chiamato dopo ogni save di un job: PUBLISHED con embedding => dentro, altrimenti fuori
+    public void onJobSaved(Job job) {
+        if (!props.isEnabled() || job == null || job.getId() == null) return;
+
+        float[] vec = job.getStatus() == JobStatus.PUBLISHED
+                ? EmbeddingCodec.decodeNormalized(job.getEmbedding())
+                : null;
+
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) pendingDuringRebuild.put(job.getId(), vec);
+            if (!insertInto(index, job.getId(), vec)) skippedDimensionMismatch.incrementAndGet();
+            compact = pendingDuringRebuild == null && needsCompactionLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (compact) compact();
+    }
+
+    /**
+     * Top-k job più simili al vettore (già normalizzato).
+     * Lista vuota solo se l'indice non è pronto: il chiamante usa il fallback.
+     * Un save concorrente tiene il write lock per un solo inserimento (la ricostruzione è fuori lock),
+     * quindi la ricerca aspetta invece di ricadere sulla scansione completa.
+     */
+    public List<HnswIndex.Hit> search(float[] query, int k) {
+        if (!props.isEnabled() || !ready || query == null) return List.of();
+        lock.readLock().lock();
+        try {
+            long t0 = System.nanoTime();
+            List<HnswIndex.Hit> hits = index.search(query, k);
+            searches.increment();
+            searchNanos.add(System.nanoTime() - t0);
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public VectorIndexStatsDTO stats() {
+        lock.readLock().lock();
+        try {
+            long n = searches.sum();
+            return new VectorIndexStatsDTO(
+                    props.isEnabled(),
+                    ready,
+                    index.size(),
+                    index.deletedCount(),
+                    index.dimension(),
+                    index.maxLevel(),
+                    index.getM(),
+                    index.getEfConstruction(),
+                    index.getEfSearch(),
+                    skippedDimensionMismatch.get(),
+                    index.estimatedMemoryBytes(),
+                    n,
+                    n == 0 ? 0.0 : (searchNanos.sum() / 1000.0) / n
+            );
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    private HnswIndex newIndex() {
+        return new HnswIndex(props.getM(), props.getEfConstruction(), props.getEfSearch());
+    }
+
+    // false se il vettore è stato scartato per dimensione diversa
+    private static boolean insertInto(HnswIndex target, UUID id, float[] vec) {
+        if (vec == null) {
+            target.remove(id);
+            return true;
+        }
+        if (target.dimension() != 0 && target.dimension() != vec.length) {
+            // modello diverso dal resto dell'indice: il job resta sul path di fallback
+            target.remove(id);
+            return false;
+        }
+        target.insert(id, vec);
+        return true;
+    }
+
+    private boolean needsCompactionLocked() {
+        int deleted = index.deletedCount();
+        int total = deleted + index.size();
+        return total > 0 && (double) deleted / total >= props.getRebuildDeletedRatio();
+    }
+}
@@ -0,0 +1,69 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.job.JobSwipe;
+import com.jobmatcher.api.domain.job.SwipeAction;
+import com.jobmatcher.api.repository.JobSwipeRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dopo un cutover del modello di embedding ricalcola i like valutati prima dell'attivazione,
+ * un batch per giro in ordine di id: fino alla riscrittura di ogni batch le viste match servono
+ * gli score del modello precedente, niente UPDATE di massa né ricalcolo sul path di lettura.
+ * Lo stato è su DB (scoredAt vs activatedAt): i nodi saltano i like già riscritti da altri
+ * e dopo un riavvio si riparte da soli.
+ */
+@Component
+public class LikeCutoverRescorer {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private final JobSwipeRepository swipeRepo;
+    private final EmbeddingVersions versions;
+    private final LikeScorer likeScorer;
+    private final MatchingProperties.LikeRescore props;
+
+    // attivazione a cui si riferisce il cursore; done => giro completo, fermo fino al prossimo cutover
+    private Instant since;
+    private UUID after = MIN_ID;
+    private boolean done = false;
+
+    public LikeCutoverRescorer(JobSwipeRepository swipeRepo, EmbeddingVersions versions, LikeScorer likeScorer,
+                               MatchingProperties props) {
+        this.swipeRepo = swipeRepo;
+        this.versions = versions;
+        this.likeScorer = likeScorer;
+        this.props = props.getLikeRescore();
+    }
+
+    @Scheduled(fixedDelayString = "${jobmatcher.matching.like-rescore.interval-ms:2000}")
+    public synchronized void rescoreBatch() {
+        Instant active = versions.activeSince();
+        if (active == null) return;
+        if (!active.equals(since)) {
+            since = active;
+            after = MIN_ID;
+            done = false;
+        }
+        if (done) return;
+
+        try {
+            List<JobSwipe> batch = swipeRepo.findScoredBefore(SwipeAction.LIKE, since, after,
+                    PageRequest.of(0, Math.max(1, props.getBatchSize())));
+            if (batch.isEmpty()) {
+                done = true;
+                return;
+            }
+            likeScorer.rescore(batch);
+            after = batch.get(batch.size() - 1).getId();
+        } catch (RuntimeException ignored) {
+            // DB non disponibile: riprovo al prossimo giro dallo stesso punto
+        }
+    }
+}
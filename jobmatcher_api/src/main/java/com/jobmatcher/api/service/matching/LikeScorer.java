@@ -0,0 +1,235 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.AsyncConfig;
+import com.jobmatcher.api.domain.candidate.CandidateProfile;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobSwipe;
+import com.jobmatcher.api.domain.job.SwipeAction;
+import com.jobmatcher.api.repository.CandidateProfileRepository;
+import com.jobmatcher.api.repository.CvAnalysisRepository;
+import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.repository.JobRepository;
+import com.jobmatcher.api.repository.JobSwipeRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Score dei LIKE salvati su job_swipe: calcolati allo swipe, ricalcolati in background
+ * quando cambia l'embedding del job o il CV attivo del candidato.
+ * Le viste match leggono solo questi valori (textScore per il candidato, companyScore per l'azienda):
+ * i like non aggiornati trovati in lettura sono solo segnalati e ricalcolati dal giro schedulato.
+ */
+@Service
+public class LikeScorer {
+
+    public static final double NO_CV_SCORE = 0.10;
+    private static final int REASONS = 5;
+
+    private record CvInputs(UUID cvId, float[] vec, TokenSet tokens) {}
+
+    private record JobInputs(float[] vec, TokenSet tokens) {}
+
+    private final JobSwipeRepository swipeRepo;
+    private final JobRepository jobRepo;
+    private final CvFileRepository cvRepo;
+    private final CvAnalysisRepository analysisRepo;
+    private final CandidateProfileRepository profileRepo;
+    private final MatchScoringEngine scoring;
+
+    // richieste dalle letture, svuotate da rescoreRequested(): candidato -> CV attivo, job con like pendenti
+    private final Map<String, UUID> staleCandidates = new ConcurrentHashMap<>();
+    private final Set<UUID> pendingJobs = ConcurrentHashMap.newKeySet();
+
+    public LikeScorer(JobSwipeRepository swipeRepo, JobRepository jobRepo, CvFileRepository cvRepo,
+                      CvAnalysisRepository analysisRepo, CandidateProfileRepository profileRepo,
+                      MatchScoringEngine scoring) {
+        this.swipeRepo = swipeRepo;
+        this.jobRepo = jobRepo;
+        this.cvRepo = cvRepo;
+        this.analysisRepo = analysisRepo;
+        this.profileRepo = profileRepo;
+        this.scoring = scoring;
+    }
+
+    /** Valuta lo swipe (non salva): LIKE => score, altrimenti score azzerati. */
+    public void score(JobSwipe swipe, Job job) {
+        if (swipe.getAction() != SwipeAction.LIKE) {
+            clear(swipe);
+            return;
+        }
+        String candidate = swipe.getCandidateUsername();
+        CvInputs cv = loadCandidateCvs(Set.of(candidate)).get(candidate);
+        apply(swipe, jobInputs(job), cv);
+    }
+
+    /** Like dei job indicati mai valutati (es. precedenti alla colonna): li valuto ora, in blocco. */
+    public void scorePendingForJobs(Collection<UUID> jobIds) {
+        if (jobIds.isEmpty()) return;
+        List<JobSwipe> pending = swipeRepo.findByJobIdInAndActionAndScoredAtIsNull(jobIds, SwipeAction.LIKE);
+        if (!pending.isEmpty()) rescore(pending);
+    }
+
+    /** Like del candidato non valutati o valutati con un altro CV; ritorna quanti ne ha trovati. */
+    public int scoreStaleForCandidate(String candidate, UUID activeCvId) {
+        List<JobSwipe> stale = swipeRepo.findStaleByCandidate(candidate, SwipeAction.LIKE, activeCvId);
+        if (!stale.isEmpty()) rescore(stale);
+        return stale.size();
+    }
+
+    /** Dal path di lettura: i like del candidato verranno riallineati al CV attivo in background. */
+    public void requestStaleRescore(String candidate, UUID activeCvId) {
+        staleCandidates.put(candidate, activeCvId);
+    }
+
+    /** Dal path di lettura: i like mai valutati di questi job verranno valutati in background. */
+    public void requestPendingRescore(Collection<UUID> jobIds) {
+        pendingJobs.addAll(jobIds);
+    }
+
+    // la richiesta si toglie solo se nel frattempo non è cambiata (CV attivo diverso => resta per il giro dopo)
+    @Scheduled(fixedDelayString = "${jobmatcher.matching.like-rescore.interval-ms:2000}")
+    public void rescoreRequested() {
+        if (!pendingJobs.isEmpty()) {
+            List<UUID> jobIds = List.copyOf(pendingJobs);
+            try {
+                scorePendingForJobs(jobIds);
+                jobIds.forEach(pendingJobs::remove);
+            } catch (RuntimeException ignored) {
+                // DB non disponibile: riprovo al prossimo giro
+            }
+        }
+        for (Map.Entry<String, UUID> e : List.copyOf(staleCandidates.entrySet())) {
+            try {
+                scoreStaleForCandidate(e.getKey(), e.getValue());
+                staleCandidates.remove(e.getKey(), e.getValue());
+            } catch (RuntimeException ignored) {
+                // riprovo al prossimo giro
+            }
+        }
+    }
+
+    @Async(AsyncConfig.MATCH_SCORING_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onJobEmbeddingChanged(JobEmbeddingChangedEvent event) {
+        rescore(swipeRepo.findByJobIdAndAction(event.jobId(), SwipeAction.LIKE));
+    }
+
+    @Async(AsyncConfig.MATCH_SCORING_EXECUTOR)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActiveCvChanged(ActiveCvChangedEvent event) {
+        rescore(swipeRepo.findByCandidateUsernameAndActionOrderByCreatedAtDesc(event.candidateUsername(), SwipeAction.LIKE));
+    }
+
+    // ---------------- helpers ----------------
+
+    // job e CV caricati in blocco; ogni embedding/token set decodificato una sola volta
+    void rescore(List<JobSwipe> likes) {
+        if (likes.isEmpty()) return;
+
+        Set<UUID> jobIds = likes.stream().map(JobSwipe::getJobId).collect(Collectors.toSet());
+        Map<UUID, JobInputs> jobs = jobRepo.findAllById(jobIds).stream()
+                .collect(Collectors.toMap(Job::getId, this::jobInputs));
+
+        Set<String> candidates = likes.stream().map(JobSwipe::getCandidateUsername).collect(Collectors.toSet());
+        Map<String, CvInputs> cvs = loadCandidateCvs(candidates);
+
+        for (JobSwipe s : likes) {
+            JobInputs job = jobs.get(s.getJobId());
+            if (job == null) continue;
+            apply(s, job, cvs.get(s.getCandidateUsername()));
+            try {
+                swipeRepo.save(s);
+            } catch (ObjectOptimisticLockingFailureException ignored) {
+                // lo swipe è stato aggiornato nel frattempo (e rivalutato da swipe())
+            }
+        }
+    }
+
+    private void apply(JobSwipe s, JobInputs job, CvInputs cv) {
+        s.setScoredAt(Instant.now());
+
+        if (cv == null) {
+            // senza CV parsato: score neutro per l'azienda
+            s.setTextScore(0.0);
+            s.setCompanyScore(NO_CV_SCORE);
+            s.setUsedEmbedding(false);
+            s.setMatchReasons(new String[0]);
+            s.setScoredCvId(null);
+            return;
+        }
+
+        boolean usedEmbedding = scoring.comparable(cv.vec(), job.vec());
+        double semantic = usedEmbedding ? scoring.semanticScore(cv.vec(), job.vec()) : Double.NaN;
+        double keyword = scoring.keywordScore(cv.tokens(), job.tokens());
+
+        s.setTextScore(usedEmbedding ? semantic : keyword);
+        s.setCompanyScore(scoring.companyScore(semantic, keyword));
+        s.setUsedEmbedding(usedEmbedding);
+        s.setMatchReasons(scoring.overlap(cv.tokens(), job.tokens(), REASONS).toArray(new String[0]));
+        s.setScoredCvId(cv.cvId());
+    }
+
+    private void clear(JobSwipe s) {
+        s.setTextScore(null);
+        s.setCompanyScore(null);
+        s.setUsedEmbedding(null);
+        s.setMatchReasons(null);
+        s.setScoredCvId(null);
+        s.setScoredAt(null);
+    }
+
+    private JobInputs jobInputs(Job j) {
+        return new JobInputs(EmbeddingCodec.decodeNormalized(j.getEmbedding()), scoring.jobTokens(j));
+    }
+
+    /**
+     * CV di riferimento per ogni candidato con un numero fisso di query:
+     * il CV attivo del profilo se è PARSED, altrimenti l'ultimo PARSED.
+     */
+    private Map<String, CvInputs> loadCandidateCvs(Set<String> candidates) {
+        Map<String, CvFile> cvs = new HashMap<>();
+
+        Map<UUID, String> activeIds = new HashMap<>();
+        for (CandidateProfile p : profileRepo.findByOwnerUsernameIn(candidates)) {
+            if (p.getActiveCvFileId() != null) activeIds.put(p.getActiveCvFileId(), p.getOwnerUsername());
+        }
+        if (!activeIds.isEmpty()) {
+            for (CvFile cv : cvRepo.findByIdInAndStatus(activeIds.keySet(), CvProcessingStatus.PARSED)) {
+                // il CV deve appartenere al candidato del profilo
+                if (cv.getOwnerUsername().equals(activeIds.get(cv.getId()))) cvs.put(cv.getOwnerUsername(), cv);
+            }
+        }
+
+        Set<String> missing = new HashSet<>(candidates);
+        missing.removeAll(cvs.keySet());
+        if (!missing.isEmpty()) {
+            for (CvFile cv : cvRepo.findLatestByOwnerUsernameInAndStatus(missing, CvProcessingStatus.PARSED)) {
+                cvs.putIfAbsent(cv.getOwnerUsername(), cv);
+            }
+        }
+
+        // testo estratto: solo il campo "text" dell'analisi, una query per tutti i CV
+        Map<UUID, String> texts = new HashMap<>();
+        if (!cvs.isEmpty()) {
+            for (CvAnalysisRepository.CvText t : analysisRepo.findTexts(cvs.values().stream().map(CvFile::getId).toList())) {
+                if (t.getText() != null) texts.put(t.getCvFileId(), t.getText());
+            }
+        }
+
+        return cvs.values().stream().collect(Collectors.toMap(CvFile::getOwnerUsername, cv -> new CvInputs(
+                cv.getId(),
+                EmbeddingCodec.decodeNormalized(cv.getEmbedding()),
+                scoring.tokenize(texts.getOrDefault(cv.getId(), ""))
+        )));
+    }
+}
@@ -0,0 +1,111 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.domain.job.Job;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Unico punto di calcolo dello score CV ↔ job, usato da /matches, swipe feed e match azienda.
+ * Gli embedding arrivano già normalizzati L2 (EmbeddingCodec.decodeNormalized):
+ * cosine = dot product, calcolato da VectorKernels (SIMD se disponibile).
+ * Nessuna allocazione per coppia: token come TokenSet ordinati, vettori come float[].
+ */
+@Component
+public class MatchScoringEngine {
+
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^a-z0-9àèéìòóùüöä#\\+]+");
+    private static final int MIN_TOKEN_LENGTH = 3;
+
+    // pesi vista candidato: prossimità + testo
+    private static final double CANDIDATE_PROXIMITY_WEIGHT = 0.35;
+    private static final double CANDIDATE_TEXT_WEIGHT = 0.65;
+
+    // pesi vista azienda: embedding + keyword
+    private static final double COMPANY_SEMANTIC_WEIGHT = 0.75;
+    private static final double COMPANY_KEYWORD_WEIGHT = 0.25;
+
+    // ---------------- testo ----------------
+
+    public TokenSet tokenize(String s) {
+        if (s == null || s.isEmpty()) return TokenSet.EMPTY;
+        String[] parts = TOKEN_SPLIT.split(s.toLowerCase(Locale.ROOT));
+        List<String> out = new ArrayList<>(parts.length);
+        for (String p : parts) {
+            if (p.length() >= MIN_TOKEN_LENGTH) out.add(p);
+        }
+        return TokenSet.of(out);
+    }
+
+    public String jobText(Job j) {
+        StringBuilder sb = new StringBuilder();
+        if (j.getTitle() != null) sb.append(j.getTitle()).append(" ");
+        if (j.getDescription() != null) sb.append(j.getDescription()).append(" ");
+        if (j.getContractType() != null) sb.append(j.getContractType()).append(" ");
+        if (j.getSeniority() != null) sb.append(j.getSeniority()).append(" ");
+        if (j.getLocation() != null) sb.append(j.getLocation()).append(" ");
+        return sb.toString();
+    }
+
+    // token salvati sul job se presenti, altrimenti calcolati al volo
+    public TokenSet jobTokens(Job j) {
+        return j.getTokens() != null ? TokenSet.fromSorted(j.getTokens()) : tokenizeJob(j);
+    }
+
+    public TokenSet tokenizeJob(Job j) {
+        return tokenize(jobText(j));
+    }
+
+    // ---------------- score elementari ----------------
+
+    // Jaccard sui token: [0..1]
+    public double keywordScore(TokenSet a, TokenSet b) {
+        if (a.isEmpty() || b.isEmpty()) return 0.0;
+        int inter = a.intersectionSize(b);
+        int union = a.size() + b.size() - inter;
+        return union == 0 ? 0.0 : (double) inter / (double) union;
+    }
+
+    public List<String> overlap(TokenSet a, TokenSet b, int k) {
+        return a.intersection(b, k);
+    }
+
+    // i due embedding sono confrontabili (stesso modello/dimensione)
+    public boolean comparable(float[] a, float[] b) {
+        return a != null && b != null && a.length > 0 && a.length == b.length;
+    }
+
+    // cosine su vettori normalizzati, riportato in [0..1]
+    public double semanticScore(float[] a, float[] b) {
+        double cos = VectorKernels.dot(a, b);
+        cos = Math.max(-1.0, Math.min(1.0, cos));
+        return (cos + 1.0) / 2.0;
+    }
+
+    // distanza -> [0..1]; neutro se geo mancante
+    public double proximityScore(Double distanceKm, double radiusKm) {
+        if (distanceKm == null) return 0.5;
+        double x = Math.max(0.0, Math.min(distanceKm / radiusKm, 1.0));
+        return 1.0 - x;
+    }
+
+    // ---------------- score composti ----------------
+
+    public double candidateScore(double proximity, double textScore) {
+        return CANDIDATE_PROXIMITY_WEIGHT * proximity + CANDIDATE_TEXT_WEIGHT * textScore;
+    }
+
+    // semantic = NaN se l'embedding non è disponibile: solo keyword
+    public double companyScore(double semantic, double keyword) {
+        if (Double.isNaN(semantic)) return keyword;
+        return COMPANY_SEMANTIC_WEIGHT * semantic + COMPANY_KEYWORD_WEIGHT * keyword;
+    }
+
+    public static double round(double v, int decimals) {
+        double p = Math.pow(10, decimals);
+        return Math.round(v * p) / p;
+    }
+}
@@ -0,0 +1,20 @@
+package com.jobmatcher.api.service.matching;
+
+final class ScalarDotKernel implements DotKernel {
+
+    @Override
+    public float dot(float[] a, float[] b) {
+        // 4 accumulatori indipendenti: aiuta il JIT ad auto-vettorizzare / pipeline
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int n = a.length;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < n; i++) s0 += a[i] * b[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+}
@@ -0,0 +1,82 @@
+package com.jobmatcher.api.service.matching;
+
+import java.util.*;
+
+/**
+ * Insieme di token immutabile, ordinato e senza duplicati.
+ * Intersezione/Jaccard con merge su array ordinati: nessuna allocazione per coppia.
+ */
+public final class TokenSet {
+
+    public static final TokenSet EMPTY = new TokenSet(new String[0]);
+
+    private final String[] tokens;
+
+    private TokenSet(String[] sortedUnique) {
+        this.tokens = sortedUnique;
+    }
+
+    public static TokenSet of(Collection<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) return EMPTY;
+        String[] arr = tokens.toArray(new String[0]);
+        Arrays.sort(arr);
+        int n = 0;
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] == null) continue;
+            if (n == 0 || !arr[i].equals(arr[n - 1])) arr[n++] = arr[i];
+        }
+        return n == 0 ? EMPTY : new TokenSet(n == arr.length ? arr : Arrays.copyOf(arr, n));
+    }
+
+    // array già ordinato e senza duplicati (es. letto da job.tokens); se non lo è, riordino
+    public static TokenSet fromSorted(String[] tokens) {
+        if (tokens == null || tokens.length == 0) return EMPTY;
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i] == null || (i > 0 && tokens[i - 1].compareTo(tokens[i]) >= 0)) {
+                return of(Arrays.asList(tokens));
+            }
+        }
+        return new TokenSet(tokens.clone());
+    }
+
+    public int size() { return tokens.length; }
+    public boolean isEmpty() { return tokens.length == 0; }
+
+    public boolean contains(String token) {
+        return Arrays.binarySearch(tokens, token) >= 0;
+    }
+
+    public List<String> asList() {
+        return List.of(tokens);
+    }
+
+    public String[] toArray() {
+        return tokens.clone();
+    }
+
+    public int intersectionSize(TokenSet other) {
+        String[] a = tokens, b = other.tokens;
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            int c = a[i].compareTo(b[j]);
+            if (c == 0) { count++; i++; j++; }
+            else if (c < 0) i++;
+            else j++;
+        }
+        return count;
+    }
+
+    // primi `limit` token in comune, in ordine alfabetico
+    public List<String> intersection(TokenSet other, int limit) {
+        String[] a = tokens, b = other.tokens;
+        List<String> out = new ArrayList<>(Math.min(limit, Math.min(a.length, b.length)));
+        int i = 0, j = 0;
+        while (i < a.length && j < b.length && out.size() < limit) {
+            int c = a[i].compareTo(b[j]);
+            if (c == 0) { out.add(a[i]); i++; j++; }
+            else if (c < 0) i++;
+            else j++;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,152 @@
+package com.jobmatcher.api.service.matching;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selezione dei k migliori per score con un min-heap limitato: O(n log k) e k elementi in memoria.
+ * Score primitivi; a parità di score decide tieBreak (se presente), poi l'ordine di inserimento
+ * (come un sort stabile sulla sequenza offerta). Non è thread-safe.
+ */
+public final class TopK<T> {
+
+    private final int k;
+    private final Comparator<? super T> tieBreak;
+
+    // heap: in radice il peggiore tra i tenuti
+    private final double[] scores;
+    private final long[] seqs;
+    private final Object[] items;
+    private int size = 0;
+    private long seq = 0;
+
+    public TopK(int k) {
+        this(k, null);
+    }
+
+    /** tieBreak: a parità di score, "minore" = migliore (es. id asc). */
+    public TopK(int k, Comparator<? super T> tieBreak) {
+        this.k = Math.max(0, k);
+        this.tieBreak = tieBreak;
+        this.scores = new double[this.k];
+        this.seqs = new long[this.k];
+        this.items = new Object[this.k];
+    }
+
+    public int size() { return size; }
+    public boolean isFull() { return size == k; }
+
+    // score del peggiore tra i tenuti (-inf se vuoto)
+    public double minScore() { return size == 0 ? Double.NEGATIVE_INFINITY : scores[0]; }
+
+    // vero se uno score così entrerebbe: permette di saltare lavoro sui candidati già esclusi
+    public boolean wouldAccept(double score) {
+        return k > 0 && (size < k || score >= scores[0]);
+    }
+
+    public boolean offer(double score, T item) {
+        if (k == 0) return false;
+        long s = seq++;
+        if (size < k) {
+            scores[size] = score;
+            seqs[size] = s;
+            items[size] = item;
+            siftUp(size++);
+            return true;
+        }
+        if (!worse(0, score, s, item)) return false;
+        scores[0] = score;
+        seqs[0] = s;
+        items[0] = item;
+        siftDown(0);
+        return true;
+    }
+
+    /** Elementi tenuti dal migliore al peggiore; svuota il selettore. */
+    public List<T> drainDescending() {
+        List<Scored<T>> scored = drainScoredDescending();
+        List<T> out = new ArrayList<>(scored.size());
+        for (Scored<T> x : scored) out.add(x.item());
+        return out;
+    }
+
+    /** Come drainDescending, con lo score di ciascun elemento. */
+    public List<Scored<T>> drainScoredDescending() {
+        double[] sc = new double[size];
+        Object[] out = new Object[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sc[i] = scores[0];
+            out[i] = items[0];
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                siftDown(0);
+            }
+        }
+        Arrays.fill(items, null);
+        List<Scored<T>> list = new ArrayList<>(out.length);
+        for (int i = 0; i < out.length; i++) {
+            @SuppressWarnings("unchecked") T t = (T) out[i];
+            list.add(new Scored<>(t, sc[i]));
+        }
+        return list;
+    }
+
+    public record Scored<T>(T item, double score) {}
+
+    // ---------------- heap ----------------
+
+    // l'elemento in posizione i è peggiore di (score, seq, item)?
+    @SuppressWarnings("unchecked")
+    private boolean worse(int i, double score, long s, T item) {
+        int c = Double.compare(scores[i], score);
+        if (c != 0) return c < 0;
+        if (tieBreak != null) {
+            int t = tieBreak.compare((T) items[i], item);
+            if (t != 0) return t > 0;
+        }
+        return seqs[i] > s;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean worse(int i, int j) {
+        return worse(i, scores[j], seqs[j], (T) items[j]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(i, parent)) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int l = 2 * i + 1;
+            if (l >= size) break;
+            int w = l;
+            int r = l + 1;
+            if (r < size && worse(r, l)) w = r;
+            if (!worse(w, i)) break;
+            swap(i, w);
+            i = w;
+        }
+    }
+
+    private void move(int from, int to) {
+        scores[to] = scores[from];
+        seqs[to] = seqs[from];
+        items[to] = items[from];
+        items[from] = null;
+    }
+
+    private void swap(int a, int b) {
+        double ts = scores[a]; scores[a] = scores[b]; scores[b] = ts;
+        long tq = seqs[a]; seqs[a] = seqs[b]; seqs[b] = tq;
+        Object ti = items[a]; items[a] = items[b]; items[b] = ti;
+    }
+}
@@ -0,0 +1,34 @@
+package com.jobmatcher.api.service.matching;
+
+/**
+ * Kernel numerici condivisi (scoring + indice HNSW).
+ * Usa la Vector API del JDK se il modulo jdk.incubator.vector è caricato,
+ * altrimenti il fallback scalare. -Djobmatcher.vector.scalar=true forza lo scalare.
+ */
+public final class VectorKernels {
+
+    private static final DotKernel DOT = load();
+
+    private VectorKernels() {}
+
+    public static float dot(float[] a, float[] b) {
+        return DOT.dot(a, b);
+    }
+
+    public static String implementation() {
+        return DOT instanceof ScalarDotKernel ? "scalar" : "simd";
+    }
+
+    private static DotKernel load() {
+        if (Boolean.getBoolean("jobmatcher.vector.scalar")) return new ScalarDotKernel();
+        try {
+            Class<?> c = Class.forName("com.jobmatcher.api.service.matching.SimdDotKernel");
+            DotKernel k = (DotKernel) c.getDeclaredConstructor().newInstance();
+            k.dot(new float[]{1f}, new float[]{1f}); // forza il linking della Vector API
+            return k;
+        } catch (Throwable e) {
+            // modulo incubator non presente a runtime
+            return new ScalarDotKernel();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.jobmatcher.api.service.matching;
+
+public final class Vectors {
+
+    private Vectors() {}
+
+    // normalizza sul posto (per array appena decodificati); false se vettore nullo
+    public static boolean normalizeInPlace(float[] v) {
+        if (v == null) return false;
+        double norm = 0.0;
+        for (float x : v) norm += (double) x * x;
+        if (norm == 0.0) return false;
+
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < v.length; i++) v[i] *= inv;
+        return true;
+    }
+
+    public static float dot(float[] a, float[] b) {
+        return VectorKernels.dot(a, b);
+    }
+}
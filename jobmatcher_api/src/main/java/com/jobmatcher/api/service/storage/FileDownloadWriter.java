@@ -0,0 +1,156 @@
+package com.jobmatcher.api.service.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Scrive un file dello storage nella risposta: ETag forte dall'hash del contenuto, Last-Modified,
+ * GET condizionale (304/412) e Range su un solo intervallo (206/416; più intervalli => file intero).
+ * Storage locale: sendfile di Tomcat se il connettore lo supporta, altrimenti FileChannel.transferTo;
+ * altri storage: lettura ranged in streaming.
+ */
+@Component
+public class FileDownloadWriter {
+
+    public record Download(String storedFilename, String filename, String contentType,
+                           String contentSha256, Instant lastModified) {}
+
+    // attributi della richiesta con cui Tomcat fa sendfile dopo il ritorno del servlet (come il DefaultServlet)
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final StorageService storage;
+
+    public FileDownloadWriter(StorageService storage) {
+        this.storage = storage;
+    }
+
+    public void write(Download d, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        String etag = d.contentSha256() != null ? "\"" + d.contentSha256() + "\"" : null;
+        long lastModified = d.lastModified() != null ? d.lastModified().toEpochMilli() : -1;
+
+        // 304 (If-None-Match / If-Modified-Since) o 412 (If-Match / If-Unmodified-Since): niente corpo
+        if (new ServletWebRequest(req, res).checkNotModified(etag, lastModified)) return;
+
+        // CV personali: cache solo nel client, sempre rivalidata (costa un 304)
+        res.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        res.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        res.setContentType(mediaType(d.contentType()).toString());
+        res.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(d.filename() == null || d.filename().isBlank() ? "cv" : d.filename())
+                .build().toString());
+
+        long length = storage.size(d.storedFilename());
+        long start = 0;
+        long end = length - 1;
+
+        List<HttpRange> ranges = ranges(req, etag, lastModified);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException unsatisfiable) {
+                start = length;
+            }
+            // HttpRange non controlla che l'inizio cada nel file (es. bytes=20- su 20 byte, bytes=-0)
+            if (start >= length || start > end) {
+                res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                res.setContentLengthLong(0);
+                return;
+            }
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        res.setContentLengthLong(count);
+        if ("HEAD".equals(req.getMethod()) || count <= 0) return;
+
+        Optional<Path> local = storage.localPath(d.storedFilename());
+        if (local.isPresent()) {
+            writeLocal(local.get(), start, count, req, res);
+        } else {
+            // storage remoto: lettura ranged (es. GET con Range su S3), nessun byte fuori intervallo
+            try (InputStream in = storage.openRange(d.storedFilename(), start, end)) {
+                StreamUtils.copyRange(in, res.getOutputStream(), 0, count - 1);
+            }
+        }
+    }
+
+    // ---------------- helpers ----------------
+
+    private void writeLocal(Path file, long start, long count, HttpServletRequest req, HttpServletResponse res)
+            throws IOException {
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, file.toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long pos = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long n = ch.transferTo(pos, remaining, out);
+                if (n <= 0) break; // file accorciato nel frattempo
+                pos += n;
+                remaining -= n;
+            }
+        }
+    }
+
+    // Range valido e If-Range soddisfatto => intervalli richiesti; altrimenti nessuno (file intero)
+    private List<HttpRange> ranges(HttpServletRequest req, String etag, long lastModified) {
+        String header = req.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(req, etag, lastModified)) return List.of();
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException malformed) {
+            return List.of();
+        }
+    }
+
+    // If-Range: ETag (confronto forte) o data esatta di Last-Modified; se non corrisponde si manda tutto
+    private boolean ifRangeMatches(HttpServletRequest req, String etag, long lastModified) {
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(etag);
+        try {
+            long date = req.getDateHeader(HttpHeaders.IF_RANGE);
+            return lastModified >= 0 && date >= 0 && lastModified / 1000 == date / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static MediaType mediaType(String contentType) {
+        if (contentType != null && !contentType.isBlank()) {
+            try { return MediaType.parseMediaType(contentType); } catch (Exception ignored) {}
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
@@ -0,0 +1,29 @@
+package com.jobmatcher.api.service.storage;
+
+/** Tipo di file dai primi byte (magic number), indipendente da nome e Content-Type dichiarati dal client. */
+public final class FileSignatures {
+
+    public static final String PDF = "application/pdf";
+    // anche docx/xlsx/odt sono zip: il tipo preciso lo decide l'estensione
+    public static final String ZIP = "application/zip";
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+
+    private FileSignatures() {}
+
+    /** null se il formato non è riconosciuto. */
+    public static String sniff(byte[] head) {
+        if (startsWith(head, PDF_MAGIC)) return PDF;
+        if (startsWith(head, ZIP_MAGIC)) return ZIP;
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, byte[] magic) {
+        if (head.length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) return false;
+        }
+        return true;
+    }
+}
@@ -4,25 +4,53 @@ import com.jobmatcher.api.config.StorageProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @ConditionalOnProperty(prefix = "jobmatcher.storage", name = "provider", havingValue = "local", matchIfMissing = true)
 public class FileSystemStorageService implements StorageService {
 
+    // upload in corso: nella stessa root (stesso filesystem) così il commit è un rename atomico
+    private static final String STAGED_PREFIX = ".upload-";
+    private static final String STAGED_SUFFIX = ".tmp";
+    private static final Duration STALE_STAGED = Duration.ofHours(1);
+
     private final Path rootDir;
+    private final boolean sharded;
+    private final int shardDepth;
+    private final boolean contentAddressed;
 
     public FileSystemStorageService(StorageProperties props) {
         this.rootDir = Paths.get(props.getLocal().getRootDir()).toAbsolutePath().normalize();
+        this.sharded = "sharded".equalsIgnoreCase(props.getLocal().getLayout());
+        this.shardDepth = Math.max(1, Math.min(4, props.getLocal().getShardDepth()));
+        this.contentAddressed = props.getLocal().isContentAddressed();
         try {
             Files.createDirectories(this.rootDir);
         } catch (IOException e) {
             throw new RuntimeException("Impossibile creare root storage dir: " + this.rootDir, e);
         }
+        deleteStaleStaged();
     }
 
     @Override
@@ -30,6 +58,7 @@ public class FileSystemStorageService implements StorageService {
         try {
             Path target = rootDir.resolve(storedFilename).normalize();
             if (!target.startsWith(rootDir)) throw new RuntimeException("Path traversal detected");
+            Files.createDirectories(target.getParent());
             Files.write(target, bytes, StandardOpenOption.CREATE_NEW);
             return storedFilename;
         } catch (IOException e) {
@@ -37,6 +66,62 @@ public class FileSystemStorageService implements StorageService {
         }
     }
 
+    @Override
+    public String stage(InputStream in) {
+        String stagedName = STAGED_PREFIX + UUID.randomUUID() + STAGED_SUFFIX;
+        Path tmp = rootDir.resolve(stagedName);
+        try {
+            Files.copy(in, tmp);
+            return stagedName;
+        } catch (IOException | RuntimeException e) {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            if (e instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Errore salvataggio file", e);
+        }
+    }
+
+    // hard link + rimozione del temporaneo: atomico e senza sovrascrivere (link(2) fallisce se il nome esiste)
+    @Override
+    public boolean commit(String stagedName, String storedFilename) {
+        Path tmp = stagedPath(stagedName);
+        Path target = rootDir.resolve(storedFilename).normalize();
+        if (!target.startsWith(rootDir)) throw new RuntimeException("Path traversal detected");
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, tmp);
+            } catch (FileAlreadyExistsException exists) {
+                return false; // content-addressed: stessi byte già salvati
+            } catch (UnsupportedOperationException noLinks) {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                return true;
+            }
+            return true;
+        } catch (IOException e) {
+            throw new RuntimeException("Errore salvataggio file", e);
+        } finally {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    @Override
+    public String newStoredFilename(String sha256, String ext) {
+        String suffix = ext == null || ext.isBlank() ? "" : "." + ext;
+        if (!sharded) return UUID.randomUUID() + suffix;
+        if (contentAddressed && sha256 != null) return shardPrefix(sha256) + sha256 + suffix;
+        UUID id = UUID.randomUUID();
+        return shardPrefix(id.toString().replace("-", "")) + id + suffix;
+    }
+
+    @Override
+    public void discard(String stagedName) {
+        try {
+            Files.deleteIfExists(stagedPath(stagedName));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossibile cancellare file: " + stagedName, e);
+        }
+    }
+
     @Override
     public Resource loadAsResource(String storedFilename) {
         try {
@@ -50,6 +135,37 @@ public class FileSystemStorageService implements StorageService {
         }
     }
 
+    // AsynchronousFileChannel: nessun thread bloccato in lettura, blocchi rilasciati dopo l'invio
+    @Override
+    public Flux<DataBuffer> stream(String storedFilename) {
+        Path file = rootDir.resolve(storedFilename).normalize();
+        if (!file.startsWith(rootDir)) throw new RuntimeException("Path traversal detected");
+        if (!Files.isRegularFile(file)) throw new RuntimeException("File non trovato: " + storedFilename);
+        return DataBufferUtils.read(file, DefaultDataBufferFactory.sharedInstance, STREAM_BUFFER_SIZE);
+    }
+
+    @Override
+    public long size(String storedFilename) {
+        try {
+            return Files.size(localPath(storedFilename).orElseThrow());
+        } catch (IOException e) {
+            throw new RuntimeException("Errore lettura dimensione file", e);
+        }
+    }
+
+    // path reale (senza symlink): è quello che Tomcat accetta per sendfile
+    @Override
+    public Optional<Path> localPath(String storedFilename) {
+        Path file = rootDir.resolve(storedFilename).normalize();
+        if (!file.startsWith(rootDir)) throw new RuntimeException("Path traversal detected");
+        if (!Files.isRegularFile(file)) throw new RuntimeException("File non trovato: " + storedFilename);
+        try {
+            return Optional.of(file.toRealPath());
+        } catch (IOException e) {
+            throw new RuntimeException("Errore caricamento file", e);
+        }
+    }
+
     public void delete(String storedFilename) {
         try {
             Path p = rootDir.resolve(storedFilename).normalize();
@@ -58,6 +174,92 @@ public class FileSystemStorageService implements StorageService {
             throw new IllegalStateException("Impossibile cancellare file: " + storedFilename, e);
         }
     }
-}
 
+    private Path stagedPath(String stagedName) {
+        if (!stagedName.startsWith(STAGED_PREFIX) || !stagedName.endsWith(STAGED_SUFFIX) || stagedName.contains("/")) {
+            throw new IllegalArgumentException("File temporaneo non valido: " + stagedName);
+        }
+        return rootDir.resolve(stagedName);
+    }
+
+    // temporanei rimasti da un crash durante l'upload
+    private void deleteStaleStaged() {
+        Instant cutoff = Instant.now().minus(STALE_STAGED);
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(rootDir, STAGED_PREFIX + "*" + STAGED_SUFFIX)) {
+            for (Path p : staged) {
+                if (Files.getLastModifiedTime(p).toInstant().isBefore(cutoff)) Files.deleteIfExists(p);
+            }
+        } catch (IOException ignored) {
+            // best-effort
+        }
+    }
+
+    // ---------------- layout (usato dalla migrazione) ----------------
+
+    public boolean isSharded() { return sharded; }
+
+    public boolean isContentAddressed() { return contentAddressed; }
+
+    /** Nome nel layout sharded per un file flat esistente (stessa estensione). */
+    public String shardedName(String flatName, String sha256) {
+        int dot = flatName.lastIndexOf('.');
+        String suffix = dot > 0 ? flatName.substring(dot) : "";
+        if (contentAddressed && sha256 != null) return shardPrefix(sha256) + sha256 + suffix;
+        String hex = flatName.substring(0, dot > 0 ? dot : flatName.length()).replace("-", "").toLowerCase(Locale.ROOT);
+        if (!hex.matches("[0-9a-f]{" + (2 * shardDepth) + ",}")) hex = sha256Hex(flatName);
+        return shardPrefix(hex) + flatName;
+    }
+
+    /** Secondo nome per lo stesso file (hard link; copia se il filesystem non li supporta). */
+    public void link(String from, String to) {
+        Path source = rootDir.resolve(from).normalize();
+        Path target = rootDir.resolve(to).normalize();
+        if (!source.startsWith(rootDir) || !target.startsWith(rootDir)) throw new RuntimeException("Path traversal detected");
+        if (!Files.isRegularFile(source)) throw new RuntimeException("File non trovato: " + from);
+        try {
+            Files.createDirectories(target.getParent());
+            try {
+                Files.createLink(target, source);
+            } catch (FileAlreadyExistsException exists) {
+                // già collegato da un giro precedente (o stesso contenuto)
+            } catch (UnsupportedOperationException noLinks) {
+                try (InputStream in = Files.newInputStream(source)) {
+                    commit(stage(in), to);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Errore collegamento file", e);
+        }
+    }
+
+    /** File nella root (layout flat), esclusi i temporanei di upload, modificati prima di olderThan. */
+    public List<String> flatFiles(Instant olderThan, int limit) {
+        List<String> out = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(rootDir)) {
+            for (Path p : files) {
+                if (out.size() >= limit) break;
+                String name = p.getFileName().toString();
+                if (name.startsWith(STAGED_PREFIX) || !Files.isRegularFile(p, LinkOption.NOFOLLOW_LINKS)) continue;
+                if (Files.getLastModifiedTime(p).toInstant().isBefore(olderThan)) out.add(name);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Errore lettura storage", e);
+        }
+        return out;
+    }
+
+    // ab/cd/ dai primi caratteri esadecimali
+    private String shardPrefix(String hex) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < shardDepth; i++) sb.append(hex, 2 * i, 2 * i + 2).append('/');
+        return sb.toString();
+    }
 
+    private static String sha256Hex(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+}
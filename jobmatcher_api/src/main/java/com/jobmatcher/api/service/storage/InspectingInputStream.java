@@ -0,0 +1,89 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.exception.BadRequestException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Stream di upload che, mentre viene copiato nello storage, calcola SHA-256, conta i byte
+ * (oltre maxBytes interrompe la copia) e tiene i primi byte per riconoscere il tipo di file.
+ * Un solo passaggio sul contenuto, memoria costante.
+ */
+public class InspectingInputStream extends FilterInputStream {
+
+    public static final int HEAD_BYTES = 16;
+    private static final int SKIP_BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest;
+    private final long maxBytes;
+    private final byte[] head = new byte[HEAD_BYTES];
+    private int headSize = 0;
+    private long size = 0;
+
+    public InspectingInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) inspect(new byte[]{(byte) b}, 0, 1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) inspect(b, off, n);
+        return n;
+    }
+
+    // i byte saltati vengono comunque letti (in un buffer di appoggio) e ispezionati
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        byte[] scratch = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int r = read(scratch, 0, (int) Math.min(remaining, scratch.length));
+            if (r < 0) break;
+            remaining -= r;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long size() { return size; }
+
+    public byte[] head() { return Arrays.copyOf(head, headSize); }
+
+    // da chiamare a stream letto tutto
+    public String sha256Hex() { return HexFormat.of().formatHex(digest.digest()); }
+
+    private void inspect(byte[] b, int off, int n) {
+        size += n;
+        if (size > maxBytes) throw new BadRequestException("File troppo grande: oltre " + maxBytes + " byte");
+        if (headSize < HEAD_BYTES) {
+            int k = Math.min(n, HEAD_BYTES - headSize);
+            System.arraycopy(b, off, head, headSize, k);
+            headSize += k;
+        }
+        digest.update(b, off, n);
+    }
+}
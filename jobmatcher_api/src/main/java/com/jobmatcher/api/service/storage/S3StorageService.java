@@ -0,0 +1,386 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.config.StorageProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Storage su bucket S3-compatibile (AWS, MinIO, ...): i nodi API non condividono più un disco.
+ * Upload: il file è prima in un temporaneo locale (hash e validazione in un passaggio), poi caricato
+ * con una PUT condizionale (If-None-Match) o, sopra la soglia, in multipart con le parti in parallelo.
+ * Letture in streaming (GET, anche con Range), pool HTTP con limite di connessioni.
+ */
+@Service
+@ConditionalOnProperty(prefix = "jobmatcher.storage", name = "provider", havingValue = "s3")
+public class S3StorageService implements StorageService {
+
+    private static final String STAGED_PREFIX = ".upload-";
+    private static final String STAGED_SUFFIX = ".tmp";
+    private static final long MIN_PART_SIZE = 5 * 1024 * 1024;
+    // temporanei più vecchi di così all'avvio: upload interrotti da un crash
+    private static final Duration STALE_STAGED = Duration.ofHours(1);
+
+    private final StorageProperties.S3 props;
+    private final S3Client s3;
+    private final Path stagingDir;
+    private final ExecutorService partUploads;
+
+    public S3StorageService(StorageProperties storageProps) {
+        this.props = storageProps.getS3();
+        if (props.getBucket() == null || props.getBucket().isBlank()) {
+            throw new IllegalStateException("jobmatcher.storage.s3.bucket mancante");
+        }
+
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(props.getRegion()))
+                .forcePathStyle(props.isPathStyle())
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(Math.max(1, props.getMaxConnections()))
+                        .connectionTimeout(Duration.ofMillis(props.getConnectTimeoutMs()))
+                        .socketTimeout(Duration.ofMillis(props.getSocketTimeoutMs())));
+        if (props.getEndpoint() != null && !props.getEndpoint().isBlank()) {
+            builder.endpointOverride(URI.create(props.getEndpoint().trim()));
+        }
+        if (props.getAccessKey() != null && !props.getAccessKey().isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(props.getAccessKey(), props.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        this.s3 = builder.build();
+
+        String dir = props.getStagingDir() == null || props.getStagingDir().isBlank()
+                ? System.getProperty("java.io.tmpdir") + "/jobmatcher-uploads"
+                : props.getStagingDir();
+        this.stagingDir = Paths.get(dir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(stagingDir);
+        } catch (IOException e) {
+            throw new RuntimeException("Impossibile creare staging dir: " + stagingDir, e);
+        }
+        deleteStaleStaged();
+
+        this.partUploads = Executors.newFixedThreadPool(Math.max(1, props.getMultipartConcurrency()), r -> {
+            Thread t = new Thread(r, "s3-part-upload");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        partUploads.shutdownNow();
+        s3.close();
+    }
+
+    // ---------------- scrittura ----------------
+
+    @Override
+    public String save(byte[] bytes, String storedFilename) {
+        s3.putObject(b -> b.bucket(props.getBucket()).key(key(storedFilename)), RequestBody.fromBytes(bytes));
+        return storedFilename;
+    }
+
+    @Override
+    public String stage(InputStream in) {
+        String stagedName = STAGED_PREFIX + UUID.randomUUID() + STAGED_SUFFIX;
+        Path tmp = stagingDir.resolve(stagedName);
+        try {
+            Files.copy(in, tmp);
+            return stagedName;
+        } catch (IOException | RuntimeException e) {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+            if (e instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Errore salvataggio file", e);
+        }
+    }
+
+    @Override
+    public boolean commit(String stagedName, String storedFilename) {
+        Path tmp = stagedPath(stagedName);
+        try {
+            // scrittura condizionale (If-None-Match: *), niente HEAD prima:
+            // 412 => l'oggetto c'è già (nomi content-addressed: stessi byte)
+            long size = Files.size(tmp);
+            if (size > props.getMultipartThresholdBytes()) {
+                multipartUpload(tmp, size, key(storedFilename));
+            } else {
+                s3.putObject(b -> b.bucket(props.getBucket()).key(key(storedFilename)).ifNoneMatch("*"),
+                        RequestBody.fromFile(tmp));
+            }
+            return true;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 412) return false;
+            throw e;
+        } catch (IOException e) {
+            throw new RuntimeException("Errore salvataggio file", e);
+        } finally {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    @Override
+    public void discard(String stagedName) {
+        try {
+            Files.deleteIfExists(stagedPath(stagedName));
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossibile cancellare file: " + stagedName, e);
+        }
+    }
+
+    // stesso schema dello storage locale sharded: sha256 se noto (una copia per contenuto), altrimenti uuid
+    @Override
+    public String newStoredFilename(String sha256, String ext) {
+        String suffix = ext == null || ext.isBlank() ? "" : "." + ext;
+        return (sha256 != null ? sha256 : UUID.randomUUID().toString()) + suffix;
+    }
+
+    @Override
+    public void delete(String storedFilename) {
+        s3.deleteObject(b -> b.bucket(props.getBucket()).key(key(storedFilename)));
+    }
+
+    // ---------------- lettura ----------------
+
+    @Override
+    public Resource loadAsResource(String storedFilename) {
+        return new S3ObjectResource(storedFilename);
+    }
+
+    @Override
+    public boolean exists(String storedFilename) {
+        return head(storedFilename).isPresent();
+    }
+
+    @Override
+    public long size(String storedFilename) {
+        return head(storedFilename)
+                .map(HeadObjectResponse::contentLength)
+                .orElseThrow(() -> new RuntimeException("File non trovato: " + storedFilename));
+    }
+
+    @Override
+    public InputStream openRange(String storedFilename, long start, long end) {
+        return get(storedFilename, "bytes=" + start + "-" + end);
+    }
+
+    // GET letto a blocchi alla sottoscrizione: verso il servizio AI senza tenere il file in memoria.
+    // Le letture sono bloccanti: su boundedElastic, mai sull'event loop di chi si sottoscrive
+    @Override
+    public Flux<DataBuffer> stream(String storedFilename) {
+        return DataBufferUtils.readInputStream(() -> get(storedFilename, null),
+                        DefaultDataBufferFactory.sharedInstance, STREAM_BUFFER_SIZE)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // ---------------- helpers ----------------
+
+    private void multipartUpload(Path file, long size, String key) {
+        String uploadId = s3.createMultipartUpload(b -> b.bucket(props.getBucket()).key(key)).uploadId();
+        try {
+            long partSize = Math.max(MIN_PART_SIZE, props.getPartSizeBytes());
+            List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                long off = offset;
+                long len = Math.min(partSize, size - offset);
+                int n = partNumber;
+                parts.add(CompletableFuture.supplyAsync(() -> uploadPart(file, key, uploadId, n, off, len), partUploads));
+            }
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (CompletableFuture<CompletedPart> p : parts) completed.add(p.join());
+
+            s3.completeMultipartUpload(b -> b.bucket(props.getBucket()).key(key).uploadId(uploadId).ifNoneMatch("*")
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build()));
+        } catch (RuntimeException e) {
+            try {
+                s3.abortMultipartUpload(b -> b.bucket(props.getBucket()).key(key).uploadId(uploadId));
+            } catch (SdkException ignored) {
+                // le parti orfane le rimuove la lifecycle rule del bucket
+            }
+            if (e instanceof CompletionException ce && ce.getCause() instanceof RuntimeException re) throw re;
+            throw e;
+        }
+    }
+
+    // ogni parte letta dal file al momento dell'invio (anche nei retry dell'SDK): niente buffer da partSize
+    private CompletedPart uploadPart(Path file, String key, String uploadId, int partNumber, long offset, long length) {
+        RequestBody body = RequestBody.fromContentProvider(() -> {
+            try {
+                FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+                ch.position(offset);
+                return new BoundedInputStream(Channels.newInputStream(ch), length);
+            } catch (IOException e) {
+                throw new RuntimeException("Errore lettura file", e);
+            }
+        }, length, "application/octet-stream");
+
+        String etag = s3.uploadPart(b -> b.bucket(props.getBucket()).key(key).uploadId(uploadId)
+                .partNumber(partNumber).contentLength(length), body).eTag();
+        return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+    }
+
+    private InputStream get(String storedFilename, String range) {
+        GetObjectRequest.Builder req = GetObjectRequest.builder().bucket(props.getBucket()).key(key(storedFilename));
+        if (range != null) req.range(range);
+        try {
+            return s3.getObject(req.build());
+        } catch (NoSuchKeyException e) {
+            throw new RuntimeException("File non trovato: " + storedFilename);
+        }
+    }
+
+    private Optional<HeadObjectResponse> head(String storedFilename) {
+        try {
+            return Optional.of(s3.headObject(b -> b.bucket(props.getBucket()).key(key(storedFilename))));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) return Optional.empty();
+            throw e;
+        }
+    }
+
+    // temporanei rimasti da un crash durante l'upload (come lo storage locale)
+    private void deleteStaleStaged() {
+        Instant cutoff = Instant.now().minus(STALE_STAGED);
+        try (DirectoryStream<Path> staged = Files.newDirectoryStream(stagingDir, STAGED_PREFIX + "*" + STAGED_SUFFIX)) {
+            for (Path p : staged) {
+                if (Files.getLastModifiedTime(p).toInstant().isBefore(cutoff)) Files.deleteIfExists(p);
+            }
+        } catch (IOException ignored) {
+            // best-effort
+        }
+    }
+
+    private String key(String storedFilename) {
+        if (storedFilename.contains("..")) throw new RuntimeException("Path traversal detected");
+        return props.getKeyPrefix() + storedFilename;
+    }
+
+    private Path stagedPath(String stagedName) {
+        if (!stagedName.startsWith(STAGED_PREFIX) || !stagedName.endsWith(STAGED_SUFFIX) || stagedName.contains("/")) {
+            throw new IllegalArgumentException("File temporaneo non valido: " + stagedName);
+        }
+        return stagingDir.resolve(stagedName);
+    }
+
+    // oggetto del bucket come Resource: ogni getInputStream è una GET in streaming
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String storedFilename;
+
+        S3ObjectResource(String storedFilename) {
+            this.storedFilename = storedFilename;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return get(storedFilename, null);
+        }
+
+        @Override
+        public boolean exists() {
+            return S3StorageService.this.exists(storedFilename);
+        }
+
+        @Override
+        public long contentLength() {
+            return size(storedFilename);
+        }
+
+        @Override
+        public String getFilename() {
+            return storedFilename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "s3://" + props.getBucket() + "/" + key(storedFilename);
+        }
+    }
+
+    // al più length byte dallo stream sottostante
+    static class BoundedInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = super.read();
+            if (b >= 0) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int n = super.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0) remaining -= n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.config.StorageProperties;
+import com.jobmatcher.api.dto.StorageMigrationStatusDTO;
+import com.jobmatcher.api.repository.CvFileRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Porta i file flat dello storage locale nel layout sharded a servizio attivo, a batch:
+ * hard link al nuovo nome, update di storage_path (tutte le righe che condividono il file),
+ * cancellazione del nome vecchio al giro successivo (chi l'aveva appena letto ha avuto tempo di aprirlo).
+ * Finiti i path flat, rimuove i file flat non più referenziati (rimasti da un riavvio a metà).
+ */
+@Component
+@ConditionalOnProperty(prefix = "jobmatcher.storage", name = "provider", havingValue = "local", matchIfMissing = true)
+public class StorageLayoutMigrator {
+
+    // file flat più recenti di così possono essere upload in corso da un nodo ancora sul layout flat
+    private static final Duration ORPHAN_MIN_AGE = Duration.ofHours(1);
+
+    private final FileSystemStorageService storage;
+    private final CvFileRepository repo;
+    private final StoragePathLocks locks;
+    private final StorageProperties.Migration props;
+
+    private List<String> retired = new ArrayList<>();
+    private String after = "";
+    private long remaining = -1;
+    private long migrated = 0;
+    private long failed = 0;
+    private long orphansDeleted = 0;
+
+    public StorageLayoutMigrator(FileSystemStorageService storage, CvFileRepository repo, StoragePathLocks locks,
+                                 StorageProperties props) {
+        this.storage = storage;
+        this.repo = repo;
+        this.locks = locks;
+        this.props = props.getLocal().getMigration();
+    }
+
+    @Scheduled(initialDelayString = "${jobmatcher.storage.local.migration.interval-ms:60000}",
+            fixedDelayString = "${jobmatcher.storage.local.migration.interval-ms:60000}")
+    public void scheduled() {
+        if (props.isEnabled()) runBatch();
+    }
+
+    public synchronized StorageMigrationStatusDTO runBatch() {
+        if (!storage.isSharded()) return status();
+
+        deleteRetired();
+
+        int batchSize = Math.max(1, props.getBatchSize());
+        List<String> batch = repo.findFlatStoragePaths(after, batchSize);
+        for (String from : batch) {
+            after = from; // un file che fallisce sempre non blocca quelli dopo
+            try {
+                String sha256 = repo.findContentSha256ByStoragePath(from);
+                if (sha256 == null && storage.isContentAddressed()) sha256 = sha256(from);
+                String to = storage.shardedName(from, sha256);
+                storage.link(from, to);
+                repo.moveStoragePath(from, to, sha256);
+                retired.add(from);
+                migrated++;
+            } catch (RuntimeException e) {
+                failed++; // es. file mancante: la riga resta sul path flat
+            }
+        }
+        if (batch.size() < batchSize) after = ""; // fine giro
+
+        remaining = repo.countFlatStoragePaths();
+        if (remaining == 0) deleteOrphans(batchSize);
+        return status();
+    }
+
+    public synchronized StorageMigrationStatusDTO status() {
+        return new StorageMigrationStatusDTO(
+                props.isEnabled(),
+                storage.isSharded() ? "sharded" : "flat",
+                remaining,
+                migrated,
+                failed,
+                orphansDeleted
+        );
+    }
+
+    // ---------------- helpers ----------------
+
+    private void deleteRetired() {
+        for (String name : retired) {
+            // ancora referenziato (es. upload deduplicato sul path vecchio nel frattempo): lo riprende un batch.
+            // Controllo e delete sotto lock: un upload non può referenziarlo in mezzo
+            try {
+                locks.deleteIfUnreferenced(name);
+            } catch (RuntimeException ignored) {
+                // riprova il giro degli orfani
+            }
+        }
+        retired = new ArrayList<>();
+    }
+
+    private void deleteOrphans(int limit) {
+        for (String name : storage.flatFiles(Instant.now().minus(ORPHAN_MIN_AGE), limit)) {
+            if (retired.contains(name)) continue;
+            if (locks.deleteIfUnreferenced(name)) orphansDeleted++;
+        }
+    }
+
+    // CV caricati prima di content_sha256: hash calcolato in streaming dal file
+    private String sha256(String storedFilename) {
+        try (InspectingInputStream in = new InspectingInputStream(
+                storage.loadAsResource(storedFilename).getInputStream(), Long.MAX_VALUE)) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.sha256Hex();
+        } catch (IOException e) {
+            throw new RuntimeException("Errore lettura file: " + storedFilename, e);
+        }
+    }
+}
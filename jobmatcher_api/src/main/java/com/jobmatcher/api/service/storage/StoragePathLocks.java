@@ -0,0 +1,44 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.repository.CvFileRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+/**
+ * Serializza chi aggiunge un riferimento a un file dello storage (upload, anche deduplicato) e chi
+ * cancella i file non più referenziati: entrambi prendono un advisory lock di transazione sul nome,
+ * quindi "nessuna riga lo usa => cancello" non può incrociare un insert che lo referenzia.
+ */
+@Component
+public class StoragePathLocks {
+
+    private final CvFileRepository repo;
+    private final StorageService storage;
+    private final TransactionTemplate tx;
+
+    public StoragePathLocks(CvFileRepository repo, StorageService storage, TransactionTemplate tx) {
+        this.repo = repo;
+        this.storage = storage;
+        this.tx = tx;
+    }
+
+    /** Esegue action in una transazione che tiene il lock sul nome fino al commit. */
+    public <T> T withLock(String storedFilename, Supplier<T> action) {
+        return tx.execute(status -> {
+            repo.lockStoragePath(storedFilename);
+            return action.get();
+        });
+    }
+
+    /** Cancella il file se nessuna riga lo referenzia; true se cancellato. */
+    public boolean deleteIfUnreferenced(String storedFilename) {
+        Boolean deleted = withLock(storedFilename, () -> {
+            if (repo.existsByStoragePath(storedFilename)) return false;
+            storage.delete(storedFilename);
+            return true;
+        });
+        return Boolean.TRUE.equals(deleted);
+    }
+}
@@ -1,10 +1,74 @@
 package com.jobmatcher.api.service.storage;
 
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
 
 public interface StorageService {
+    int STREAM_BUFFER_SIZE = 64 * 1024;
+
     String save(byte[] bytes, String storedFilename);
+
+    /** Copia lo stream in un file temporaneo dello storage; ritorna il nome da passare a commit/discard. */
+    String stage(InputStream in);
+    /**
+     * Porta il file temporaneo al nome definitivo con un'operazione atomica.
+     * false se il nome esisteva già (storage content-addressed: stessi byte), il temporaneo viene scartato.
+     */
+    boolean commit(String stagedName, String storedFilename);
+    void discard(String stagedName);
+
+    /** Nome con cui salvare un nuovo file; l'implementazione decide il layout (uuid flat di default). */
+    default String newStoredFilename(String sha256, String ext) {
+        return UUID.randomUUID() + (ext == null || ext.isBlank() ? "" : "." + ext);
+    }
     Resource loadAsResource(String storedFilename);
     void delete(String storedFilename);
-}
 
+    default boolean exists(String storedFilename) {
+        try {
+            return loadAsResource(storedFilename).exists();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Contenuto a blocchi di STREAM_BUFFER_SIZE, letto alla sottoscrizione: in memoria solo i blocchi in transito. */
+    default Flux<DataBuffer> stream(String storedFilename) {
+        return DataBufferUtils.read(loadAsResource(storedFilename), DefaultDataBufferFactory.sharedInstance, STREAM_BUFFER_SIZE);
+    }
+
+    /** Dimensione in byte del file salvato. */
+    default long size(String storedFilename) {
+        try {
+            return loadAsResource(storedFilename).contentLength();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Byte da start a end inclusi, letti in streaming. */
+    default InputStream openRange(String storedFilename, long start, long end) {
+        try {
+            InputStream in = loadAsResource(storedFilename).getInputStream();
+            in.skipNBytes(start);
+            return in;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Path su disco locale, se lo storage ne ha uno (abilita sendfile/transferTo nei download). */
+    default Optional<Path> localPath(String storedFilename) {
+        return Optional.empty();
+    }
+}
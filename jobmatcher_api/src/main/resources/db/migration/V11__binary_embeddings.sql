@@ -0,0 +1,32 @@
+-- embedding come float32 big-endian (4 byte per componente) al posto degli array jsonb
+
+alter table job
+  add column if not exists embedding_vec bytea;
+
+alter table cv_file
+  add column if not exists embedding bytea;
+
+-- backfill job: jsonb [..] -> bytea
+update job
+set embedding_vec = (
+  select string_agg(float4send(t.e::float4), ''::bytea order by t.i)
+  from jsonb_array_elements_text(job.embedding) with ordinality as t(e, i)
+)
+where embedding is not null
+  and jsonb_typeof(embedding) = 'array';
+
+alter table job drop column if exists embedding;
+alter table job rename column embedding_vec to embedding;
+
+-- backfill cv: analysis_json.embedding -> cv_file.embedding, poi lo tolgo dal jsonb
+update cv_file
+set embedding = (
+  select string_agg(float4send(t.e::float4), ''::bytea order by t.i)
+  from jsonb_array_elements_text(cv_file.analysis_json -> 'embedding') with ordinality as t(e, i)
+)
+where analysis_json is not null
+  and jsonb_typeof(analysis_json -> 'embedding') = 'array';
+
+update cv_file
+set analysis_json = analysis_json - 'embedding'
+where analysis_json ? 'embedding';
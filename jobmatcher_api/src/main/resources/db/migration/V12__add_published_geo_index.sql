@@ -0,0 +1,4 @@
+-- prefiltro bounding box del feed: solo job PUBLISHED, range su lat poi lon
+create index if not exists idx_job_published_geo
+  on job(lat, lon)
+  where status = 'PUBLISHED';
@@ -0,0 +1,3 @@
+-- token del testo job (ordinati, senza duplicati), calcolati in create/publish
+-- i job esistenti vengono completati all'avvio da JobKeywordIndex
+alter table job add column if not exists tokens text[];
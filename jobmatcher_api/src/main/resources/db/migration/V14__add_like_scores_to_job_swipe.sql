@@ -0,0 +1,15 @@
+-- score del match calcolati al LIKE (e ricalcolati in background), letti da /matches e /company/matches
+alter table job_swipe add column if not exists text_score double precision;     -- semantico o keyword, 0..1
+alter table job_swipe add column if not exists company_score double precision;  -- vista azienda
+alter table job_swipe add column if not exists used_embedding boolean;
+alter table job_swipe add column if not exists match_reasons text[];
+alter table job_swipe add column if not exists scored_cv_id uuid;
+alter table job_swipe add column if not exists scored_at timestamptz;
+
+create index if not exists idx_job_swipe_candidate_rank
+  on job_swipe(candidate_username, text_score desc nulls last, created_at desc)
+  where action = 'LIKE';
+
+create index if not exists idx_job_swipe_job_rank
+  on job_swipe(job_id, company_score desc nulls last, created_at desc)
+  where action = 'LIKE';
@@ -0,0 +1,26 @@
+-- coda delle analisi CV: i worker (anche su più nodi) reclamano i task con FOR UPDATE SKIP LOCKED
+-- e li tengono con un lease; un lease scaduto (nodo morto) rende il task di nuovo reclamabile
+create table if not exists cv_analysis_task (
+  id uuid primary key,
+  version bigint not null default 0,
+
+  cv_file_id uuid not null references cv_file(id) on delete cascade,
+  status varchar(16) not null,        -- PENDING / RUNNING / DONE / FAILED
+  attempts int not null default 0,
+  available_at timestamptz not null default now(),
+
+  lease_owner varchar(200),
+  lease_until timestamptz,
+  last_error text,
+
+  created_at timestamptz not null default now(),
+  updated_at timestamptz not null default now()
+);
+
+-- al massimo un task attivo per CV
+create unique index if not exists uk_cv_analysis_task_active
+  on cv_analysis_task(cv_file_id)
+  where status in ('PENDING', 'RUNNING');
+
+create index if not exists idx_cv_analysis_task_claim
+  on cv_analysis_task(status, available_at);
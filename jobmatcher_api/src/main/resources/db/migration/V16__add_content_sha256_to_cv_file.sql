@@ -0,0 +1,6 @@
+-- hash SHA-256 (hex) del contenuto: stesso file => stessa analisi e una sola copia su storage
+alter table cv_file add column if not exists content_sha256 varchar(64);
+
+create index if not exists idx_cv_file_content_sha256
+  on cv_file (content_sha256, status)
+  where content_sha256 is not null;
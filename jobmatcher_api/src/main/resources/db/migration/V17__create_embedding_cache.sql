@@ -0,0 +1,11 @@
+-- cache persistente degli embedding: chiave = hash del testo normalizzato + modello
+-- le righe di un modello non più servito vengono cancellate al cambio modello
+create table if not exists embedding_cache (
+  text_sha256 varchar(64) not null,
+  model varchar(120) not null,
+  embedding bytea not null,
+  created_at timestamptz not null default now(),
+  primary key (text_sha256, model)
+);
+
+create index if not exists idx_embedding_cache_model on embedding_cache (model);
@@ -0,0 +1,54 @@
+-- embedding versionati per modello.
+-- job.embedding / cv_file.embedding restano i vettori del modello ATTIVO (quello usato dal matching);
+-- durante una migrazione i vettori del nuovo modello stanno accanto, in job_embedding / cv_embedding,
+-- e al cutover (copertura sopra soglia) vengono promossi in un'unica transazione.
+
+alter table cv_file add column if not exists embedding_model varchar(120);
+
+update cv_file
+set embedding_model = coalesce(analysis_json ->> 'modelUsed', analysis_json ->> 'model_used')
+where embedding is not null
+  and embedding_model is null;
+
+create table if not exists job_embedding (
+  job_id uuid not null references job(id) on delete cascade,
+  model varchar(120) not null,
+  embedding bytea not null,
+  created_at timestamptz not null default now(),
+  primary key (job_id, model)
+);
+
+create index if not exists idx_job_embedding_model on job_embedding (model);
+
+create table if not exists cv_embedding (
+  cv_file_id uuid not null references cv_file(id) on delete cascade,
+  model varchar(120) not null,
+  embedding bytea not null,
+  created_at timestamptz not null default now(),
+  primary key (cv_file_id, model)
+);
+
+create index if not exists idx_cv_embedding_model on cv_embedding (model);
+
+-- modelli visti: uno solo ACTIVE, gli altri RETIRED (vettori tenuti per un eventuale rollback)
+create table if not exists embedding_model (
+  model varchar(120) primary key,
+  role varchar(16) not null,           -- ACTIVE / RETIRED
+  activated_at timestamptz,
+  updated_at timestamptz not null default now()
+);
+
+create unique index if not exists ux_embedding_model_active
+  on embedding_model (role)
+  where role = 'ACTIVE';
+
+-- modello attivo iniziale: quello della maggior parte dei job pubblicati
+insert into embedding_model (model, role, activated_at)
+select embedding_model, 'ACTIVE', now()
+from job
+where embedding_model is not null
+  and status = 'PUBLISHED'
+group by embedding_model
+order by count(*) desc
+limit 1
+on conflict do nothing;
@@ -0,0 +1,3 @@
+-- lookup per storage_path: file condivisi tra più CV (dedup) e migrazione del layout dello storage
+create index if not exists idx_cv_file_storage_path
+  on cv_file (storage_path);
@@ -0,0 +1,15 @@
+-- analisi del CV (testo estratto + sezioni) fuori da cv_file: le letture di cv_file (liste, stato, matching)
+-- non si portano più dietro il jsonb; l'analisi si legge solo quando serve, per id.
+create table if not exists cv_analysis (
+  cv_file_id uuid primary key references cv_file(id) on delete cascade,
+  analysis_json jsonb not null,
+  updated_at timestamptz not null default now()
+);
+
+insert into cv_analysis (cv_file_id, analysis_json, updated_at)
+select id, analysis_json, coalesce(analyzed_at, updated_at)
+from cv_file
+where analysis_json is not null
+on conflict (cv_file_id) do nothing;
+
+alter table cv_file drop column if exists analysis_json;
@@ -0,0 +1,4 @@
+-- job PUBLISHED senza coordinate: seconda query del prefiltro geo (la prima usa idx_job_published_geo)
+create index if not exists idx_job_published_without_geo
+  on job(id)
+  where status = 'PUBLISHED' and (lat is null or lon is null);
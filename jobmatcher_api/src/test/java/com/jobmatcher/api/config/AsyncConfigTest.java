@@ -0,0 +1,26 @@
+package com.jobmatcher.api.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class AsyncConfigTest {
+
+    @Test
+    void virtualThreadsWithoutJava21FailFast() {
+        assumeTrue(Runtime.version().feature() < 21, "solo su JDK senza virtual thread");
+        MockEnvironment env = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThatThrownBy(() -> new AsyncConfig(env))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+
+    @Test
+    void platformThreadsStartOnAnyJdk() {
+        assertThatCode(() -> new AsyncConfig(new MockEnvironment())).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,69 @@
+package com.jobmatcher.api.service;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.jobmatcher.api.domain.curriculum.CvAnalysis;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+import com.jobmatcher.api.repository.CvAnalysisRepository;
+import com.jobmatcher.api.repository.CvFileRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Le liste CV leggono una proiezione: una query, nessuna entity né jsonb dell'analisi caricati.
+ * Postgres reale (Flyway + jsonb); saltato se Docker non è disponibile.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class CvListQueryCountTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired CvFileRepository cvRepo;
+    @Autowired CvAnalysisRepository analysisRepo;
+
+    @Test
+    void cvListIsASingleProjection() {
+        for (int i = 0; i < 5; i++) {
+            CvFile cv = cvRepo.save(CvFile.builder()
+                    .ownerUsername("list-" + i)
+                    .originalFilename("cv.pdf")
+                    .contentType("application/pdf")
+                    .sizeBytes(10)
+                    .storagePath("aa/" + UUID.randomUUID() + ".pdf")
+                    .status(CvProcessingStatus.PARSED)
+                    .build());
+            analysisRepo.save(new CvAnalysis(cv.getId(),
+                    JsonNodeFactory.instance.objectNode().put("text", "java spring postgres"), null));
+        }
+        em.flush();
+        em.clear();
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+        assertThat(cvRepo.findAllDtos()).hasSize(5);
+        assertThat(cvRepo.findDtosByOwnerUsername("list-0")).hasSize(1);
+
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(stats.getEntityLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,169 @@
+package com.jobmatcher.api.service;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.jobmatcher.api.domain.candidate.CandidateProfile;
+import com.jobmatcher.api.domain.curriculum.CvAnalysis;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.curriculum.CvProcessingStatus;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.domain.job.JobSwipe;
+import com.jobmatcher.api.domain.job.SwipeAction;
+import com.jobmatcher.api.repository.CandidateProfileRepository;
+import com.jobmatcher.api.repository.CvAnalysisRepository;
+import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.repository.JobRepository;
+import com.jobmatcher.api.repository.JobSwipeRepository;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.LikeScorer;
+import com.jobmatcher.api.service.matching.MatchScoringEngine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Numero di statement dei path match indipendente dal numero di like (niente N+1).
+ * Postgres reale (Flyway + query native); saltato se Docker non è disponibile.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({LikeScorer.class, MatchScoringEngine.class, CompanyMatchService.class})
+class MatchQueryCountTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String COMPANY = "acme";
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired JobRepository jobRepo;
+    @Autowired JobSwipeRepository swipeRepo;
+    @Autowired CvFileRepository cvRepo;
+    @Autowired CvAnalysisRepository analysisRepo;
+    @Autowired CandidateProfileRepository profileRepo;
+    @Autowired LikeScorer likeScorer;
+    @Autowired CompanyMatchService companyMatches;
+
+    private Statistics stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(COMPANY, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void scoringPendingLikesReadsWithAFixedNumberOfQueries() {
+        long few = readStatementsForPendingLikes(3);
+        long many = readStatementsForPendingLikes(25);
+
+        // like pendenti, job, profili, CV attivi, ultimi CV, testi
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(6);
+    }
+
+    @Test
+    void companyMatchesUseAFixedNumberOfQueries() {
+        List<UUID> jobs = seed("c", 25);
+        likeScorer.scorePendingForJobs(jobs);
+        flushAndClear();
+
+        stats.clear();
+        assertThat(companyMatches.getCompanyMatches(50)).hasSize(25);
+
+        // job della company, like ordinati (i pendenti si valutano in background)
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    // ---------------- helpers ----------------
+
+    // statement di lettura per valutare n like (gli update dei like non contano)
+    private long readStatementsForPendingLikes(int n) {
+        List<UUID> jobs = seed("n" + n, n);
+        flushAndClear();
+
+        stats.clear();
+        likeScorer.scorePendingForJobs(jobs);
+        em.flush();
+        long reads = stats.getPrepareStatementCount() - stats.getEntityUpdateCount();
+        assertThat(stats.getEntityUpdateCount()).isEqualTo(n);
+
+        swipeRepo.deleteAll();
+        flushAndClear();
+        return reads;
+    }
+
+    // n candidati, ognuno con profilo, CV PARSED (attivo per metà) e un like su un job della company
+    private List<UUID> seed(String prefix, int n) {
+        List<UUID> jobIds = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String candidate = prefix + "-" + i;
+
+            Job job = jobRepo.save(Job.builder()
+                    .ownerUsername(COMPANY)
+                    .title("Java developer " + i)
+                    .description("spring boot postgres")
+                    .status(JobStatus.PUBLISHED)
+                    .embedding(EmbeddingCodec.encode(new float[]{1f, 0f, (float) i}))
+                    .build());
+            jobIds.add(job.getId());
+
+            CvFile cv = cvRepo.save(CvFile.builder()
+                    .ownerUsername(candidate)
+                    .originalFilename("cv.pdf")
+                    .contentType("application/pdf")
+                    .sizeBytes(10)
+                    .storagePath("aa/" + UUID.randomUUID() + ".pdf")
+                    .status(CvProcessingStatus.PARSED)
+                    .embedding(EmbeddingCodec.encode(new float[]{1f, 1f, 0f}))
+                    .build());
+            analysisRepo.save(new CvAnalysis(cv.getId(),
+                    JsonNodeFactory.instance.objectNode().put("text", "java spring postgres"), null));
+
+            profileRepo.save(CandidateProfile.builder()
+                    .ownerUsername(candidate)
+                    .activeCvFileId(i % 2 == 0 ? cv.getId() : null)
+                    .build());
+
+            swipeRepo.save(JobSwipe.builder()
+                    .candidateUsername(candidate)
+                    .jobId(job.getId())
+                    .action(SwipeAction.LIKE)
+                    .build());
+        }
+        return jobIds;
+    }
+
+    private void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+}
@@ -0,0 +1,80 @@
+package com.jobmatcher.api.service.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AiCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        AiCircuitBreaker cb = new AiCircuitBreaker(3, 60_000);
+
+        cb.onFailure();
+        cb.onFailure();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+        assertThat(cb.tryAcquire()).isTrue();
+
+        cb.onFailure();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.OPEN);
+        assertThat(cb.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        AiCircuitBreaker cb = new AiCircuitBreaker(2, 60_000);
+
+        cb.onFailure();
+        cb.onSuccess();
+        cb.onFailure();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenLetsASingleTrialThrough() {
+        // openMs = 0: il circuito aperto passa subito a half-open
+        AiCircuitBreaker cb = new AiCircuitBreaker(1, 0);
+        cb.onFailure();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.OPEN);
+
+        assertThat(cb.tryAcquire()).isTrue();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.HALF_OPEN);
+        assertThat(cb.tryAcquire()).isFalse();
+
+        cb.onSuccess();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.CLOSED);
+        assertThat(cb.tryAcquire()).isTrue();
+        assertThat(cb.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void failedTrialReopensImmediately() {
+        AiCircuitBreaker cb = new AiCircuitBreaker(5, 0);
+        for (int i = 0; i < 5; i++) cb.onFailure();
+
+        assertThat(cb.tryAcquire()).isTrue();
+        cb.onFailure();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void ignoredTrialFreesTheSlot() {
+        AiCircuitBreaker cb = new AiCircuitBreaker(1, 0);
+        cb.onFailure();
+
+        assertThat(cb.tryAcquire()).isTrue();
+        assertThat(cb.tryAcquire()).isFalse();
+        cb.onIgnored();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.HALF_OPEN);
+        assertThat(cb.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void staysOpenUntilTheWindowExpires() {
+        AiCircuitBreaker cb = new AiCircuitBreaker(1, 60_000);
+        cb.onFailure();
+
+        for (int i = 0; i < 10; i++) assertThat(cb.tryAcquire()).isFalse();
+        assertThat(cb.state()).isEqualTo(AiCircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,104 @@
+package com.jobmatcher.api.service.ai;
+
+import com.jobmatcher.api.config.AiClientProperties;
+import com.jobmatcher.api.domain.ai.EmbeddingCacheEntry;
+import com.jobmatcher.api.domain.ai.EmbeddingCacheKey;
+import com.jobmatcher.api.dto.EmbedResponse;
+import com.jobmatcher.api.repository.EmbeddingCacheRepository;
+import com.jobmatcher.api.service.matching.EmbeddingCodec;
+import com.jobmatcher.api.service.matching.EmbeddingModelCutoverEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EmbeddingCacheTest {
+
+    private EmbeddingCacheRepository repo;
+    private AiModelResolver models;
+    private EmbeddingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(EmbeddingCacheRepository.class);
+        models = mock(AiModelResolver.class);
+        when(models.currentModel()).thenReturn("m1");
+        cache = new EmbeddingCache(new AiClientProperties(), repo, models, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void batchMissesAreLoadedWithASingleQuery() {
+        when(repo.findAllById(any())).thenReturn(List.of());
+        List<List<String>> computed = new ArrayList<>();
+
+        cache.getAll(List.of("a", "b", "c"), texts -> {
+            computed.add(texts);
+            return texts.stream().map(t -> new EmbedResponse(List.of(1.0, 0.0), "m1")).toList();
+        });
+
+        verify(repo, times(1)).findAllById(any());
+        verify(repo, never()).findById(any());
+        assertThat(computed).containsExactly(List.of("a", "b", "c"));
+    }
+
+    @Test
+    void dbHitsAreNotRecomputedAndGoToMemory() throws Exception {
+        EmbeddingCacheEntry row = EmbeddingCacheEntry.builder()
+                .key(new EmbeddingCacheKey(sha("b"), "m1"))
+                .embedding(EmbeddingCodec.encode(new float[]{0.5f}))
+                .build();
+        when(repo.findAllById(any())).thenReturn(List.of(row));
+        List<List<String>> computed = new ArrayList<>();
+
+        List<EmbedResponse> out = cache.getAll(List.of("a", "b"), texts -> {
+            computed.add(texts);
+            return texts.stream().map(t -> new EmbedResponse(List.of(1.0), "m1")).toList();
+        });
+
+        assertThat(computed).containsExactly(List.of("a"));
+        assertThat(out.get(1).embedding()).containsExactly(0.5);
+
+        // secondo giro: tutto in memoria, nessuna query
+        clearInvocations(repo);
+        cache.getAll(List.of("a", "b"), texts -> { throw new AssertionError("nessun calcolo atteso"); });
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void modelChangeEvictsOnlyMemory() {
+        when(repo.findAllById(any())).thenReturn(List.of());
+        cache.get("a", t -> new EmbedResponse(List.of(1.0), "m1"));
+        assertThat(cache.memorySize()).isEqualTo(1);
+
+        when(models.currentModel()).thenReturn("m2");
+        cache.get("b", t -> new EmbedResponse(List.of(1.0), "m2"));
+
+        assertThat(cache.memorySize()).isEqualTo(1);
+        verify(repo, never()).deleteByModel(anyString());
+    }
+
+    @Test
+    void cutoverDeletesRowsOfThePreviousModel() {
+        cache.onModelCutover(new EmbeddingModelCutoverEvent("m1", "m2"));
+        verify(repo).deleteByModel("m1");
+
+        clearInvocations(repo);
+        cache.onModelCutover(new EmbeddingModelCutoverEvent(null, "m1"));
+        verifyNoInteractions(repo);
+    }
+
+    private static String sha(String text) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(EmbeddingCache.normalize(text).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+}
@@ -0,0 +1,60 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeedCursorTest {
+
+    @Test
+    void roundTrips() {
+        FeedCursor c = new FeedCursor(UUID.randomUUID(), 40, FeedSnapshot.Segment.PROXIMITY, 0.8125,
+                UUID.randomUUID(), FeedCursor.paramsKey(45.4642, 9.19, 25.0));
+
+        String encoded = c.encode();
+
+        assertThat(encoded).doesNotContain("=", "+", "/");
+        assertThat(FeedCursor.decode(encoded)).isEqualTo(c);
+    }
+
+    @Test
+    void roundTripsWithoutLastItem() {
+        FeedCursor c = new FeedCursor(UUID.randomUUID(), 0, null, Double.MAX_VALUE, null,
+                FeedCursor.paramsKey(null, null, 25.0));
+        assertThat(FeedCursor.decode(c.encode())).isEqualTo(c);
+    }
+
+    @Test
+    void acceptsV1CursorsWithoutSegment() {
+        UUID snapshot = UUID.randomUUID();
+        UUID job = UUID.randomUUID();
+        String raw = "v1|" + snapshot + "|20|0.5|" + job + "|-,-,25.000";
+        String encoded = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+
+        FeedCursor c = FeedCursor.decode(encoded);
+
+        assertThat(c.snapshotId()).isEqualTo(snapshot);
+        assertThat(c.offset()).isEqualTo(20);
+        assertThat(c.segment()).isNull();
+        assertThat(c.lastJobId()).isEqualTo(job);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> FeedCursor.decode("not-a-cursor")).isInstanceOf(BadRequestException.class);
+        String wrongVersion = Base64.getUrlEncoder().encodeToString("v9|a|b".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> FeedCursor.decode(wrongVersion)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void paramsKeyIsStableAndLocaleIndependent() {
+        assertThat(FeedCursor.paramsKey(45.4642, 9.19, 25.0)).isEqualTo("45.464200,9.190000,25.000");
+        assertThat(FeedCursor.paramsKey(null, null, 10)).isEqualTo("-,-,10.000");
+    }
+}
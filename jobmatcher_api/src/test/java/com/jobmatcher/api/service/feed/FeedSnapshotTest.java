@@ -0,0 +1,143 @@
+package com.jobmatcher.api.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedSnapshotTest {
+
+    private static final UUID S1 = id(1), S2 = id(2), S3 = id(3);
+    private static final UUID P1 = id(11), P2 = id(12), P3 = id(13);
+
+    @Test
+    void resumesRightAfterTheLastJobWhenItIsStillThere() {
+        FeedSnapshot snap = twoSegments();
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.SEMANTIC, 0.8, S2)).isEqualTo(2);
+    }
+
+    @Test
+    void missingJobResumesByKeysetInsideItsSegment() {
+        // S2 (0.8) e P2 (0.5) sono stati swipati: il nuovo snapshot non li contiene
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 100);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9), e(S3, 0.7)), false);
+        snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(P1, 0.95), e(P3, 0.2)), true);
+
+        // semantico: riprende da S3, non dal primo score < 0.8 nel segmento di prossimità
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.SEMANTIC, 0.8, S2)).isEqualTo(1);
+        // prossimità: P1 ha score 0.95 (più alto di 0.8) ma è nel segmento successivo, quindi già servito
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.PROXIMITY, 0.5, P2)).isEqualTo(3);
+    }
+
+    @Test
+    void endOfSegmentContinuesWithTheNextOne() {
+        FeedSnapshot snap = twoSegments();
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.SEMANTIC, 0.1, id(99))).isEqualTo(3);
+        assertThat(snap.get(3).jobId()).isEqualTo(P1);
+    }
+
+    @Test
+    void proximitySegmentNotLoadedYetAsksTheCallerToLoadIt() {
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 100);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9)), false);
+
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.PROXIMITY, 0.5, P2)).isEqualTo(snap.size());
+        assertThat(snap.isRestLoaded()).isFalse();
+    }
+
+    @Test
+    void differentRankingRestartsFromTheTop() {
+        FeedSnapshot snap = twoSegments();
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.KEYWORD, 0.3, id(99))).isZero();
+        assertThat(snap.resumeAfter(null, 0.3, id(99))).isZero();
+    }
+
+    @Test
+    void tracksSegmentsAndCapacity() {
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 4);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9), e(S2, 0.8), e(S3, 0.7)), false);
+        snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(S1, 0.9), e(P1, 0.6), e(P2, 0.5)), true);
+
+        assertThat(snap.size()).isEqualTo(4);
+        assertThat(snap.remainingCapacity()).isZero();
+        // P2 non è entrato: il feed non è finito
+        assertThat(snap.isRestLoaded()).isFalse();
+        assertThat(snap.segmentAt(2)).isEqualTo(FeedSnapshot.Segment.SEMANTIC);
+        assertThat(snap.segmentAt(3)).isEqualTo(FeedSnapshot.Segment.PROXIMITY);
+        assertThat(snap.get(3).jobId()).isEqualTo(P1);
+    }
+
+    @Test
+    void fullSnapshotContinuesWithAnotherBlock() {
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 2);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9), e(S2, 0.8)), false);
+        assertThat(snap.isRestLoaded()).isFalse();
+
+        snap.extend(2, () -> snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(P1, 0.9), e(P2, 0.8)), false));
+        snap.extend(4, () -> snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(P3, 0.2)), true));
+
+        assertThat(snap.size()).isEqualTo(5);
+        assertThat(snap.isRestLoaded()).isTrue();
+        // i blocchi di prossimità formano un solo segmento: il keyset riprende anche a cavallo dei blocchi
+        assertThat(snap.segmentAt(4)).isEqualTo(FeedSnapshot.Segment.PROXIMITY);
+        assertThat(snap.resumeAfter(FeedSnapshot.Segment.PROXIMITY, 0.5, id(99))).isEqualTo(4);
+    }
+
+    @Test
+    void extendLoadsOnceForCallersThatSawTheSameSize() throws Exception {
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 10);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9)), false);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch inLoader = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread first = new Thread(() -> snap.extend(1, () -> {
+            loads.incrementAndGet();
+            inLoader.countDown();
+            await(release);
+            snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(P1, 0.5)), false);
+        }));
+        first.start();
+        assertThat(inLoader.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // durante il caricamento le pagine già presenti restano leggibili
+        assertThat(snap.get(0).jobId()).isEqualTo(S1);
+
+        Thread second = new Thread(() -> snap.extend(1, loads::incrementAndGet));
+        second.start();
+        release.countDown();
+        first.join(5_000);
+        second.join(5_000);
+
+        assertThat(loads).hasValue(1);
+        assertThat(snap.size()).isEqualTo(2);
+    }
+
+    private static FeedSnapshot twoSegments() {
+        FeedSnapshot snap = new FeedSnapshot("c", "k", null, null, 25, null, 100);
+        snap.appendSegment(FeedSnapshot.Segment.SEMANTIC, List.of(e(S1, 0.9), e(S2, 0.8), e(S3, 0.7)), false);
+        snap.appendSegment(FeedSnapshot.Segment.PROXIMITY, List.of(e(P1, 0.95), e(P2, 0.5), e(P3, 0.2)), true);
+        return snap;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static FeedSnapshot.Entry e(UUID id, double score) {
+        return new FeedSnapshot.Entry(id, score);
+    }
+
+    private static UUID id(long n) {
+        return new UUID(0L, n);
+    }
+}
@@ -0,0 +1,66 @@
+package com.jobmatcher.api.service.feed;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SeenJobSetTest {
+
+    @Test
+    void containsExactlyTheInitialIds() {
+        Random rnd = new Random(1);
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) ids.add(new UUID(rnd.nextLong(), rnd.nextLong()));
+
+        SeenJobSet set = SeenJobSet.of(ids);
+
+        assertThat(set.size()).isEqualTo(ids.size());
+        for (UUID id : ids) assertThat(set.contains(id)).isTrue();
+        for (int i = 0; i < 1000; i++) assertThat(set.contains(new UUID(rnd.nextLong(), rnd.nextLong()))).isFalse();
+    }
+
+    @Test
+    void ordersBySignedBitsLikeUuidCompare() {
+        // msb negativi e positivi, stesso msb con lsb diversi
+        List<UUID> ids = List.of(new UUID(-1L, 5L), new UUID(Long.MIN_VALUE, 0L), new UUID(0L, -3L),
+                new UUID(0L, 3L), new UUID(Long.MAX_VALUE, Long.MAX_VALUE));
+        SeenJobSet set = SeenJobSet.of(ids);
+        for (UUID id : ids) assertThat(set.contains(id)).isTrue();
+        assertThat(set.contains(new UUID(0L, 4L))).isFalse();
+    }
+
+    @Test
+    void dropsDuplicates() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        SeenJobSet set = SeenJobSet.of(List.of(a, b, a, a));
+
+        assertThat(set.size()).isEqualTo(2);
+        set.add(b);
+        assertThat(set.size()).isEqualTo(2);
+    }
+
+    @Test
+    void addedIdsSurviveTheMergeIntoTheSortedArray() {
+        SeenJobSet set = SeenJobSet.of(List.of());
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            UUID id = UUID.randomUUID();
+            added.add(id);
+            set.add(id);
+        }
+
+        assertThat(set.size()).isEqualTo(200);
+        for (UUID id : added) assertThat(set.contains(id)).isTrue();
+        assertThat(set.contains(UUID.randomUUID())).isFalse();
+    }
+
+    @Test
+    void emptySetContainsNothing() {
+        SeenJobSet set = SeenJobSet.of(List.of());
+        assertThat(set.size()).isZero();
+        assertThat(set.contains(UUID.randomUUID())).isFalse();
+    }
+}
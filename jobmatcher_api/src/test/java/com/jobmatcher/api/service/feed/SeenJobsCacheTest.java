@@ -0,0 +1,75 @@
+package com.jobmatcher.api.service.feed;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.repository.JobSwipeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SeenJobsCacheTest {
+
+    private static final UUID OLD = new UUID(0L, 1L), NEW = new UUID(0L, 2L);
+
+    private JobSwipeRepository repo;
+    private SeenJobsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(JobSwipeRepository.class);
+        cache = new SeenJobsCache(repo, new MatchingProperties());
+    }
+
+    @Test
+    void loadsOnceAndFollowsSwipes() {
+        when(repo.findJobIdsByCandidateUsername("c")).thenReturn(List.of(OLD));
+
+        assertThat(cache.get("c").contains(OLD)).isTrue();
+        cache.onSwiped("c", NEW);
+
+        assertThat(cache.get("c").contains(NEW)).isTrue();
+        verify(repo, times(1)).findJobIdsByCandidateUsername("c");
+    }
+
+    @Test
+    void swipeDuringTheLoadIsNotLost() throws Exception {
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch swiped = new CountDownLatch(1);
+        // la query ha già letto il DB (senza NEW) quando arriva lo swipe
+        when(repo.findJobIdsByCandidateUsername("c")).thenAnswer(inv -> {
+            querying.countDown();
+            assertThat(swiped.await(5, TimeUnit.SECONDS)).isTrue();
+            return List.of(OLD);
+        });
+
+        CompletableFuture<SeenJobSet> load = CompletableFuture.supplyAsync(() -> cache.get("c"));
+        assertThat(querying.await(5, TimeUnit.SECONDS)).isTrue();
+        cache.onSwiped("c", NEW);
+        swiped.countDown();
+
+        assertThat(load.get(5, TimeUnit.SECONDS).contains(NEW)).isTrue();
+        assertThat(cache.get("c").contains(NEW)).isTrue();
+    }
+
+    @Test
+    void failedLoadIsRetriedAndLeavesNoPendingState() {
+        when(repo.findJobIdsByCandidateUsername("c"))
+                .thenThrow(new IllegalStateException("db giù"))
+                .thenReturn(List.of(OLD));
+
+        try {
+            cache.get("c");
+        } catch (IllegalStateException expected) {
+            // il chiamante vede l'errore; niente in cache
+        }
+        assertThat(cache.get("c").contains(OLD)).isTrue();
+        verify(repo, times(2)).findJobIdsByCandidateUsername("c");
+    }
+}
@@ -0,0 +1,61 @@
+package com.jobmatcher.api.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+class EmbeddingCodecTest {
+
+    @Test
+    void roundTripsFloatArrays() {
+        float[] v = {0.5f, -1.25f, 3.0f, Float.MIN_VALUE};
+        byte[] bytes = EmbeddingCodec.encode(v);
+
+        assertThat(bytes).hasSize(v.length * Float.BYTES);
+        assertThat(EmbeddingCodec.decode(bytes)).containsExactly(v);
+        assertThat(EmbeddingCodec.dimension(bytes)).isEqualTo(4);
+    }
+
+    @Test
+    void usesBigEndianFloat32LikeFloat4send() {
+        byte[] bytes = EmbeddingCodec.encode(new float[]{1.0f});
+        // 1.0f = 0x3F800000
+        assertThat(bytes).containsExactly(0x3F, 0x80, 0x00, 0x00);
+        assertThat(ByteBuffer.wrap(bytes).getFloat()).isEqualTo(1.0f);
+    }
+
+    @Test
+    void encodesDoubleListsAsFloats() {
+        byte[] bytes = EmbeddingCodec.encode(List.of(0.1, 0.2, 0.3));
+        assertThat(EmbeddingCodec.decode(bytes)).containsExactly(0.1f, 0.2f, 0.3f);
+        assertThat(EmbeddingCodec.toList(bytes)).hasSize(3);
+        assertThat(EmbeddingCodec.toList(bytes).get(0)).isCloseTo(0.1, offset(1e-7));
+    }
+
+    @Test
+    void emptyAndInvalidInputsMapToNull() {
+        assertThat(EmbeddingCodec.encode((float[]) null)).isNull();
+        assertThat(EmbeddingCodec.encode(new float[0])).isNull();
+        assertThat(EmbeddingCodec.encode(List.<Double>of())).isNull();
+        assertThat(EmbeddingCodec.decode(null)).isNull();
+        assertThat(EmbeddingCodec.decode(new byte[0])).isNull();
+        assertThat(EmbeddingCodec.decode(new byte[5])).isNull();
+        assertThat(EmbeddingCodec.toList(null)).isNull();
+        assertThat(EmbeddingCodec.dimension(null)).isZero();
+    }
+
+    @Test
+    void decodeNormalizedReturnsUnitVectors() {
+        float[] v = EmbeddingCodec.decodeNormalized(EmbeddingCodec.encode(new float[]{3f, 4f}));
+        assertThat(v).containsExactly(new float[]{0.6f, 0.8f}, offset(1e-6f));
+    }
+
+    @Test
+    void decodeNormalizedRejectsZeroVectors() {
+        assertThat(EmbeddingCodec.decodeNormalized(EmbeddingCodec.encode(new float[]{0f, 0f}))).isNull();
+    }
+}
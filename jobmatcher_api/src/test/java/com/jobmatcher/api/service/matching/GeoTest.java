@@ -0,0 +1,74 @@
+package com.jobmatcher.api.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+class GeoTest {
+
+    @Test
+    void distanceBetweenKnownCities() {
+        // Milano - Roma ~ 477 km
+        assertThat(Geo.distanceKm(45.4642, 9.1900, 41.9028, 12.4964)).isCloseTo(477.0, offset(5.0));
+        assertThat(Geo.distanceKm(45.0, 9.0, 45.0, 9.0)).isZero();
+    }
+
+    @Test
+    void distanceIsNullWhenACoordinateIsMissing() {
+        assertThat(Geo.distanceKm(null, 9.0, 45.0, 9.0)).isNull();
+        assertThat(Geo.distanceKm(45.0, 9.0, 45.0, null)).isNull();
+    }
+
+    @Test
+    void boxIsNullWithoutCentre() {
+        assertThat(Geo.boxAround(null, 9.0, 50)).isNull();
+        assertThat(Geo.boxAround(45.0, null, 50)).isNull();
+    }
+
+    @Test
+    void boxContainsEveryPointOfTheCircle() {
+        Random rnd = new Random(9);
+        double[][] centres = {{45.46, 9.19}, {0.0, 0.0}, {-33.9, 18.4}, {69.6, 18.9}};
+        double radius = 80;
+        for (double[] c : centres) {
+            Geo.BoundingBox box = Geo.boxAround(c[0], c[1], radius);
+            for (int i = 0; i < 2000; i++) {
+                double lat = c[0] + (rnd.nextDouble() - 0.5) * 4;
+                double lon = c[1] + (rnd.nextDouble() - 0.5) * 8;
+                if (Geo.distanceKm(c[0], c[1], lat, lon) <= radius) {
+                    assertThat(box.contains(lat, lon)).as("(%f,%f) around (%f,%f)", lat, lon, c[0], c[1]).isTrue();
+                }
+            }
+        }
+    }
+
+    @Test
+    void boxExcludesFarPoints() {
+        Geo.BoundingBox box = Geo.boxAround(45.46, 9.19, 50);
+        assertThat(box.contains(41.90, 12.50)).isFalse();
+        assertThat(box.contains(45.46, 12.50)).isFalse();
+    }
+
+    @Test
+    void boxCoversAllLongitudesNearPolesAndAntimeridian() {
+        Geo.BoundingBox polar = Geo.boxAround(89.5, 0.0, 100);
+        assertThat(polar.minLon()).isEqualTo(-180.0);
+        assertThat(polar.maxLon()).isEqualTo(180.0);
+        assertThat(polar.maxLat()).isEqualTo(90.0);
+
+        Geo.BoundingBox dateLine = Geo.boxAround(0.0, 179.9, 50);
+        assertThat(dateLine.minLon()).isEqualTo(-180.0);
+        assertThat(dateLine.maxLon()).isEqualTo(180.0);
+        assertThat(dateLine.contains(0.0, -179.9)).isTrue();
+    }
+
+    @Test
+    void jobsWithoutCoordinatesAlwaysPass() {
+        Geo.BoundingBox box = Geo.boxAround(45.46, 9.19, 10);
+        assertThat(box.contains(null, null)).isTrue();
+        assertThat(box.contains(45.46, null)).isTrue();
+    }
+}
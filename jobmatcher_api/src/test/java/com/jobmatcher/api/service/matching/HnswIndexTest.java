@@ -0,0 +1,123 @@
+package com.jobmatcher.api.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HnswIndexTest {
+
+    private static final int DIM = 32;
+
+    @Test
+    void searchOnEmptyIndexReturnsNothing() {
+        HnswIndex index = new HnswIndex(16, 100, 50);
+        assertThat(index.search(randomUnit(new Random(1)), 5)).isEmpty();
+    }
+
+    @Test
+    void exactVectorIsTheFirstHit() {
+        Random rnd = new Random(7);
+        HnswIndex index = new HnswIndex(16, 100, 50);
+        Map<UUID, float[]> data = fill(index, rnd, 500);
+
+        UUID target = data.keySet().iterator().next();
+        List<HnswIndex.Hit> hits = index.search(data.get(target), 3);
+
+        assertThat(hits).hasSize(3);
+        assertThat(hits.get(0).id()).isEqualTo(target);
+        assertThat(hits.get(0).similarity()).isCloseTo(1.0f, org.assertj.core.data.Offset.offset(1e-4f));
+        assertThat(hits.get(0).similarity()).isGreaterThanOrEqualTo(hits.get(1).similarity());
+        assertThat(hits.get(1).similarity()).isGreaterThanOrEqualTo(hits.get(2).similarity());
+    }
+
+    @Test
+    void recallAgainstBruteForceIsHigh() {
+        Random rnd = new Random(42);
+        HnswIndex index = new HnswIndex(16, 200, 100);
+        Map<UUID, float[]> data = fill(index, rnd, 2000);
+
+        int k = 10;
+        int found = 0;
+        int queries = 50;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomUnit(rnd);
+            Set<UUID> exact = bruteForce(data, query, k);
+            for (HnswIndex.Hit h : index.search(query, k)) {
+                if (exact.contains(h.id())) found++;
+            }
+        }
+        assertThat((double) found / (queries * k)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void removedIdsAreNotReturned() {
+        Random rnd = new Random(3);
+        HnswIndex index = new HnswIndex(8, 64, 32);
+        Map<UUID, float[]> data = fill(index, rnd, 200);
+
+        UUID removed = data.keySet().iterator().next();
+        assertThat(index.remove(removed)).isTrue();
+        assertThat(index.remove(removed)).isFalse();
+
+        assertThat(index.size()).isEqualTo(199);
+        assertThat(index.deletedCount()).isEqualTo(1);
+        assertThat(index.search(data.get(removed), 10)).extracting(HnswIndex.Hit::id).doesNotContain(removed);
+    }
+
+    @Test
+    void reinsertReplacesTheVector() {
+        Random rnd = new Random(5);
+        HnswIndex index = new HnswIndex(8, 64, 32);
+        fill(index, rnd, 100);
+
+        UUID id = UUID.randomUUID();
+        index.insert(id, randomUnit(rnd));
+        float[] moved = randomUnit(rnd);
+        index.insert(id, moved);
+
+        assertThat(index.size()).isEqualTo(101);
+        assertThat(index.liveVectors().get(id)).isSameAs(moved);
+        assertThat(index.search(moved, 1).get(0).id()).isEqualTo(id);
+    }
+
+    @Test
+    void rejectsVectorsOfAnotherDimension() {
+        HnswIndex index = new HnswIndex(8, 64, 32);
+        index.insert(UUID.randomUUID(), randomUnit(new Random(1)));
+
+        assertThatThrownBy(() -> index.insert(UUID.randomUUID(), new float[DIM + 1]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(index.search(new float[DIM + 1], 5)).isEmpty();
+    }
+
+    // ---------------- helpers ----------------
+
+    private static Map<UUID, float[]> fill(HnswIndex index, Random rnd, int n) {
+        Map<UUID, float[]> data = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            UUID id = new UUID(rnd.nextLong(), rnd.nextLong());
+            float[] v = randomUnit(rnd);
+            data.put(id, v);
+            index.insert(id, v);
+        }
+        return data;
+    }
+
+    private static Set<UUID> bruteForce(Map<UUID, float[]> data, float[] query, int k) {
+        return data.entrySet().stream()
+                .sorted(Comparator.comparingDouble((Map.Entry<UUID, float[]> e) -> Vectors.dot(query, e.getValue())).reversed())
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(java.util.stream.Collectors.toSet());
+    }
+
+    private static float[] randomUnit(Random rnd) {
+        float[] v = new float[DIM];
+        for (int i = 0; i < DIM; i++) v[i] = (float) rnd.nextGaussian();
+        Vectors.normalizeInPlace(v);
+        return v;
+    }
+}
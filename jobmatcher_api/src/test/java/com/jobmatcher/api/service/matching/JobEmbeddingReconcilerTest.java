@@ -0,0 +1,129 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.curriculum.CvFile;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.exception.ServiceUnavailableException;
+import com.jobmatcher.api.repository.CvFileRepository;
+import com.jobmatcher.api.repository.JobRepository;
+import com.jobmatcher.api.service.CvService;
+import com.jobmatcher.api.service.JobService;
+import com.jobmatcher.api.service.ai.AiModelResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class JobEmbeddingReconcilerTest {
+
+    private static final UUID MIN_ID = new UUID(0L, 0L);
+
+    private JobRepository jobRepo;
+    private CvFileRepository cvRepo;
+    private JobService jobService;
+    private CvService cvService;
+    private SimpleMeterRegistry meters;
+    private JobEmbeddingReconciler reconciler;
+
+    private final Job a = job(1), b = job(2), c = job(3);
+
+    @BeforeEach
+    void setUp() {
+        jobRepo = mock(JobRepository.class);
+        cvRepo = mock(CvFileRepository.class);
+        jobService = mock(JobService.class);
+        cvService = mock(CvService.class);
+        EmbeddingVersions versions = mock(EmbeddingVersions.class);
+        when(versions.activeModel()).thenReturn("m1");
+        when(versions.coverage(anyString(), anyBoolean())).thenReturn(new EmbeddingVersions.Coverage("m1", 3, 0, 0, 0));
+        AiModelResolver models = mock(AiModelResolver.class);
+        when(models.currentModel()).thenReturn("m1");
+
+        MatchingProperties props = new MatchingProperties();
+        // un batch per giro: il secondo giro mostra da dove riparte il cursore
+        props.getEmbeddingReconciler().setBatchSize(3);
+        props.getEmbeddingReconciler().setMaxPerRun(3);
+        meters = new SimpleMeterRegistry();
+        reconciler = new JobEmbeddingReconciler(jobRepo, cvRepo, jobService, cvService, versions, models, props, meters);
+
+        when(jobRepo.findPublishedMissingModel(eq("m1"), eq(false), any(), anyInt())).thenReturn(List.of(a, b, c));
+        when(cvRepo.findParsedMissingModel(eq("m1"), eq(false), any(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void poisonedItemIsSkippedAndTheCursorMovesPastIt() {
+        // b fa fallire il batch intero (es. 4xx sul testo), da solo fallisce sempre
+        when(jobService.reembed(anyList())).thenAnswer(inv -> {
+            List<Job> batch = inv.getArgument(0);
+            if (batch.contains(b)) throw new IllegalArgumentException("testo non valido");
+            return batch.size();
+        });
+
+        reconciler.reconcile();
+
+        verify(jobService).reembed(List.of(a));
+        verify(jobService).reembed(List.of(c));
+        assertThat(failures("job", "item")).isEqualTo(1);
+
+        reconciler.reconcile();
+        verify(jobRepo).findPublishedMissingModel("m1", false, c.getId(), 3);
+    }
+
+    @Test
+    void unavailableAiKeepsTheCursorWithoutPerItemRetries() {
+        when(jobService.reembed(anyList())).thenThrow(new ServiceUnavailableException("giù"));
+
+        reconciler.reconcile();
+        reconciler.reconcile();
+
+        verify(jobService, times(2)).reembed(List.of(a, b, c));
+        verify(jobRepo, times(2)).findPublishedMissingModel("m1", false, MIN_ID, 3);
+        assertThat(failures("job", "item")).isZero();
+    }
+
+    @Test
+    void unavailableMidwayAdvancesPastTheItemsAlreadyDone() {
+        when(jobService.reembed(anyList())).thenAnswer(inv -> {
+            List<Job> batch = inv.getArgument(0);
+            if (batch.size() > 1) throw new IllegalArgumentException("testo non valido");
+            if (batch.contains(b)) throw new ServiceUnavailableException("giù");
+            return 1;
+        });
+
+        reconciler.reconcile();
+        reconciler.reconcile();
+
+        verify(jobService, never()).reembed(List.of(c));
+        verify(jobRepo).findPublishedMissingModel("m1", false, a.getId(), 3);
+    }
+
+    @Test
+    void jobPhaseErrorDoesNotStopTheCvPhase() {
+        when(jobRepo.findPublishedMissingModel(any(), anyBoolean(), any(), anyInt()))
+                .thenThrow(new DataAccessResourceFailureException("db giù"));
+        CvFile cv = CvFile.builder().id(UUID.randomUUID()).build();
+        when(cvRepo.findParsedMissingModel(eq("m1"), eq(false), any(), anyInt())).thenReturn(List.of(cv), List.of());
+        when(cvService.reembed(anyList())).thenReturn(1);
+
+        reconciler.reconcile();
+
+        verify(cvService).reembed(List.of(cv));
+        assertThat(failures("job", "error")).isEqualTo(1);
+        assertThat(failures("cv", "error")).isZero();
+    }
+
+    private double failures(String kind, String reason) {
+        return meters.get("jobmatcher.embedding.reconcile.failures").tag("kind", kind).tag("reason", reason).counter().count();
+    }
+
+    private static Job job(long n) {
+        return Job.builder().id(new UUID(0L, n)).title("job " + n).build();
+    }
+}
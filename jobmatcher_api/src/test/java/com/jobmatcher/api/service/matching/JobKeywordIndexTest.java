@@ -0,0 +1,142 @@
+package com.jobmatcher.api.service.matching;
+
+import com.jobmatcher.api.config.MatchingProperties;
+import com.jobmatcher.api.domain.job.Job;
+import com.jobmatcher.api.domain.job.JobStatus;
+import com.jobmatcher.api.repository.JobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class JobKeywordIndexTest {
+
+    private final MatchScoringEngine scoring = new MatchScoringEngine();
+    private JobRepository repo;
+    private MatchingProperties props;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(JobRepository.class);
+        props = new MatchingProperties();
+        // catalogo piccolo: nessun token scartato come quasi-stopword
+        props.getKeywordIndex().setMaxPostingRatio(1.0);
+    }
+
+    @Test
+    void ranksByJaccardAndSkipsWeakOverlaps() {
+        Job exact = job("java spring postgres");
+        Job partial = job("java spring kotlin android mobile");
+        Job weak = job("java marketing sales");
+        JobKeywordIndex index = built(exact, partial, weak);
+
+        List<JobKeywordIndex.Hit> hits = index.search(scoring.tokenize("java spring postgres"), 10);
+
+        // weak condivide un solo token: sotto minSharedTokens
+        assertThat(hits).extracting(JobKeywordIndex.Hit::id).containsExactly(exact.getId(), partial.getId());
+        assertThat(hits.get(0).jaccard()).isEqualTo(1.0);
+        assertThat(hits.get(1).shared()).isEqualTo(2);
+    }
+
+    @Test
+    void respectsTheLimit() {
+        JobKeywordIndex index = built(job("java spring"), job("java spring docker"), job("java spring kafka"));
+
+        assertThat(index.search(scoring.tokenize("java spring"), 2)).hasSize(2);
+    }
+
+    @Test
+    void savesAddAndRemoveJobs() {
+        Job first = job("python django");
+        JobKeywordIndex index = built(first);
+
+        Job added = job("python django celery");
+        index.onJobSaved(added);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(ids(index, "python django celery")).containsExactly(added.getId(), first.getId());
+
+        first.setStatus(JobStatus.ARCHIVED);
+        index.onJobSaved(first);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(ids(index, "python django")).containsExactly(added.getId());
+    }
+
+    @Test
+    void compactsWhenMostEntriesAreTombstones() {
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) jobs.add(job("rust tokio job" + i));
+        JobKeywordIndex index = built(jobs.toArray(Job[]::new));
+
+        // 6 rimozioni su 10: la compattazione riparte dai 4 vivi
+        for (int i = 0; i < 6; i++) {
+            jobs.get(i).setStatus(JobStatus.ARCHIVED);
+            index.onJobSaved(jobs.get(i));
+        }
+
+        assertThat(index.size()).isEqualTo(4);
+        assertThat(ids(index, "rust tokio")).containsExactlyInAnyOrderElementsOf(
+                jobs.subList(6, 10).stream().map(Job::getId).toList());
+
+        // dopo la compattazione gli aggiornamenti continuano a funzionare
+        jobs.get(9).setStatus(JobStatus.ARCHIVED);
+        index.onJobSaved(jobs.get(9));
+        assertThat(ids(index, "rust tokio")).hasSize(3);
+    }
+
+    @Test
+    void searchDuringConcurrentSavesNeverComesBackEmpty() throws Exception {
+        Job stable = job("scala akka cluster");
+        JobKeywordIndex index = built(stable);
+        AtomicBoolean stop = new AtomicBoolean();
+        CountDownLatch started = new CountDownLatch(1);
+
+        Thread writer = new Thread(() -> {
+            started.countDown();
+            while (!stop.get()) {
+                Job churn = job("scala akka streams");
+                index.onJobSaved(churn);
+                churn.setStatus(JobStatus.ARCHIVED);
+                index.onJobSaved(churn);
+            }
+        });
+        writer.start();
+        try {
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            TokenSet query = scoring.tokenize("scala akka cluster");
+            for (int i = 0; i < 2_000; i++) {
+                assertThat(index.search(query, 5)).extracting(JobKeywordIndex.Hit::id).contains(stable.getId());
+            }
+        } finally {
+            stop.set(true);
+            writer.join(5_000);
+        }
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    // ---------------- helpers ----------------
+
+    private JobKeywordIndex built(Job... jobs) {
+        when(repo.findByStatusOrderByCreatedAtDesc(JobStatus.PUBLISHED)).thenReturn(List.of(jobs));
+        JobKeywordIndex index = new JobKeywordIndex(repo, scoring, props);
+        index.rebuild();
+        return index;
+    }
+
+    private List<UUID> ids(JobKeywordIndex index, String query) {
+        return index.search(scoring.tokenize(query), 10).stream().map(JobKeywordIndex.Hit::id).toList();
+    }
+
+    private Job job(String text) {
+        Job j = Job.builder().id(UUID.randomUUID()).ownerUsername("acme").title(text).status(JobStatus.PUBLISHED).build();
+        j.setTokens(scoring.tokenizeJob(j).toArray());
+        return j;
+    }
+}
@@ -0,0 +1,92 @@
+package com.jobmatcher.api.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTest {
+
+    private record Item(int id, double score) {}
+
+    @Test
+    void matchesAStableSortOfTheWholeInput() {
+        Random rnd = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            int n = rnd.nextInt(200);
+            int k = rnd.nextInt(30);
+            // score con molti pareggi
+            List<Item> input = IntStream.range(0, n).mapToObj(i -> new Item(i, rnd.nextInt(10) / 10.0)).toList();
+
+            TopK<Item> top = new TopK<>(k);
+            input.forEach(it -> top.offer(it.score(), it));
+
+            List<Item> expected = input.stream()
+                    .sorted(Comparator.comparingDouble(Item::score).reversed()) // sort stabile: a pari score vince il primo
+                    .limit(k)
+                    .toList();
+            assertThat(top.drainDescending()).as("n=%d k=%d", n, k).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void tieBreakDecidesBeforeInsertionOrder() {
+        TopK<Item> top = new TopK<>(2, Comparator.comparingInt(Item::id));
+        top.offer(0.5, new Item(9, 0.5));
+        top.offer(0.5, new Item(3, 0.5));
+        top.offer(0.5, new Item(5, 0.5));
+
+        assertThat(top.drainDescending()).extracting(Item::id).containsExactly(3, 5);
+    }
+
+    @Test
+    void reportsThresholdWhenFull() {
+        TopK<String> top = new TopK<>(2);
+        assertThat(top.minScore()).isEqualTo(Double.NEGATIVE_INFINITY);
+        assertThat(top.wouldAccept(-100)).isTrue();
+
+        top.offer(0.9, "a");
+        top.offer(0.4, "b");
+        assertThat(top.isFull()).isTrue();
+        assertThat(top.minScore()).isEqualTo(0.4);
+        assertThat(top.wouldAccept(0.3)).isFalse();
+        assertThat(top.offer(0.3, "c")).isFalse();
+        assertThat(top.offer(0.6, "d")).isTrue();
+        assertThat(top.minScore()).isEqualTo(0.6);
+    }
+
+    @Test
+    void drainReturnsScoresAndEmptiesTheSelector() {
+        TopK<String> top = new TopK<>(3);
+        top.offer(0.1, "x");
+        top.offer(0.7, "y");
+        top.offer(0.3, "z");
+
+        List<TopK.Scored<String>> out = top.drainScoredDescending();
+        assertThat(out).extracting(TopK.Scored::item).containsExactly("y", "z", "x");
+        assertThat(out).extracting(TopK.Scored::score).containsExactly(0.7, 0.3, 0.1);
+        assertThat(top.size()).isZero();
+        assertThat(top.drainDescending()).isEmpty();
+    }
+
+    @Test
+    void zeroCapacityKeepsNothing() {
+        TopK<String> top = new TopK<>(0);
+        assertThat(top.offer(1.0, "a")).isFalse();
+        assertThat(top.wouldAccept(1.0)).isFalse();
+        assertThat(top.drainDescending()).isEmpty();
+    }
+
+    @Test
+    void largeInputKeepsTheBest() {
+        TopK<Integer> top = new TopK<>(10);
+        List<Integer> values = IntStream.range(0, 10_000).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(values, new Random(1));
+        values.forEach(v -> top.offer(v, v));
+
+        assertThat(top.drainDescending()).containsExactly(9999, 9998, 9997, 9996, 9995, 9994, 9993, 9992, 9991, 9990);
+    }
+}
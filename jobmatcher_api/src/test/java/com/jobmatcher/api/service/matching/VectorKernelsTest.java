@@ -0,0 +1,43 @@
+package com.jobmatcher.api.service.matching;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.Offset.offset;
+
+class VectorKernelsTest {
+
+    @Test
+    void usesSimdWhenTheModuleIsLoaded() {
+        // i test girano con --add-modules jdk.incubator.vector (build.gradle)
+        assertThat(VectorKernels.implementation()).isEqualTo("simd");
+    }
+
+    @Test
+    void simdMatchesScalarOnAllTailLengths() {
+        DotKernel scalar = new ScalarDotKernel();
+        DotKernel simd = new SimdDotKernel();
+        Random rnd = new Random(11);
+
+        for (int n = 0; n <= 70; n++) {
+            float[] a = random(rnd, n);
+            float[] b = random(rnd, n);
+            assertThat(simd.dot(a, b)).as("n=%d", n).isCloseTo(scalar.dot(a, b), offset(1e-3f));
+        }
+    }
+
+    @Test
+    void dotOfUnitVectorWithItselfIsOne() {
+        float[] v = random(new Random(3), 768);
+        Vectors.normalizeInPlace(v);
+        assertThat(Vectors.dot(v, v)).isCloseTo(1.0f, offset(1e-5f));
+    }
+
+    private static float[] random(Random rnd, int n) {
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) v[i] = (float) rnd.nextGaussian();
+        return v;
+    }
+}
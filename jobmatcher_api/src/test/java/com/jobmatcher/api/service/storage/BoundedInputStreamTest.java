@@ -0,0 +1,54 @@
+package com.jobmatcher.api.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedInputStreamTest {
+
+    private static final byte[] DATA = "0123456789".getBytes();
+
+    @Test
+    void readsAtMostLengthBytes() throws Exception {
+        InputStream in = new S3StorageService.BoundedInputStream(new ByteArrayInputStream(DATA), 4);
+        assertThat(in.readAllBytes()).containsExactly('0', '1', '2', '3');
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void bulkReadsAreTruncatedAtTheBound() throws Exception {
+        InputStream in = new S3StorageService.BoundedInputStream(new ByteArrayInputStream(DATA), 6);
+        byte[] buf = new byte[8];
+
+        assertThat(in.read(buf, 0, 4)).isEqualTo(4);
+        assertThat(in.read(buf, 4, 4)).isEqualTo(2);
+        assertThat(in.read(buf, 0, 4)).isEqualTo(-1);
+    }
+
+    @Test
+    void singleByteReadsCountTowardsTheBound() throws Exception {
+        InputStream in = new S3StorageService.BoundedInputStream(new ByteArrayInputStream(DATA), 2);
+        assertThat(in.read()).isEqualTo('0');
+        assertThat(in.read()).isEqualTo('1');
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void skipAndAvailableStayWithinTheBound() throws Exception {
+        InputStream in = new S3StorageService.BoundedInputStream(new ByteArrayInputStream(DATA), 5);
+        assertThat(in.available()).isEqualTo(5);
+        assertThat(in.skip(3)).isEqualTo(3);
+        assertThat(in.available()).isEqualTo(2);
+        assertThat(in.skip(100)).isEqualTo(2);
+        assertThat(in.read()).isEqualTo(-1);
+    }
+
+    @Test
+    void shorterUnderlyingStreamEndsEarly() throws Exception {
+        InputStream in = new S3StorageService.BoundedInputStream(new ByteArrayInputStream(DATA), 100);
+        assertThat(in.readAllBytes()).isEqualTo(DATA);
+    }
+}
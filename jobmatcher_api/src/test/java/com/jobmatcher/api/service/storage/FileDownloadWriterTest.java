@@ -0,0 +1,200 @@
+package com.jobmatcher.api.service.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FileDownloadWriterTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private static final String SHA = "deadbeef";
+    private static final Instant MODIFIED = Instant.parse("2026-01-10T10:00:00Z");
+
+    private StorageService storage;
+    private FileDownloadWriter writer;
+    private final FileDownloadWriter.Download download =
+            new FileDownloadWriter.Download("aa/file.pdf", "cv.pdf", "application/pdf", SHA, MODIFIED);
+
+    @BeforeEach
+    void setUp() {
+        // storage remoto: nessun path locale, letture ranged
+        storage = mock(StorageService.class);
+        when(storage.size("aa/file.pdf")).thenReturn((long) CONTENT.length);
+        when(storage.localPath("aa/file.pdf")).thenReturn(Optional.empty());
+        when(storage.openRange(eq("aa/file.pdf"), anyLong(), anyLong())).thenAnswer(inv -> {
+            int start = ((Long) inv.getArgument(1)).intValue();
+            int end = ((Long) inv.getArgument(2)).intValue();
+            return new ByteArrayInputStream(Arrays.copyOfRange(CONTENT, start, end + 1));
+        });
+        writer = new FileDownloadWriter(storage);
+    }
+
+    @Test
+    void withoutRangeSendsTheWholeFile() throws Exception {
+        MockHttpServletResponse res = get(new MockHttpServletRequest("GET", "/cv"));
+
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsByteArray()).isEqualTo(CONTENT);
+        assertThat(res.getContentLengthLong()).isEqualTo(CONTENT.length);
+        assertThat(res.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(res.getHeader(HttpHeaders.ETAG)).isEqualTo("\"" + SHA + "\"");
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        MockHttpServletResponse res = get(range("bytes=2-5"));
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+        assertThat(res.getContentAsString()).isEqualTo("2345");
+        assertThat(res.getContentLengthLong()).isEqualTo(4);
+        verify(storage).openRange("aa/file.pdf", 2, 5);
+    }
+
+    @Test
+    void suffixAndOpenEndedRanges() throws Exception {
+        assertThat(get(range("bytes=-3")).getContentAsString()).isEqualTo("hij");
+
+        MockHttpServletResponse open = get(range("bytes=15-"));
+        assertThat(open.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 15-19/20");
+        assertThat(open.getContentAsString()).isEqualTo("fghij");
+
+        // fine oltre la dimensione: troncata all'ultimo byte
+        assertThat(get(range("bytes=18-100")).getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 18-19/20");
+    }
+
+    @Test
+    void unsatisfiableRangeIs416() throws Exception {
+        MockHttpServletResponse res = get(range("bytes=20-30"));
+
+        assertThat(res.getStatus()).isEqualTo(416);
+        assertThat(res.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+        assertThat(res.getContentAsByteArray()).isEmpty();
+        verify(storage, never()).openRange(any(), anyLong(), anyLong());
+
+        assertThat(get(range("bytes=25-")).getStatus()).isEqualTo(416);
+        assertThat(get(range("bytes=-0")).getStatus()).isEqualTo(416);
+    }
+
+    @Test
+    void multipleOrMalformedRangesSendTheWholeFile() throws Exception {
+        MockHttpServletResponse multi = get(range("bytes=0-1,4-5"));
+        assertThat(multi.getStatus()).isEqualTo(200);
+        assertThat(multi.getContentAsByteArray()).isEqualTo(CONTENT);
+
+        MockHttpServletResponse malformed = get(range("bytes=abc"));
+        assertThat(malformed.getStatus()).isEqualTo(200);
+        assertThat(malformed.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void ifRangeWithMatchingEtagOrDateHonoursTheRange() throws Exception {
+        MockHttpServletRequest byEtag = range("bytes=0-1");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA + "\"");
+        assertThat(get(byEtag).getStatus()).isEqualTo(206);
+
+        MockHttpServletRequest byDate = range("bytes=0-1");
+        byDate.addHeader(HttpHeaders.IF_RANGE, MODIFIED.toEpochMilli());
+        assertThat(get(byDate).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void ifRangeMismatchSendsTheWholeFile() throws Exception {
+        MockHttpServletRequest staleEtag = range("bytes=0-1");
+        staleEtag.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+        assertThat(get(staleEtag).getStatus()).isEqualTo(200);
+
+        // ETag debole: If-Range richiede il confronto forte
+        MockHttpServletRequest weak = range("bytes=0-1");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/\"" + SHA + "\"");
+        assertThat(get(weak).getStatus()).isEqualTo(200);
+
+        MockHttpServletRequest staleDate = range("bytes=0-1");
+        staleDate.addHeader(HttpHeaders.IF_RANGE, MODIFIED.minusSeconds(60).toEpochMilli());
+        MockHttpServletResponse res = get(staleDate);
+        assertThat(res.getStatus()).isEqualTo(200);
+        assertThat(res.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void conditionalGetIsNotModified() throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/cv");
+        req.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + SHA + "\"");
+        MockHttpServletResponse res = get(req);
+
+        assertThat(res.getStatus()).isEqualTo(304);
+        assertThat(res.getContentAsByteArray()).isEmpty();
+        verify(storage, never()).size(any());
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("HEAD", "/cv");
+        req.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        MockHttpServletResponse res = get(req);
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getContentLengthLong()).isEqualTo(10);
+        assertThat(res.getContentAsByteArray()).isEmpty();
+        verify(storage, never()).openRange(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void localRangeUsesTransferTo(@TempDir Path dir) throws Exception {
+        Path file = Files.write(dir.resolve("file.pdf"), CONTENT);
+        when(storage.localPath("aa/file.pdf")).thenReturn(Optional.of(file));
+
+        MockHttpServletResponse res = get(range("bytes=10-14"));
+
+        assertThat(res.getStatus()).isEqualTo(206);
+        assertThat(res.getContentAsString()).isEqualTo("abcde");
+        verify(storage, never()).openRange(any(), anyLong(), anyLong());
+    }
+
+    @Test
+    void localRangeWithSendfileSetsTomcatAttributes(@TempDir Path dir) throws Exception {
+        Path file = Files.write(dir.resolve("file.pdf"), CONTENT);
+        when(storage.localPath("aa/file.pdf")).thenReturn(Optional.of(file));
+
+        MockHttpServletRequest req = range("bytes=10-14");
+        req.setAttribute("org.apache.tomcat.sendfile.support", true);
+        MockHttpServletResponse res = get(req);
+
+        // il corpo lo scrive Tomcat dopo il servlet: qui solo gli attributi, fine esclusa
+        assertThat(res.getContentAsByteArray()).isEmpty();
+        assertThat(req.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.toString());
+        assertThat(req.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(10L);
+        assertThat(req.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(15L);
+    }
+
+    // ---------------- helpers ----------------
+
+    private MockHttpServletRequest range(String header) {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/cv");
+        req.addHeader(HttpHeaders.RANGE, header);
+        return req;
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest req) throws Exception {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        writer.write(download, req, res);
+        return res;
+    }
+}
@@ -0,0 +1,42 @@
+package com.jobmatcher.api.service.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSignaturesTest {
+
+    @Test
+    void recognisesPdf() {
+        assertThat(FileSignatures.sniff(ascii("%PDF-1.7\n%âãÏÓ"))).isEqualTo(FileSignatures.PDF);
+    }
+
+    @Test
+    void recognisesZipContainers() {
+        // docx/xlsx/odt: stesso magic dello zip
+        assertThat(FileSignatures.sniff(new byte[]{'P', 'K', 3, 4, 20, 0, 6, 0})).isEqualTo(FileSignatures.ZIP);
+    }
+
+    @Test
+    void emptyOrShortHeadsAreUnknown() {
+        assertThat(FileSignatures.sniff(new byte[0])).isNull();
+        assertThat(FileSignatures.sniff(ascii("%PDF"))).isNull();
+        assertThat(FileSignatures.sniff(new byte[]{'P', 'K', 3})).isNull();
+    }
+
+    @Test
+    void otherFormatsAreUnknown() {
+        assertThat(FileSignatures.sniff(ascii("<html><body>"))).isNull();
+        assertThat(FileSignatures.sniff(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n'})).isNull();
+        // zip vuoto / spanned: non è un documento
+        assertThat(FileSignatures.sniff(new byte[]{'P', 'K', 5, 6})).isNull();
+        // la firma conta solo all'inizio
+        assertThat(FileSignatures.sniff(ascii(" %PDF-1.4"))).isNull();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InspectingInputStreamTest {
+
+    @Test
+    void hashesCountsAndKeepsTheHead() throws Exception {
+        byte[] data = random(100_000);
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(data), Long.MAX_VALUE);
+
+        in.transferTo(OutputStream.nullOutputStream());
+
+        assertThat(in.size()).isEqualTo(data.length);
+        assertThat(in.sha256Hex()).isEqualTo(sha256(data));
+        assertThat(in.head()).isEqualTo(Arrays.copyOf(data, InspectingInputStream.HEAD_BYTES));
+    }
+
+    @Test
+    void singleByteReadsAreInspectedToo() throws Exception {
+        byte[] data = "%PDF-1.7".getBytes();
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(data), 100);
+
+        while (in.read() >= 0) { }
+
+        assertThat(in.size()).isEqualTo(data.length);
+        assertThat(in.head()).isEqualTo(data);
+        assertThat(in.sha256Hex()).isEqualTo(sha256(data));
+    }
+
+    @Test
+    void skippedBytesAreStillHashedAndSniffed() throws Exception {
+        byte[] data = random(50_000);
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(data), Long.MAX_VALUE);
+
+        assertThat(in.skip(10)).isEqualTo(10);
+        assertThat(in.skip(20_000)).isEqualTo(20_000);
+        in.readAllBytes();
+
+        assertThat(in.size()).isEqualTo(data.length);
+        assertThat(in.head()).isEqualTo(Arrays.copyOf(data, InspectingInputStream.HEAD_BYTES));
+        assertThat(in.sha256Hex()).isEqualTo(sha256(data));
+    }
+
+    @Test
+    void skipStopsAtEndOfStream() throws Exception {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[5]), 100);
+
+        assertThat(in.skip(0)).isZero();
+        assertThat(in.skip(-3)).isZero();
+        assertThat(in.skip(1_000)).isEqualTo(5);
+        assertThat(in.skip(1)).isZero();
+        assertThat(in.size()).isEqualTo(5);
+    }
+
+    @Test
+    void failsAsSoonAsTheLimitIsExceeded() {
+        InputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[1_000]), 999);
+        assertThatThrownBy(in::readAllBytes).isInstanceOf(BadRequestException.class);
+
+        InputStream skipping = new InspectingInputStream(new ByteArrayInputStream(new byte[1_000]), 999);
+        assertThatThrownBy(() -> skipping.skip(1_000)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void exactlyTheLimitIsAccepted() throws Exception {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[1_000]), 1_000);
+        assertThat(in.readAllBytes()).hasSize(1_000);
+        assertThat(in.markSupported()).isFalse();
+    }
+
+    @Test
+    void shortStreamsHaveAShortHead() throws Exception {
+        InspectingInputStream in = new InspectingInputStream(new ByteArrayInputStream(new byte[]{'P', 'K'}), 100);
+        in.readAllBytes();
+        assertThat(in.head()).containsExactly('P', 'K');
+    }
+
+    private static byte[] random(int n) {
+        byte[] b = new byte[n];
+        new Random(5).nextBytes(b);
+        return b;
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+    }
+}
@@ -0,0 +1,189 @@
+package com.jobmatcher.api.service.storage;
+
+import com.jobmatcher.api.config.StorageProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.testcontainers.containers.MinIOContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Provider S3 contro un MinIO reale; saltato se Docker non è disponibile. */
+@Testcontainers(disabledWithoutDocker = true)
+class S3StorageServiceTest {
+
+    // If-None-Match su PUT e CompleteMultipartUpload: serve un MinIO recente
+    @Container
+    static MinIOContainer minio = new MinIOContainer("minio/minio:RELEASE.2024-12-18T13-15-44Z");
+
+    private static final String BUCKET = "cv-test";
+
+    @TempDir
+    Path stagingDir;
+
+    private S3StorageService storage;
+
+    @BeforeAll
+    static void createBucket() {
+        try (S3Client s3 = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.EU_WEST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .build()) {
+            s3.createBucket(b -> b.bucket(BUCKET));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        storage = new S3StorageService(properties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    void singlePutCommitIsConditional() throws Exception {
+        byte[] data = random(1000, 1);
+        String name = storage.newStoredFilename("aa11", "pdf");
+
+        assertThat(storage.commit(storage.stage(new ByteArrayInputStream(data)), name)).isTrue();
+        // stesso nome (content-addressed): la seconda PUT trova l'oggetto, nessuna sovrascrittura
+        assertThat(storage.commit(storage.stage(new ByteArrayInputStream(random(1000, 2))), name)).isFalse();
+
+        assertThat(storage.exists(name)).isTrue();
+        assertThat(storage.size(name)).isEqualTo(1000);
+        try (InputStream in = storage.loadAsResource(name).getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+        assertThat(stagedFiles()).isEmpty();
+    }
+
+    @Test
+    void multipartCommitAboveThreshold() throws Exception {
+        // soglia 6 MiB, parti da 5 MiB: 3 parti, l'ultima corta
+        byte[] data = random(11 * 1024 * 1024 + 123, 3);
+        String name = storage.newStoredFilename("bb22", "pdf");
+
+        assertThat(storage.commit(storage.stage(new ByteArrayInputStream(data)), name)).isTrue();
+        assertThat(storage.size(name)).isEqualTo(data.length);
+        try (InputStream in = storage.loadAsResource(name).getInputStream()) {
+            assertThat(in.readAllBytes()).isEqualTo(data);
+        }
+
+        assertThat(storage.commit(storage.stage(new ByteArrayInputStream(data)), name)).isFalse();
+        assertThat(stagedFiles()).isEmpty();
+    }
+
+    @Test
+    void openRangeReadsOnlyTheRequestedBytes() throws Exception {
+        byte[] data = random(4096, 4);
+        String name = storage.newStoredFilename("cc33", "pdf");
+        storage.commit(storage.stage(new ByteArrayInputStream(data)), name);
+
+        try (InputStream in = storage.openRange(name, 100, 199)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(data, 100, 200));
+        }
+        try (InputStream in = storage.openRange(name, 4000, 4095)) {
+            assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(data, 4000, 4096));
+        }
+    }
+
+    @Test
+    void streamReadsOffTheSubscribingThread() {
+        byte[] data = random(200_000, 5);
+        String name = storage.newStoredFilename("dd44", "pdf");
+        storage.commit(storage.stage(new ByteArrayInputStream(data)), name);
+
+        List<String> threads = new CopyOnWriteArrayList<>();
+        DataBuffer joined = DataBufferUtils.join(storage.stream(name)
+                        .doOnNext(b -> threads.add(Thread.currentThread().getName())))
+                .block(Duration.ofSeconds(30));
+
+        byte[] read = new byte[joined.readableByteCount()];
+        joined.read(read);
+        DataBufferUtils.release(joined);
+        assertThat(read).isEqualTo(data);
+        assertThat(threads).isNotEmpty().allMatch(t -> t.startsWith("boundedElastic"));
+    }
+
+    @Test
+    void deleteAndMissingObjects() {
+        String name = storage.newStoredFilename("ee55", "pdf");
+        storage.commit(storage.stage(new ByteArrayInputStream(random(10, 6))), name);
+
+        storage.delete(name);
+        assertThat(storage.exists(name)).isFalse();
+        assertThat(storage.exists("missing.pdf")).isFalse();
+    }
+
+    @Test
+    void staleStagedFilesAreRemovedAtStartup() throws Exception {
+        Path stale = Files.write(stagingDir.resolve(".upload-stale.tmp"), new byte[]{1});
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Path fresh = Files.write(stagingDir.resolve(".upload-fresh.tmp"), new byte[]{1});
+        Path other = Files.write(stagingDir.resolve("keep.txt"), new byte[]{1});
+        Files.setLastModifiedTime(other, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        new S3StorageService(properties()).shutdown();
+
+        assertThat(stale).doesNotExist();
+        assertThat(fresh).exists();
+        assertThat(other).exists();
+    }
+
+    // ---------------- helpers ----------------
+
+    private StorageProperties properties() {
+        StorageProperties props = new StorageProperties();
+        StorageProperties.S3 s3 = props.getS3();
+        s3.setBucket(BUCKET);
+        s3.setEndpoint(minio.getS3URL());
+        s3.setPathStyle(true);
+        s3.setAccessKey(minio.getUserName());
+        s3.setSecretKey(minio.getPassword());
+        s3.setMultipartThresholdBytes(6 * 1024 * 1024);
+        s3.setPartSizeBytes(5 * 1024 * 1024);
+        s3.setStagingDir(stagingDir.toString());
+        return props;
+    }
+
+    private List<Path> stagedFiles() throws Exception {
+        try (var files = Files.list(stagingDir)) {
+            return files.toList();
+        }
+    }
+
+    private static byte[] random(int n, long seed) {
+        byte[] b = new byte[n];
+        new Random(seed).nextBytes(b);
+        return b;
+    }
+}